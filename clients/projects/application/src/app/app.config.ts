@@ -21,6 +21,7 @@ import { environment } from '../environments/environment';
 import { routes } from './app.routes';
 import { HttpConfigLoaderFactory } from './auth-configuration';
 import { AuthInterceptor } from './auth.interceptor';
+import { ConsistencyInterceptor } from './consistency.interceptor';
 import { ServiceHelperService } from './service-helper.service';
 import { OAuthService, provideOAuthClient } from 'angular-oauth2-oidc';
 
@@ -45,6 +46,7 @@ export const appConfig: ApplicationConfig = {
     provideHttpClient(withInterceptorsFromDi()),
 
     { provide: HTTP_INTERCEPTORS, useClass: AuthInterceptor, multi: true },
+    { provide: HTTP_INTERCEPTORS, useClass: ConsistencyInterceptor, multi: true },
     {
       provide: APP_BASE_HREF,
       useFactory: () => {
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+import { Injectable } from '@angular/core';
+import {
+  HttpEvent,
+  HttpHandler,
+  HttpInterceptor,
+  HttpRequest,
+  HttpResponse,
+} from '@angular/common/http';
+import { Observable, tap } from 'rxjs';
+
+const TOKEN_HEADER = 'X-Consistency-Token';
+
+/**
+ * Keeps the consistency token returned by the last write to each service and
+ * sends it with the following requests, so the items just written are read
+ * back strongly consistent.
+ */
+@Injectable()
+export class ConsistencyInterceptor implements HttpInterceptor {
+  private tokens = new Map<string, string>();
+
+  intercept(req: HttpRequest<any>, next: HttpHandler): Observable<HttpEvent<any>> {
+    const service = req.url.match(/^.*\/(?:products|orders)/)?.[0];
+    if (!service) {
+      return next.handle(req);
+    }
+
+    const token = this.tokens.get(service);
+    const newReq = token ? req.clone({ headers: req.headers.set(TOKEN_HEADER, token) }) : req;
+    return next.handle(newReq).pipe(
+      tap((event) => {
+        const issued = event instanceof HttpResponse ? event.headers.get(TOKEN_HEADER) : null;
+        if (issued) {
+          this.tokens.set(service, issued);
+        }
+      })
+    );
+  }
+}
@@ -19,5 +19,6 @@ import { OrderProduct } from './orderproduct.interface';
 export interface Order {
   id: string;
   name: string;
+  createdAt?: string;
   orderProduct: OrderProduct[];
 }
@@ -17,7 +17,8 @@
 import { Component, OnInit } from '@angular/core';
 import { ActivatedRoute } from '@angular/router';
 import { Observable } from 'rxjs';
-import { map, switchMap } from 'rxjs/operators';
+import { map, shareReplay, switchMap } from 'rxjs/operators';
+import { ProductService } from '../../products/product.service';
 import { ServiceHelperService } from '../../../service-helper.service';
 import { Order } from '../models/order.interface';
 import { OrderProduct } from '../models/orderproduct.interface';
@@ -36,16 +37,25 @@ export class OrdersDetailComponent implements OnInit {
   orderId$: Observable<string>;
   order$: Observable<Order>;
   orderProducts$: Observable<OrderProduct[]>;
+  productNames$: Observable<Record<string, string>>;
   taxRate = 0.0899;
   constructor(
     private route: ActivatedRoute,
     private orderSvc: OrdersService,
+    private productSvc: ProductService,
     private helperSvc: ServiceHelperService
   ) {
     this.tenantId$ = this.route.paramMap.pipe(map((p) => p.get('tenantId') || ''));
     this.orderId$ = this.route.params.pipe(map((o) => o['orderId']));
-    this.order$ = this.orderId$.pipe(switchMap((o) => this.orderSvc.get(o)));
+    this.order$ = this.orderId$.pipe(
+      switchMap((o) => this.orderSvc.get(o)),
+      shareReplay(1)
+    );
     this.orderProducts$ = this.order$.pipe(map((o) => o.orderProduct));
+    this.productNames$ = this.orderProducts$.pipe(
+      switchMap((ops) => this.productSvc.batchGet(ops.map((op) => op.productId))),
+      map((products) => Object.fromEntries(products.map((p) => [p.productId, p.name])))
+    );
   }
 
   ngOnInit(): void {}
@@ -15,7 +15,6 @@
  * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
  */
 import { Component, OnInit } from '@angular/core';
-import { Observable, of } from 'rxjs';
 import { Order } from '../models/order.interface';
 import { OrdersService } from '../orders.service';
 import { CommonModule } from '@angular/common';
@@ -30,11 +29,19 @@ import { RouterModule } from '@angular/router';
   imports: [CommonModule, PopoverModule, RouterModule],
 })
 export class OrdersListComponent implements OnInit {
-  orders: Observable<Order[]> = of([]);
+  orders: Order[] = [];
+  nextToken: string | null = null;
   constructor(private orderSvc: OrdersService) {}
 
   ngOnInit(): void {
-    this.orders = this.orderSvc.fetch();
+    this.loadMore();
+  }
+
+  loadMore() {
+    this.orderSvc.fetchPage(this.nextToken).subscribe((page) => {
+      this.orders = this.orders.concat(page.items);
+      this.nextToken = page.nextToken;
+    });
   }
 
   sum(order: Order): number {
@@ -14,9 +14,10 @@
  * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
  * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
  */
-import { HttpClient } from '@angular/common/http';
+import { HttpClient, HttpParams } from '@angular/common/http';
 import { Injectable } from '@angular/core';
-import { Observable, of } from 'rxjs';
+import { Observable, map, of } from 'rxjs';
+import { Page } from '../../page.interface';
 import { ServiceHelperService } from '../../service-helper.service';
 import { Order } from './models/order.interface';
 
@@ -32,6 +33,14 @@ export class OrdersService {
     return this.http.get<Order[]>(url);
   }
 
+  fetchPage(nextToken?: string | null): Observable<Page<Order>> {
+    const url = `${this.svcHelper.getUrl('orders')}`;
+    const params = nextToken ? new HttpParams().set('nextToken', nextToken) : undefined;
+    return this.http
+      .get<Order[]>(url, { params, observe: 'response' })
+      .pipe(map((res) => ({ items: res.body ?? [], nextToken: res.headers.get('X-Next-Token') })));
+  }
+
   get(orderId: string): Observable<Order> {
     const url = `${this.svcHelper.getUrl('orders')}/${orderId}`;
     return this.http.get<Order>(url);
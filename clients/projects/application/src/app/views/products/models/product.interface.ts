@@ -19,5 +19,6 @@ export interface Product {
   name: string;
   price: number;
   pictureUrl?: string;
+  version?: number;
 
 }
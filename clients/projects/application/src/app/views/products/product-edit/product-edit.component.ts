@@ -15,6 +15,7 @@
  * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
  */
 import { Component, OnInit } from '@angular/core';
+import { HttpErrorResponse } from '@angular/common/http';
 import { FormBuilder, FormGroup, ReactiveFormsModule } from '@angular/forms';
 import { ActivatedRoute, Router } from '@angular/router';
 import { Observable, of } from 'rxjs';
@@ -52,6 +53,7 @@ export class ProductEditComponent implements OnInit {
       productId: [''],
       name: [''],
       price: [''],
+      version: [null],
     });
 
     // Is this right? Seems like I should be able to feed the form an observable
@@ -64,12 +66,16 @@ export class ProductEditComponent implements OnInit {
   }
 
   submit() {
-    this.productSvc.put(this.productForm.value).subscribe(
+    this.productSvc.patch(this.productForm.value).subscribe(
       () => {
         this.router.navigate(['products']);
       },
       (err) => {
-        alert(err);
+        if (err instanceof HttpErrorResponse && err.status === 409) {
+          alert('This product was changed in the meantime. Reload it to see the latest version.');
+        } else {
+          alert(err);
+        }
         console.error(err);
       }
     );
@@ -16,7 +16,6 @@
  */
 import { Component, EventEmitter, OnInit, Output } from '@angular/core';
 import { Router, RouterModule } from '@angular/router';
-import { Observable, of } from 'rxjs';
 import { Product } from '../models/product.interface';
 import { ProductService } from '../product.service';
 import { PopoverModule } from 'ngx-bootstrap/popover';
@@ -30,7 +29,8 @@ import { CommonModule } from '@angular/common';
   imports: [CommonModule, PopoverModule, RouterModule],
 })
 export class ProductListComponent implements OnInit {
-  products: Observable<Product[]> = of([]);
+  products: Product[] = [];
+  nextToken: string | null = null;
 
   constructor(private productSvc: ProductService, private router: Router) {}
 
@@ -53,6 +53,15 @@ export class ProductListComponent implements OnInit {
   }
 
   refresh() {
-    this.products = this.productSvc.fetch();
+    this.products = [];
+    this.nextToken = null;
+    this.loadMore();
+  }
+
+  loadMore() {
+    this.productSvc.fetchPage(this.nextToken).subscribe((page) => {
+      this.products = this.products.concat(page.items);
+      this.nextToken = page.nextToken;
+    });
   }
 }
@@ -14,9 +14,10 @@
  * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
  * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
  */
-import { HttpClient } from '@angular/common/http';
+import { HttpClient, HttpParams } from '@angular/common/http';
 import { Injectable } from '@angular/core';
-import { Observable, of } from 'rxjs';
+import { Observable, map, of } from 'rxjs';
+import { Page } from '../../page.interface';
 import { ServiceHelperService } from '../../service-helper.service';
 import { Product } from './models/product.interface';
 
@@ -31,11 +32,24 @@ export class ProductService {
     return this.http.get<Product[]>(url);
   }
 
+  fetchPage(nextToken?: string | null): Observable<Page<Product>> {
+    const url = `${this.svcHelper.getUrl('products')}`;
+    const params = nextToken ? new HttpParams().set('nextToken', nextToken) : undefined;
+    return this.http
+      .get<Product[]>(url, { params, observe: 'response' })
+      .pipe(map((res) => ({ items: res.body ?? [], nextToken: res.headers.get('X-Next-Token') })));
+  }
+
   get(productId: string): Observable<Product> {
     const url = `${this.svcHelper.getUrl('products')}/${productId}`;
     return this.http.get<Product>(url);
   }
 
+  batchGet(productIds: string[]): Observable<Product[]> {
+    const url = `${this.svcHelper.getUrl('products')}:batchGet`;
+    return this.http.post<Product[]>(url, { productIds });
+  }
+
   delete(product: Product) {
     const url = `${this.svcHelper.getUrl('products')}/${product.productId}`;
     return this.http.delete<Product>(url);
@@ -46,6 +60,12 @@ export class ProductService {
     return this.http.put<Product>(url, product);
   }
 
+  patch(product: Partial<Product> & Pick<Product, 'productId'>) {
+    const { productId, ...changes } = product;
+    const url = `${this.svcHelper.getUrl('products')}/${productId}`;
+    return this.http.patch<Product>(url, changes);
+  }
+
   post(product: Product) {
     const url = `${this.svcHelper.getUrl('products')}`;
     return this.http.post<Product>(url, product);
@@ -118,8 +118,11 @@ export class ApplicationService extends Construct {
                             cp kubernetes/path-patch-template.yaml kubernetes/path-patch.yaml && \
                             echo "  value: $res-service-account" >> kubernetes/svc-acc-patch.yaml && \
                             echo "  value: /$res/$SERVICE_URL_PREFIX" >> kubernetes/path-patch.yaml && \
+                            USER_POOL_ID=$(aws cloudformation describe-stacks --stack-name TenantStack-$res --query "Stacks[0].Outputs[?OutputKey==\'UserPoolId\'].OutputValue" --output text) && \
+                            sed "s/KUSTOMIZE_REGION/$AWS_REGION/; s/KUSTOMIZE_USER_POOL_ID/$USER_POOL_ID/" kubernetes/env-patch-template.yaml > kubernetes/env-patch.yaml && \
+                            (kubectl get secret consistency-session -n $res || kubectl create secret generic consistency-session -n $res --from-literal=session-secret=$(openssl rand -base64 32) || kubectl get secret consistency-session -n $res) && \
                             kubectl apply -k kubernetes/ -n $res && \
-                            rm kubernetes/path-patch.yaml && rm kubernetes/svc-acc-patch.yaml; done',
+                            rm kubernetes/path-patch.yaml && rm kubernetes/svc-acc-patch.yaml && rm kubernetes/env-patch.yaml; done',
             ],
           },
         },
@@ -201,6 +204,9 @@ export class ApplicationService extends Construct {
               'echo "  value: /$TENANT_ID/$SERVICE_URL_PREFIX" >> kubernetes/path-patch.yaml',
               'cp kubernetes/svc-acc-patch-template.yaml kubernetes/svc-acc-patch.yaml',
               `echo "  value: $TENANT_ID-service-account" >> kubernetes/svc-acc-patch.yaml`,
+              'USER_POOL_ID=$(aws cloudformation describe-stacks --stack-name TenantStack-$TENANT_ID --query "Stacks[0].Outputs[?OutputKey==\'UserPoolId\'].OutputValue" --output text)',
+              'sed "s/KUSTOMIZE_REGION/$AWS_REGION/; s/KUSTOMIZE_USER_POOL_ID/$USER_POOL_ID/" kubernetes/env-patch-template.yaml > kubernetes/env-patch.yaml',
+              '(kubectl get secret consistency-session -n $TENANT_ID || kubectl create secret generic consistency-session -n $TENANT_ID --from-literal=session-secret=$(openssl rand -base64 32) || kubectl get secret consistency-session -n $TENANT_ID)',
               'kubectl apply -k kubernetes/ -n $TENANT_ID',
             ],
           },
@@ -213,7 +213,12 @@ export class TenantOnboarding extends Construct {
     );
     projectRole.addToPrincipalPolicy(
       new iam.PolicyStatement({
-        actions: ['dynamodb:CreateTable', 'dynamodb:DeleteTable'],
+        actions: [
+          'dynamodb:CreateTable',
+          'dynamodb:DeleteTable',
+          'dynamodb:UpdateTable',
+          'dynamodb:DescribeTable',
+        ],
         resources: [
           Arn.format(
             { service: 'dynamodb', resource: 'table', resourceName: 'Order-*' },
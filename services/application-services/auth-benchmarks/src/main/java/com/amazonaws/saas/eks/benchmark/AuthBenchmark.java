@@ -0,0 +1,189 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazonaws.saas.eks.benchmark;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.FilterChain;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.amazonaws.saas.eks.auth.AuthFilter;
+import com.amazonaws.saas.eks.auth.JwtConfig;
+import com.amazonaws.saas.eks.auth.JwtProcessorRegistry;
+import com.amazonaws.saas.eks.auth.TokenManager;
+import com.amazonaws.saas.eks.auth.TokenProcessor;
+import com.amazonaws.saas.eks.auth.VerifiedTokenCache;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jose.util.Resource;
+import com.nimbusds.jose.util.ResourceRetriever;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Benchmarks the authentication hot path against locally generated RSA keys
+ * and an in-process JWKS endpoint. The scenario parameter selects which caches
+ * are warm:
+ * <ul>
+ * <li>coldKey - a new processor registry per call, so the JWK set is fetched
+ * and every signature is verified</li>
+ * <li>cachedKey - the JWK set is cached, every signature is verified</li>
+ * <li>cachedToken - both the JWK set and the verified token are cached</li>
+ * </ul>
+ * Run with "-prof gc" to report the allocation rate.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthBenchmark {
+	private static final String ISSUER = "https://cognito-idp.us-east-1.amazonaws.com/us-east-1_Benchmark";
+	private static final String TENANT_ID = "benchmark-tenant";
+
+	@State(Scope.Benchmark)
+	public static class AuthState {
+
+		@Param({ "coldKey", "cachedKey", "cachedToken" })
+		public String scenario;
+
+		JwtConfig jwtConfig;
+		ResourceRetriever jwksStandIn;
+		VerifiedTokenCache verifiedTokenCache;
+		JwtProcessorRegistry registry;
+		TokenProcessor tokenProcessor;
+		AuthFilter authFilter;
+		MockHttpServletRequest request;
+		MockHttpServletResponse response;
+		FilterChain filterChain;
+
+		@Setup(Level.Trial)
+		public void setUpTrial() throws JOSEException {
+			RSAKey rsaKey = new RSAKeyGenerator(2048).keyID("benchmark-key").generate();
+			String jwkSetJson = new JWKSet(rsaKey.toPublicJWK()).toString();
+			jwksStandIn = url -> new Resource(jwkSetJson, "application/json");
+
+			jwtConfig = new JwtConfig();
+			jwtConfig.setTrustedIssuers(Collections.singletonList(ISSUER));
+			jwtConfig.setTokenCacheMaximumSize("cachedToken".equals(scenario) ? 10000 : 0);
+			verifiedTokenCache = new VerifiedTokenCache(jwtConfig, new SimpleMeterRegistry());
+
+			request = new MockHttpServletRequest("GET", "/" + TENANT_ID + "/products");
+			request.addHeader(jwtConfig.getHttpHeader(), "Bearer " + signToken(rsaKey));
+			response = new MockHttpServletResponse();
+			filterChain = (req, res) -> {
+			};
+
+			createProcessors();
+		}
+
+		@Setup(Level.Invocation)
+		public void setUpInvocation() {
+			if ("coldKey".equals(scenario)) {
+				registry.close();
+				createProcessors();
+			}
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDownTrial() {
+			registry.close();
+		}
+
+		private void createProcessors() {
+			registry = new JwtProcessorRegistry(jwtConfig, jwksStandIn);
+			tokenProcessor = new TokenProcessor(jwtConfig, registry, verifiedTokenCache);
+			authFilter = new AuthFilter(tokenProcessor);
+		}
+
+		private static String signToken(RSAKey rsaKey) throws JOSEException {
+			JWTClaimsSet claims = new JWTClaimsSet.Builder()
+					.issuer(ISSUER)
+					.subject("benchmark-user")
+					.claim("cognito:username", "benchmark-user")
+					.claim("custom:tenant-id", TENANT_ID)
+					.expirationTime(new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(12)))
+					.build();
+			SignedJWT signedJWT = new SignedJWT(
+					new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(rsaKey.getKeyID()).build(), claims);
+			signedJWT.sign(new RSASSASigner(rsaKey));
+			return signedJWT.serialize();
+		}
+	}
+
+	@State(Scope.Benchmark)
+	public static class TenantState {
+		TokenManager tokenManager;
+		MockHttpServletRequest request;
+
+		@Setup(Level.Trial)
+		public void setUp() throws Exception {
+			AuthState authState = new AuthState();
+			authState.scenario = "cachedToken";
+			authState.setUpTrial();
+			authState.authFilter.doFilter(authState.request, authState.response, authState.filterChain);
+			authState.tearDownTrial();
+
+			tokenManager = new TokenManager();
+			request = authState.request;
+		}
+	}
+
+	@Benchmark
+	public Authentication authenticate(AuthState state) throws Exception {
+		return state.tokenProcessor.authenticate(state.request);
+	}
+
+	@Benchmark
+	public Authentication doFilter(AuthState state) throws Exception {
+		state.authFilter.doFilter(state.request, state.response, state.filterChain);
+		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+		SecurityContextHolder.clearContext();
+		return authentication;
+	}
+
+	@Benchmark
+	public String getTenantId(TenantState state) {
+		return state.tokenManager.getTenantId(state.request);
+	}
+}
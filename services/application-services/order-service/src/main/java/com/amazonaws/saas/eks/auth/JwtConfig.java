@@ -16,6 +16,9 @@
  */
 package com.amazonaws.saas.eks.auth;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
@@ -26,9 +29,17 @@ public class JwtConfig {
 	private String identityPoolId;
 	private String jwkUrl;
 	private String region;
+	private List<String> trustedIssuers = new ArrayList<>();
 	private String userNameField = "cognito:username";
+	private String tenantIdField = "custom:tenant-id";
+	private String tenantTierField = "custom:tenant-tier";
 	private int connectionTimeout = 2000;
 	private int readTimeout = 2000;
+	private long jwkCacheTimeToLive = 900000;
+	private long jwkCacheRefreshTimeout = 15000;
+	private long jwkRefreshAheadTime = 30000;
+	private long jwkRateLimitInterval = 30000;
+	private long tokenCacheMaximumSize = 10000;
 	private String httpHeader = "Authorization";
 
 	public JwtConfig() {
@@ -72,6 +83,14 @@ public class JwtConfig {
 		this.region = region;
 	}
 
+	public List<String> getTrustedIssuers() {
+		return trustedIssuers;
+	}
+
+	public void setTrustedIssuers(List<String> trustedIssuers) {
+		this.trustedIssuers = trustedIssuers;
+	}
+
 	public String getUserNameField() {
 		return userNameField;
 	}
@@ -80,6 +99,22 @@ public class JwtConfig {
 		this.userNameField = userNameField;
 	}
 
+	public String getTenantIdField() {
+		return tenantIdField;
+	}
+
+	public void setTenantIdField(String tenantIdField) {
+		this.tenantIdField = tenantIdField;
+	}
+
+	public String getTenantTierField() {
+		return tenantTierField;
+	}
+
+	public void setTenantTierField(String tenantTierField) {
+		this.tenantTierField = tenantTierField;
+	}
+
 	public int getConnectionTimeout() {
 		return connectionTimeout;
 	}
@@ -96,6 +131,46 @@ public class JwtConfig {
 		this.readTimeout = readTimeout;
 	}
 
+	public long getJwkCacheTimeToLive() {
+		return jwkCacheTimeToLive;
+	}
+
+	public void setJwkCacheTimeToLive(long jwkCacheTimeToLive) {
+		this.jwkCacheTimeToLive = jwkCacheTimeToLive;
+	}
+
+	public long getJwkCacheRefreshTimeout() {
+		return jwkCacheRefreshTimeout;
+	}
+
+	public void setJwkCacheRefreshTimeout(long jwkCacheRefreshTimeout) {
+		this.jwkCacheRefreshTimeout = jwkCacheRefreshTimeout;
+	}
+
+	public long getJwkRefreshAheadTime() {
+		return jwkRefreshAheadTime;
+	}
+
+	public void setJwkRefreshAheadTime(long jwkRefreshAheadTime) {
+		this.jwkRefreshAheadTime = jwkRefreshAheadTime;
+	}
+
+	public long getJwkRateLimitInterval() {
+		return jwkRateLimitInterval;
+	}
+
+	public void setJwkRateLimitInterval(long jwkRateLimitInterval) {
+		this.jwkRateLimitInterval = jwkRateLimitInterval;
+	}
+
+	public long getTokenCacheMaximumSize() {
+		return tokenCacheMaximumSize;
+	}
+
+	public void setTokenCacheMaximumSize(long tokenCacheMaximumSize) {
+		this.tokenCacheMaximumSize = tokenCacheMaximumSize;
+	}
+
 	public String getHttpHeader() {
 		return httpHeader;
 	}
@@ -17,29 +17,47 @@
 package com.amazonaws.saas.eks.auth;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
-import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
+import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import org.springframework.web.filter.CorsFilter;
 
+import com.amazonaws.saas.eks.controller.ReadConsistency;
+import com.amazonaws.saas.eks.model.PagedResult;
+
 @Configuration
-public class OrderSecurityConfig extends WebSecurityConfigurerAdapter {
+public class OrderSecurityConfig {
 
 	@Autowired
 	private AuthFilter awsCognitoJwtAuthenticationFilter;
 
-	@Override
-	protected void configure(HttpSecurity http) throws Exception {
+	@Bean
+	public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
 
 		http.headers().cacheControl();
 		http.csrf().disable().authorizeRequests().antMatchers("/health/**").permitAll().antMatchers("/**/api/**")
 				.authenticated()
 				.and().addFilterBefore(awsCognitoJwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
 		http.cors();
+		return http.build();
+	}
+
+	/**
+	 * The AuthFilter runs inside the security filter chain only. Without this,
+	 * Spring Boot also registers it as a servlet filter and every token is
+	 * processed twice per request.
+	 */
+	@Bean
+	public FilterRegistrationBean<AuthFilter> authFilterRegistration(AuthFilter authFilter) {
+		FilterRegistrationBean<AuthFilter> registration = new FilterRegistrationBean<>(authFilter);
+		registration.setEnabled(false);
+		return registration;
 	}
 
 	@Bean
@@ -47,9 +65,13 @@ public class OrderSecurityConfig extends WebSecurityConfigurerAdapter {
 		UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
 		CorsConfiguration config = new CorsConfiguration();
 		config.setAllowCredentials(true);
-		config.addAllowedOrigin("*");
+		config.addAllowedOriginPattern("*");
 		config.addAllowedHeader("*");
 		config.addAllowedMethod("*");
+		config.addExposedHeader(PagedResult.NEXT_TOKEN_HEADER);
+		config.addExposedHeader(HttpHeaders.WARNING);
+		config.addExposedHeader(HttpHeaders.RETRY_AFTER);
+		config.addExposedHeader(ReadConsistency.TOKEN_HEADER);
 		source.registerCorsConfiguration("/**", config);
 		return new CorsFilter(source);
 	}
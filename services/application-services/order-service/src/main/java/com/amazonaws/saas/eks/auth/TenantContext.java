@@ -0,0 +1,64 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazonaws.saas.eks.auth;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Tenant identity of the current request, extracted once from the verified ID
+ * token by {@link AuthFilter} and stored as a request attribute.
+ */
+public class TenantContext {
+	public static final String REQUEST_ATTRIBUTE = TenantContext.class.getName();
+
+	private final String tenantId;
+	private final String tier;
+	private final String username;
+
+	public TenantContext(String tenantId, String tier, String username) {
+		this.tenantId = tenantId;
+		this.tier = tier;
+		this.username = username;
+	}
+
+	/**
+	 * Method to retrieve the tenant context of a request
+	 * 
+	 * @param request
+	 * @return TenantContext, or null if the request is not authenticated
+	 */
+	public static TenantContext from(HttpServletRequest request) {
+		return (TenantContext) request.getAttribute(REQUEST_ATTRIBUTE);
+	}
+
+	public String getTenantId() {
+		return tenantId;
+	}
+
+	public String getTier() {
+		return tier;
+	}
+
+	public String getUsername() {
+		return username;
+	}
+
+	@Override
+	public String toString() {
+		return "TenantContext [tenantId=" + tenantId + ", tier=" + tier + ", username=" + username + "]";
+	}
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazonaws.saas.eks.auth;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Bounded cache of already verified ID tokens, keyed by a SHA-256 digest of the
+ * raw token. Entries expire at the token's exp claim, so a cached token is
+ * never accepted past its expiry. Hit and miss counts are published under the
+ * "cache.gets" metric with cache=verifiedTokens.
+ */
+@Component
+public class VerifiedTokenCache {
+	private static final String CACHE_NAME = "verifiedTokens";
+
+	private final Cache<String, JwtAuth> cache;
+	private final boolean enabled;
+
+	public VerifiedTokenCache(JwtConfig jwtConfiguration, MeterRegistry meterRegistry) {
+		this.enabled = jwtConfiguration.getTokenCacheMaximumSize() > 0;
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(jwtConfiguration.getTokenCacheMaximumSize())
+				.expireAfter(new TokenExpiry())
+				.recordStats()
+				.build();
+		CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+	}
+
+	/**
+	 * Method to look up a previously verified token
+	 * 
+	 * @param token
+	 * @return JwtAuth, or null if the token has not been verified or has expired
+	 */
+	public JwtAuth get(String token) {
+		if (!enabled) {
+			return null;
+		}
+		return cache.getIfPresent(digest(token));
+	}
+
+	/**
+	 * Method to remember a verified token until its expiry
+	 * 
+	 * @param token
+	 * @param authentication
+	 */
+	public void put(String token, JwtAuth authentication) {
+		Date expirationTime = authentication.getJwtClaimsSet().getExpirationTime();
+		if (enabled && expirationTime != null && expirationTime.getTime() > System.currentTimeMillis()) {
+			cache.put(digest(token), authentication);
+		}
+	}
+
+	private static String digest(String token) {
+		try {
+			MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+			byte[] hash = messageDigest.digest(token.getBytes(StandardCharsets.US_ASCII));
+			return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static final class TokenExpiry implements Expiry<String, JwtAuth> {
+
+		@Override
+		public long expireAfterCreate(String key, JwtAuth value, long currentTime) {
+			long remainingMillis = value.getJwtClaimsSet().getExpirationTime().getTime()
+					- System.currentTimeMillis();
+			return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMillis, 0));
+		}
+
+		@Override
+		public long expireAfterUpdate(String key, JwtAuth value, long currentTime, long currentDuration) {
+			return expireAfterCreate(key, value, currentTime);
+		}
+
+		@Override
+		public long expireAfterRead(String key, JwtAuth value, long currentTime, long currentDuration) {
+			return currentDuration;
+		}
+	}
+}
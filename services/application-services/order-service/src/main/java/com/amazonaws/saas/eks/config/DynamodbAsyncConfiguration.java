@@ -0,0 +1,65 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazonaws.saas.eks.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.core.retry.RetryPolicy;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedAsyncClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClientBuilder;
+
+/**
+ * Non-blocking DynamoDB clients used when
+ * com.amazonaws.saas.eks.dynamodb.async-enabled is set. Requests are sent
+ * through the Netty client, so no servlet thread waits on DynamoDB.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "com.amazonaws.saas.eks.dynamodb", name = "async-enabled", havingValue = "true")
+public class DynamodbAsyncConfiguration {
+
+	@Bean(destroyMethod = "close")
+	public DynamoDbAsyncClient dynamoDbAsyncClient(DynamodbProperties properties) {
+		DynamoDbAsyncClientBuilder builder = DynamoDbAsyncClient.builder()
+				.credentialsProvider(DefaultCredentialsProvider.create())
+				.httpClientBuilder(NettyNioAsyncHttpClient.builder()
+						.maxConcurrency(properties.getMaxConnections())
+						.connectionTimeout(Duration.ofMillis(properties.getConnectionTimeout()))
+						.readTimeout(Duration.ofMillis(properties.getSocketTimeout()))
+						.connectionMaxIdleTime(Duration.ofMillis(properties.getConnectionMaxIdleMillis()))
+						.connectionTimeToLive(Duration.ofMillis(properties.getConnectionTtl()))
+						.tcpKeepAlive(properties.isTcpKeepAlive()))
+				.overrideConfiguration(o -> o.retryPolicy(
+						RetryPolicy.builder().numRetries(properties.getMaxErrorRetry()).build()));
+		if (properties.getRegion() != null) {
+			builder.region(Region.of(properties.getRegion()));
+		}
+		return builder.build();
+	}
+
+	@Bean
+	public DynamoDbEnhancedAsyncClient dynamoDbEnhancedAsyncClient(DynamoDbAsyncClient dynamoDbAsyncClient) {
+		return DynamoDbEnhancedAsyncClient.builder().dynamoDbClient(dynamoDbAsyncClient).build();
+	}
+}
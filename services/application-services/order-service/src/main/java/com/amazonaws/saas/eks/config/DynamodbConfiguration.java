@@ -21,33 +21,43 @@ import org.springframework.context.annotation.Configuration;
 import com.amazonaws.ClientConfiguration;
 import com.amazonaws.Protocol;
 import com.amazonaws.auth.DefaultAWSCredentialsProviderChain;
-import com.amazonaws.regions.Regions;
-import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClient;
+import com.amazonaws.retry.PredefinedRetryPolicies;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClientBuilder;
-import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
-import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig;
 
 @Configuration
 public class DynamodbConfiguration {
 
-	ClientConfiguration getClientConfiguration() {
+	ClientConfiguration getClientConfiguration(DynamodbProperties properties) {
 		ClientConfiguration cfg = new ClientConfiguration();
 		cfg.setProtocol(Protocol.HTTPS);
-		cfg.setProxyPort(8099);
+		cfg.setMaxConnections(properties.getMaxConnections());
+		cfg.setConnectionTimeout(properties.getConnectionTimeout());
+		cfg.setSocketTimeout(properties.getSocketTimeout());
+		cfg.setRequestTimeout(properties.getRequestTimeout());
+		cfg.setClientExecutionTimeout(properties.getClientExecutionTimeout());
+		cfg.setConnectionMaxIdleMillis(properties.getConnectionMaxIdleMillis());
+		cfg.setConnectionTTL(properties.getConnectionTtl());
+		cfg.setUseTcpKeepAlive(properties.isTcpKeepAlive());
+		cfg.setRetryPolicy(
+				PredefinedRetryPolicies.getDynamoDBDefaultRetryPolicyWithCustomMaxRetries(properties.getMaxErrorRetry()));
 		return cfg;
 	}
 
-	@Bean(name = "dynamoDBMapper")
-	public DynamoDBMapper dynamoDBMapperLocal() {
-		Regions region = Regions.US_EAST_1;
-		DynamoDBMapperConfig dbMapperConfig = new DynamoDBMapperConfig.Builder().build();
-		AmazonDynamoDBClient dynamoClient = getAmazonDynamoDBLocalClient(region);
-		return new DynamoDBMapper(dynamoClient, dbMapperConfig);
-	}
-
-	private AmazonDynamoDBClient getAmazonDynamoDBLocalClient(Regions region) {
-		return (AmazonDynamoDBClient) AmazonDynamoDBClientBuilder.standard()
+	/**
+	 * Single DynamoDB client shared by all repositories, so that connections and
+	 * resolved credentials are reused across requests.
+	 */
+	@Bean(destroyMethod = "shutdown")
+	public AmazonDynamoDB amazonDynamoDB(DynamodbProperties properties) {
+		AmazonDynamoDBClientBuilder builder = AmazonDynamoDBClientBuilder.standard()
 				// .withCredentials(WebIdentityTokenCredentialsProvider.builder().roleSessionName("ddb-query").build())
-				.withCredentials(new DefaultAWSCredentialsProviderChain()).withRegion(region).build();
+				.withCredentials(new DefaultAWSCredentialsProviderChain())
+				.withClientConfiguration(getClientConfiguration(properties));
+		if (properties.getRegion() != null) {
+			builder.withRegion(properties.getRegion());
+		}
+		return builder.build();
 	}
-}
\ No newline at end of file
+
+}
@@ -0,0 +1,299 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazonaws.saas.eks.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "com.amazonaws.saas.eks.dynamodb")
+public class DynamodbProperties {
+	private String region;
+	private boolean asyncEnabled = false;
+	private int maxConnections = 200;
+	private int connectionTimeout = 1000;
+	private int socketTimeout = 5000;
+	private int requestTimeout = 0;
+	private int clientExecutionTimeout = 0;
+	private long connectionMaxIdleMillis = 60000;
+	private long connectionTtl = 300000;
+	private boolean tcpKeepAlive = true;
+	private int maxErrorRetry = 3;
+	private int defaultPageSize = 50;
+	private int maxPageSize = 500;
+	private int maxRangeDays = 31;
+	private boolean lineItemMigrationEnabled = false;
+	private int lineItemMigrationPageSize = 25;
+	private long lineItemMigrationPageDelay = 1000;
+	private long mapperCacheMaximumSize = 1000;
+	private long mapperCacheExpireAfterAccess = 3600000;
+	private boolean hedgingEnabled = false;
+	private double hedgingPercentile = 95;
+	private double hedgingBudget = 5;
+	private long hedgingMinDelay = 5;
+	private boolean circuitBreakerEnabled = true;
+	private int circuitWindowSize = 100;
+	private int circuitMinimumCalls = 20;
+	private double circuitFailureRateThreshold = 50;
+	private int circuitThrottleThreshold = 10;
+	private long circuitOpenDuration = 5000;
+
+	public String getRegion() {
+		return region;
+	}
+
+	public void setRegion(String region) {
+		this.region = region;
+	}
+
+	public boolean isAsyncEnabled() {
+		return asyncEnabled;
+	}
+
+	public void setAsyncEnabled(boolean asyncEnabled) {
+		this.asyncEnabled = asyncEnabled;
+	}
+
+	public int getMaxConnections() {
+		return maxConnections;
+	}
+
+	public void setMaxConnections(int maxConnections) {
+		this.maxConnections = maxConnections;
+	}
+
+	public int getConnectionTimeout() {
+		return connectionTimeout;
+	}
+
+	public void setConnectionTimeout(int connectionTimeout) {
+		this.connectionTimeout = connectionTimeout;
+	}
+
+	public int getSocketTimeout() {
+		return socketTimeout;
+	}
+
+	public void setSocketTimeout(int socketTimeout) {
+		this.socketTimeout = socketTimeout;
+	}
+
+	public int getRequestTimeout() {
+		return requestTimeout;
+	}
+
+	public void setRequestTimeout(int requestTimeout) {
+		this.requestTimeout = requestTimeout;
+	}
+
+	public int getClientExecutionTimeout() {
+		return clientExecutionTimeout;
+	}
+
+	public void setClientExecutionTimeout(int clientExecutionTimeout) {
+		this.clientExecutionTimeout = clientExecutionTimeout;
+	}
+
+	public long getConnectionMaxIdleMillis() {
+		return connectionMaxIdleMillis;
+	}
+
+	public void setConnectionMaxIdleMillis(long connectionMaxIdleMillis) {
+		this.connectionMaxIdleMillis = connectionMaxIdleMillis;
+	}
+
+	public long getConnectionTtl() {
+		return connectionTtl;
+	}
+
+	public void setConnectionTtl(long connectionTtl) {
+		this.connectionTtl = connectionTtl;
+	}
+
+	public boolean isTcpKeepAlive() {
+		return tcpKeepAlive;
+	}
+
+	public void setTcpKeepAlive(boolean tcpKeepAlive) {
+		this.tcpKeepAlive = tcpKeepAlive;
+	}
+
+	public int getMaxErrorRetry() {
+		return maxErrorRetry;
+	}
+
+	public void setMaxErrorRetry(int maxErrorRetry) {
+		this.maxErrorRetry = maxErrorRetry;
+	}
+
+	public long getMapperCacheMaximumSize() {
+		return mapperCacheMaximumSize;
+	}
+
+	public void setMapperCacheMaximumSize(long mapperCacheMaximumSize) {
+		this.mapperCacheMaximumSize = mapperCacheMaximumSize;
+	}
+
+	public long getMapperCacheExpireAfterAccess() {
+		return mapperCacheExpireAfterAccess;
+	}
+
+	public void setMapperCacheExpireAfterAccess(long mapperCacheExpireAfterAccess) {
+		this.mapperCacheExpireAfterAccess = mapperCacheExpireAfterAccess;
+	}
+
+	public int getDefaultPageSize() {
+		return defaultPageSize;
+	}
+
+	public void setDefaultPageSize(int defaultPageSize) {
+		this.defaultPageSize = defaultPageSize;
+	}
+
+	public int getMaxPageSize() {
+		return maxPageSize;
+	}
+
+	public void setMaxPageSize(int maxPageSize) {
+		this.maxPageSize = maxPageSize;
+	}
+
+	public int getMaxRangeDays() {
+		return maxRangeDays;
+	}
+
+	public void setMaxRangeDays(int maxRangeDays) {
+		this.maxRangeDays = maxRangeDays;
+	}
+
+	public boolean isLineItemMigrationEnabled() {
+		return lineItemMigrationEnabled;
+	}
+
+	public void setLineItemMigrationEnabled(boolean lineItemMigrationEnabled) {
+		this.lineItemMigrationEnabled = lineItemMigrationEnabled;
+	}
+
+	public int getLineItemMigrationPageSize() {
+		return lineItemMigrationPageSize;
+	}
+
+	public void setLineItemMigrationPageSize(int lineItemMigrationPageSize) {
+		this.lineItemMigrationPageSize = lineItemMigrationPageSize;
+	}
+
+	public long getLineItemMigrationPageDelay() {
+		return lineItemMigrationPageDelay;
+	}
+
+	public void setLineItemMigrationPageDelay(long lineItemMigrationPageDelay) {
+		this.lineItemMigrationPageDelay = lineItemMigrationPageDelay;
+	}
+
+	public boolean isHedgingEnabled() {
+		return hedgingEnabled;
+	}
+
+	public void setHedgingEnabled(boolean hedgingEnabled) {
+		this.hedgingEnabled = hedgingEnabled;
+	}
+
+	public double getHedgingPercentile() {
+		return hedgingPercentile;
+	}
+
+	public void setHedgingPercentile(double hedgingPercentile) {
+		this.hedgingPercentile = hedgingPercentile;
+	}
+
+	public double getHedgingBudget() {
+		return hedgingBudget;
+	}
+
+	public void setHedgingBudget(double hedgingBudget) {
+		this.hedgingBudget = hedgingBudget;
+	}
+
+	public long getHedgingMinDelay() {
+		return hedgingMinDelay;
+	}
+
+	public void setHedgingMinDelay(long hedgingMinDelay) {
+		this.hedgingMinDelay = hedgingMinDelay;
+	}
+
+	public boolean isCircuitBreakerEnabled() {
+		return circuitBreakerEnabled;
+	}
+
+	public void setCircuitBreakerEnabled(boolean circuitBreakerEnabled) {
+		this.circuitBreakerEnabled = circuitBreakerEnabled;
+	}
+
+	public int getCircuitWindowSize() {
+		return circuitWindowSize;
+	}
+
+	public void setCircuitWindowSize(int circuitWindowSize) {
+		this.circuitWindowSize = circuitWindowSize;
+	}
+
+	public int getCircuitMinimumCalls() {
+		return circuitMinimumCalls;
+	}
+
+	public void setCircuitMinimumCalls(int circuitMinimumCalls) {
+		this.circuitMinimumCalls = circuitMinimumCalls;
+	}
+
+	public double getCircuitFailureRateThreshold() {
+		return circuitFailureRateThreshold;
+	}
+
+	public void setCircuitFailureRateThreshold(double circuitFailureRateThreshold) {
+		this.circuitFailureRateThreshold = circuitFailureRateThreshold;
+	}
+
+	public int getCircuitThrottleThreshold() {
+		return circuitThrottleThreshold;
+	}
+
+	public void setCircuitThrottleThreshold(int circuitThrottleThreshold) {
+		this.circuitThrottleThreshold = circuitThrottleThreshold;
+	}
+
+	public long getCircuitOpenDuration() {
+		return circuitOpenDuration;
+	}
+
+	public void setCircuitOpenDuration(long circuitOpenDuration) {
+		this.circuitOpenDuration = circuitOpenDuration;
+	}
+
+	/**
+	 * Method to resolve the page size for a requested limit
+	 * 
+	 * @param limit
+	 * @return int between 1 and maxPageSize
+	 */
+	public int pageSize(Integer limit) {
+		if (limit == null) {
+			return defaultPageSize;
+		}
+		return Math.max(1, Math.min(limit, maxPageSize));
+	}
+}
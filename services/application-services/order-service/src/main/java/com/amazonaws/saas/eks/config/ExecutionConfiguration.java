@@ -0,0 +1,104 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazonaws.saas.eks.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+public class ExecutionConfiguration {
+	private static final Logger logger = LogManager.getLogger(ExecutionConfiguration.class);
+
+	/**
+	 * Executor for work that a request fans out to in parallel, such as batched
+	 * DynamoDB calls. Runs on virtual threads in virtual thread mode and on a
+	 * bounded pool of platform threads otherwise.
+	 */
+	@Bean(name = "fanOutExecutor", destroyMethod = "shutdown")
+	public ExecutorService fanOutExecutor(ExecutionProperties properties) {
+		if (properties.isVirtualThreads()) {
+			return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("fan-out-", 0).factory());
+		}
+		ThreadFactory threadFactory = Thread.ofPlatform().name("fan-out-", 0).daemon(true).factory();
+		return Executors.newFixedThreadPool(properties.getFanOutThreads(), threadFactory);
+	}
+
+	/**
+	 * Executor for hedged DynamoDB reads, with at most hedgeThreads reads in
+	 * flight. Reads are handed to its threads without a queue, so when every
+	 * thread is busy the executor rejects the read instead of delaying it, and
+	 * the read runs unhedged on the request thread.
+	 */
+	@Bean(name = "hedgeExecutor", destroyMethod = "shutdown")
+	public ExecutorService hedgeExecutor(ExecutionProperties properties) {
+		ThreadFactory threadFactory = properties.isVirtualThreads()
+				? Thread.ofVirtual().name("hedge-", 0).factory()
+				: Thread.ofPlatform().name("hedge-", 0).daemon(true).factory();
+		return new ThreadPoolExecutor(0, properties.getHedgeThreads(), 60, TimeUnit.SECONDS,
+				new SynchronousQueue<Runnable>(), threadFactory);
+	}
+
+	/**
+	 * Runs every Tomcat request on its own virtual thread, so a request blocked
+	 * on DynamoDB no longer holds one of the connector's platform threads.
+	 */
+	@Bean
+	@ConditionalOnProperty(prefix = "com.amazonaws.saas.eks.execution", name = "virtual-threads", havingValue = "true")
+	public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+		logger.info("Handling requests on virtual threads");
+		return protocolHandler -> protocolHandler.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+	}
+
+	/**
+	 * Runs asynchronous request processing, such as streamed exports, on virtual
+	 * threads instead of the bounded application task executor.
+	 */
+	@Bean
+	@ConditionalOnProperty(prefix = "com.amazonaws.saas.eks.execution", name = "virtual-threads", havingValue = "true")
+	public WebMvcConfigurer virtualThreadAsyncSupportConfigurer() {
+		return new WebMvcConfigurer() {
+			@Override
+			public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+				configurer.setTaskExecutor(new TaskExecutorAdapter(Executors.newVirtualThreadPerTaskExecutor()));
+			}
+		};
+	}
+
+	@Bean(destroyMethod = "close")
+	@ConditionalOnExpression("${com.amazonaws.saas.eks.execution.virtual-threads:false} and ${com.amazonaws.saas.eks.execution.pinning-diagnostics:true}")
+	public VirtualThreadPinningMonitor virtualThreadPinningMonitor(ExecutionProperties properties,
+			MeterRegistry meterRegistry) {
+		return new VirtualThreadPinningMonitor(properties.getPinnedThreshold(), meterRegistry);
+	}
+}
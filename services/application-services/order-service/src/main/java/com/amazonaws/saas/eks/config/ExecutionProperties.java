@@ -0,0 +1,70 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazonaws.saas.eks.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "com.amazonaws.saas.eks.execution")
+public class ExecutionProperties {
+	private boolean virtualThreads = false;
+	private int fanOutThreads = 16;
+	private int hedgeThreads = 32;
+	private boolean pinningDiagnostics = true;
+	private long pinnedThreshold = 20;
+
+	public boolean isVirtualThreads() {
+		return virtualThreads;
+	}
+
+	public void setVirtualThreads(boolean virtualThreads) {
+		this.virtualThreads = virtualThreads;
+	}
+
+	public int getFanOutThreads() {
+		return fanOutThreads;
+	}
+
+	public void setFanOutThreads(int fanOutThreads) {
+		this.fanOutThreads = fanOutThreads;
+	}
+
+	public int getHedgeThreads() {
+		return hedgeThreads;
+	}
+
+	public void setHedgeThreads(int hedgeThreads) {
+		this.hedgeThreads = hedgeThreads;
+	}
+
+	public boolean isPinningDiagnostics() {
+		return pinningDiagnostics;
+	}
+
+	public void setPinningDiagnostics(boolean pinningDiagnostics) {
+		this.pinningDiagnostics = pinningDiagnostics;
+	}
+
+	public long getPinnedThreshold() {
+		return pinnedThreshold;
+	}
+
+	public void setPinnedThreshold(long pinnedThreshold) {
+		this.pinnedThreshold = pinnedThreshold;
+	}
+}
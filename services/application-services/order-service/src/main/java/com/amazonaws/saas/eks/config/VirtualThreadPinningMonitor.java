@@ -0,0 +1,89 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazonaws.saas.eks.config;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+
+/**
+ * Reports virtual threads that stay pinned to their carrier thread, typically
+ * by blocking inside a synchronized section of the DynamoDB client path. Each
+ * event is logged with its stack and counted in jvm.threads.virtual.pinned,
+ * tagged with the first application or library frame.
+ */
+public class VirtualThreadPinningMonitor implements AutoCloseable {
+	private static final Logger logger = LogManager.getLogger(VirtualThreadPinningMonitor.class);
+
+	private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+	private static final int LOGGED_FRAMES = 12;
+
+	private final RecordingStream recordingStream;
+	private final MeterRegistry meterRegistry;
+
+	public VirtualThreadPinningMonitor(long pinnedThreshold, MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+		this.recordingStream = new RecordingStream();
+		this.recordingStream.enable(PINNED_EVENT).withThreshold(Duration.ofMillis(pinnedThreshold)).withStackTrace();
+		this.recordingStream.onEvent(PINNED_EVENT, this::onPinned);
+		this.recordingStream.startAsync();
+		logger.info("Reporting virtual threads pinned for more than " + pinnedThreshold + "ms");
+	}
+
+	private void onPinned(RecordedEvent event) {
+		RecordedStackTrace stackTrace = event.getStackTrace();
+		List<RecordedFrame> frames = stackTrace == null ? List.of() : stackTrace.getFrames();
+
+		meterRegistry.counter("jvm.threads.virtual.pinned", "frame", firstLibraryFrame(frames)).increment();
+
+		if (logger.isWarnEnabled()) {
+			String stack = frames.stream()
+					.limit(LOGGED_FRAMES)
+					.map(VirtualThreadPinningMonitor::format)
+					.collect(Collectors.joining("\n\tat ", "\n\tat ", ""));
+			logger.warn("Virtual thread pinned for " + event.getDuration().toMillis() + "ms" + stack);
+		}
+	}
+
+	private static String firstLibraryFrame(List<RecordedFrame> frames) {
+		for (RecordedFrame frame : frames) {
+			String type = frame.getMethod().getType().getName();
+			if (!type.startsWith("java.") && !type.startsWith("jdk.") && !type.startsWith("sun.")) {
+				return type + "." + frame.getMethod().getName();
+			}
+		}
+		return "unknown";
+	}
+
+	private static String format(RecordedFrame frame) {
+		return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+	}
+
+	@Override
+	public void close() {
+		recordingStream.close();
+	}
+}
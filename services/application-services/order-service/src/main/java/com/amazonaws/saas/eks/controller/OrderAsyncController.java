@@ -0,0 +1,157 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazonaws.saas.eks.controller;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.amazonaws.saas.eks.auth.TokenManager;
+import com.amazonaws.saas.eks.model.Order;
+import com.amazonaws.saas.eks.model.PagedResult;
+import com.amazonaws.saas.eks.service.OrderAsyncService;
+
+/**
+ * Non-blocking variant of {@link OrderController}, serving the same endpoints
+ * when com.amazonaws.saas.eks.dynamodb.async-enabled is set. The servlet thread
+ * is released while DynamoDB is called and the response is written when the
+ * returned future completes.
+ */
+@CrossOrigin(origins = "*", allowedHeaders = "*")
+@RestController
+@ConditionalOnProperty(prefix = "com.amazonaws.saas.eks.dynamodb", name = "async-enabled", havingValue = "true")
+public class OrderAsyncController {
+
+	@Autowired
+	private OrderAsyncService orderAsyncService;
+
+	@Autowired
+	private TokenManager tokenManager;
+
+	@Autowired
+	private ReadConsistency readConsistency;
+
+	/**
+	 * Method to retrieve one page of orders for a tenant. With from or to, only
+	 * the orders created in that range are returned, newest first. The token for
+	 * the next page, if any, is returned in the X-Next-Token header.
+	 * 
+	 * @param limit
+	 * @param nextToken
+	 * @param fields
+	 * @param from
+	 * @param to
+	 * @param request
+	 * @param response
+	 * @return CompletableFuture<List<Order>>
+	 */
+	@GetMapping(value = "{companyName}/orders", produces = { MediaType.APPLICATION_JSON_VALUE,
+			MediaType.APPLICATION_CBOR_VALUE, ContentTypes.APPLICATION_SMILE_VALUE })
+	public CompletableFuture<List<Order>> getOrders(@RequestParam(value = "limit", required = false) Integer limit,
+			@RequestParam(value = "nextToken", required = false) String nextToken,
+			@RequestParam(value = "fields", required = false) String fields,
+			@RequestParam(value = "from", required = false) String from,
+			@RequestParam(value = "to", required = false) String to, HttpServletRequest request,
+			HttpServletResponse response) {
+		String tenantId = tokenManager.getTenantId(request);
+
+		if (tenantId != null && !tenantId.isEmpty()) {
+			CompletableFuture<PagedResult<Order>> orders = from == null && to == null
+					? orderAsyncService.getOrders(tenantId, limit, nextToken, fields)
+					: orderAsyncService.getOrders(tenantId, OrderController.instant("from", from),
+							OrderController.instant("to", to), limit, nextToken, fields);
+			return orders.thenApply(page -> {
+				if (page == null) {
+					return null;
+				}
+				if (page.getNextToken() != null) {
+					response.setHeader(PagedResult.NEXT_TOKEN_HEADER, page.getNextToken());
+				}
+				return page.getItems();
+			});
+		}
+
+		return CompletableFuture.completedFuture(null);
+	}
+
+	/**
+	 * Method to get Order by id for a tenant
+	 * 
+	 * @param orderId
+	 * @param fields
+	 * @param request
+	 * @return CompletableFuture<Order>
+	 */
+	@GetMapping(value = "{companyName}/orders/{orderId}", produces = { MediaType.APPLICATION_JSON_VALUE,
+			MediaType.APPLICATION_CBOR_VALUE, ContentTypes.APPLICATION_SMILE_VALUE })
+	public CompletableFuture<Order> getOrderById(@PathVariable("orderId") String orderId,
+			@RequestParam(value = "fields", required = false) String fields, HttpServletRequest request) {
+		String tenantId = tokenManager.getTenantId(request);
+
+		if (tenantId != null && !tenantId.isEmpty()) {
+			return orderAsyncService.getOrderById(orderId, tenantId, fields,
+					readConsistency.isConsistent(request, tenantId, orderId));
+		}
+
+		return CompletableFuture.completedFuture(null);
+	}
+
+	/**
+	 * Method to save an order for a tenant. The X-Consistency-Token header of the
+	 * response lets the next reads of the order see it.
+	 * 
+	 * @param order
+	 * @param request
+	 * @param response
+	 * @return CompletableFuture<Order>
+	 */
+	@PostMapping(value = "{companyName}/orders", produces = { MediaType.APPLICATION_JSON_VALUE,
+			MediaType.APPLICATION_CBOR_VALUE, ContentTypes.APPLICATION_SMILE_VALUE })
+	public CompletableFuture<Order> saveOrder(@RequestBody Order order, HttpServletRequest request,
+			HttpServletResponse response) {
+		String tenantId = tokenManager.getTenantId(request);
+
+		if (tenantId != null && !tenantId.isEmpty()) {
+			return orderAsyncService.save(order, tenantId).thenApply(savedOrder -> {
+				readConsistency.written(request, response, tenantId, savedOrder.getId());
+				return savedOrder;
+			});
+		}
+
+		return CompletableFuture.completedFuture(null);
+	}
+
+	@RequestMapping("{companyName}/orders/health")
+	public String health() {
+		return "\"Order service is up!\"";
+	}
+
+}
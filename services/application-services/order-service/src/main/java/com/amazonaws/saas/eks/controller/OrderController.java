@@ -16,13 +16,17 @@
  */
 package com.amazonaws.saas.eks.controller;
 
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -30,14 +34,22 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.amazonaws.saas.eks.auth.TokenManager;
+import com.amazonaws.saas.eks.exception.InvalidFieldsException;
+import com.amazonaws.saas.eks.exception.InvalidPageTokenException;
+import com.amazonaws.saas.eks.exception.InvalidRangeException;
+import com.amazonaws.saas.eks.exception.ItemNotFoundException;
+import com.amazonaws.saas.eks.exception.ServiceUnavailableException;
 import com.amazonaws.saas.eks.model.Order;
+import com.amazonaws.saas.eks.model.PagedResult;
 import com.amazonaws.saas.eks.service.OrderService;
 
 @CrossOrigin(origins = "*", allowedHeaders = "*")
 @RestController
+@ConditionalOnProperty(prefix = "com.amazonaws.saas.eks.dynamodb", name = "async-enabled", havingValue = "false", matchIfMissing = true)
 public class OrderController {
 	private static final Logger logger = LogManager.getLogger(OrderController.class);
 
@@ -47,14 +59,31 @@ public class OrderController {
 	@Autowired
 	private TokenManager tokenManager;
 
+	@Autowired
+	private ReadConsistency readConsistency;
+
 	/**
-	 * Method to retrieve all orders for a tenant
+	 * Method to retrieve one page of orders for a tenant. With from or to, only
+	 * the orders created in that range are returned, newest first. The token for
+	 * the next page, if any, is returned in the X-Next-Token header.
 	 * 
+	 * @param limit
+	 * @param nextToken
+	 * @param fields
+	 * @param from
+	 * @param to
 	 * @param request
+	 * @param response
 	 * @return List<Order>
 	 */
-	@GetMapping(value = "{companyName}/orders", produces = { MediaType.APPLICATION_JSON_VALUE })
-	public List<Order> getOrders(HttpServletRequest request) {
+	@GetMapping(value = "{companyName}/orders", produces = { MediaType.APPLICATION_JSON_VALUE,
+			MediaType.APPLICATION_CBOR_VALUE, ContentTypes.APPLICATION_SMILE_VALUE })
+	public List<Order> getOrders(@RequestParam(value = "limit", required = false) Integer limit,
+			@RequestParam(value = "nextToken", required = false) String nextToken,
+			@RequestParam(value = "fields", required = false) String fields,
+			@RequestParam(value = "from", required = false) String from,
+			@RequestParam(value = "to", required = false) String to, HttpServletRequest request,
+			HttpServletResponse response) {
 		logger.info("Return orders");
 		String tenantId = null;
 		List<Order> orders = null;
@@ -63,9 +92,21 @@ public class OrderController {
 			tenantId = tokenManager.getTenantId(request);
 			
 			if (tenantId != null && !tenantId.isEmpty()) {
-				orders =  orderService.getOrders(tenantId);
+				PagedResult<Order> page = from == null && to == null
+						? orderService.getOrders(tenantId, limit, nextToken, fields)
+						: orderService.getOrders(tenantId, instant("from", from), instant("to", to), limit, nextToken,
+								fields);
+				if (page != null) {
+					if (page.getNextToken() != null) {
+						response.setHeader(PagedResult.NEXT_TOKEN_HEADER, page.getNextToken());
+					}
+					orders = page.getItems();
+				}
 				return orders;
 			}
+		} catch (InvalidPageTokenException | InvalidFieldsException | InvalidRangeException
+				| ServiceUnavailableException e) {
+			throw e;
 		} catch (Exception e) {
 			logger.error("TenantId: " + tenantId + "-get orders failed: ", e);
 			return null;
@@ -74,15 +115,36 @@ public class OrderController {
 		return orders;
 	}
 
+	/**
+	 * Method to parse an ISO-8601 instant such as 2024-05-01T00:00:00Z
+	 * 
+	 * @param name
+	 * @param value
+	 * @return Instant, or null when no value was given
+	 */
+	static Instant instant(String name, String value) {
+		if (value == null || value.isEmpty()) {
+			return null;
+		}
+		try {
+			return Instant.parse(value);
+		} catch (DateTimeParseException e) {
+			throw new InvalidRangeException(name + " must be an ISO-8601 instant such as 2024-05-01T00:00:00Z");
+		}
+	}
+
 	/**
 	 * Method to get Order by id for a tenant
 	 * 
 	 * @param orderId
+	 * @param fields
 	 * @param request
 	 * @return Order
 	 */
-	@GetMapping(value = "{companyName}/orders/{orderId}", produces = { MediaType.APPLICATION_JSON_VALUE })
-	public Order getOrderById(@PathVariable("orderId") String orderId, HttpServletRequest request) {
+	@GetMapping(value = "{companyName}/orders/{orderId}", produces = { MediaType.APPLICATION_JSON_VALUE,
+			MediaType.APPLICATION_CBOR_VALUE, ContentTypes.APPLICATION_SMILE_VALUE })
+	public Order getOrderById(@PathVariable("orderId") String orderId,
+			@RequestParam(value = "fields", required = false) String fields, HttpServletRequest request) {
 		String tenantId = null;
 		Order order = null;
 		
@@ -90,9 +152,12 @@ public class OrderController {
 			tenantId = tokenManager.getTenantId(request);
 			
 			if (tenantId != null && !tenantId.isEmpty()) {
-				order = orderService.getOrderById(orderId, tenantId);
+				order = orderService.getOrderById(orderId, tenantId, fields,
+						readConsistency.isConsistent(request, tenantId, orderId));
 				return order;
 			}
+		} catch (InvalidFieldsException | ItemNotFoundException | ServiceUnavailableException e) {
+			throw e;
 		} catch (Exception e) {
 			logger.error("TenantId: " + tenantId + "-get order by ID failed: ", e);
 			return null;
@@ -102,14 +167,17 @@ public class OrderController {
 	}
 
 	/**
-	 * Method to save an order for a tenant
+	 * Method to save an order for a tenant. The X-Consistency-Token header of the
+	 * response lets the next reads of the order see it.
 	 * 
 	 * @param order
 	 * @param request
+	 * @param response
 	 * @return Order
 	 */
-	@PostMapping(value = "{companyName}/orders", produces = { MediaType.APPLICATION_JSON_VALUE })
-	public Order saveOrder(@RequestBody Order order, HttpServletRequest request) {
+	@PostMapping(value = "{companyName}/orders", produces = { MediaType.APPLICATION_JSON_VALUE,
+			MediaType.APPLICATION_CBOR_VALUE, ContentTypes.APPLICATION_SMILE_VALUE })
+	public Order saveOrder(@RequestBody Order order, HttpServletRequest request, HttpServletResponse response) {
 		String tenantId = null;
 		Order newOrder = null;
 		
@@ -117,8 +185,11 @@ public class OrderController {
 			tenantId = tokenManager.getTenantId(request);
 			if (tenantId != null && !tenantId.isEmpty()) {
 				newOrder = orderService.save(order, tenantId);
+				readConsistency.written(request, response, tenantId, newOrder.getId());
 				return newOrder;
 			}
+		} catch (ServiceUnavailableException e) {
+			throw e;
 		} catch (Exception e) {
 			logger.error("TenantId: " + tenantId + "-save order failed: ", e);
 			return null;
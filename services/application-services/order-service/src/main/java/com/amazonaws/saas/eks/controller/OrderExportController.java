@@ -0,0 +1,98 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazonaws.saas.eks.controller;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.amazonaws.saas.eks.auth.TokenManager;
+import com.amazonaws.saas.eks.model.Order;
+import com.amazonaws.saas.eks.service.OrderService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+@CrossOrigin(origins = "*", allowedHeaders = "*")
+@RestController
+public class OrderExportController {
+	private static final Logger logger = LogManager.getLogger(OrderExportController.class);
+
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private TokenManager tokenManager;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	/**
+	 * Method to stream all orders of a tenant as newline delimited JSON. Each
+	 * page is written and flushed as soon as it is read from DynamoDB, so memory
+	 * use does not grow with the number of orders.
+	 * 
+	 * @param request
+	 * @return StreamingResponseBody
+	 */
+	@GetMapping(value = "{companyName}/orders/export", produces = { MediaType.APPLICATION_NDJSON_VALUE })
+	public StreamingResponseBody exportOrders(HttpServletRequest request) {
+		String tenantId = tokenManager.getTenantId(request);
+
+		if (tenantId == null || tenantId.isEmpty()) {
+			logger.error("TenantId: " + tenantId + "-Invalid tenant. Export unsuccessful");
+			return outputStream -> {
+			};
+		}
+
+		ObjectWriter writer = objectMapper.writerFor(Order.class);
+		return outputStream -> {
+			try {
+				orderService.exportOrders(tenantId, page -> writePage(writer, page, outputStream));
+			} catch (RuntimeException e) {
+				// the response is already committed, so the connection is aborted
+				// instead and the client sees an incomplete download
+				logger.error("TenantId: " + tenantId + "-export orders failed: ", e);
+				throw e;
+			}
+		};
+	}
+
+	private static void writePage(ObjectWriter writer, List<Order> page, OutputStream outputStream) {
+		try {
+			for (Order order : page) {
+				outputStream.write(writer.writeValueAsBytes(order));
+				outputStream.write('\n');
+			}
+			outputStream.flush();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+}
@@ -16,6 +16,10 @@
  */
 package com.amazonaws.saas.eks.exception;
 
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.NOT_FOUND)
 public class ItemNotFoundException extends RuntimeException {
 
 	private static final long serialVersionUID = -237149016976047703L;
@@ -20,19 +20,26 @@ import java.util.ArrayList;
 import java.util.List;
 
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBAttribute;
-import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBAutoGeneratedKey;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBHashKey;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBIndexHashKey;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBIndexRangeKey;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBTable;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBTypeConverted;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 
 @DynamoDBTable(tableName = "Order")
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class Order {
+	public static final String CREATED_AT_INDEX = "CreatedAtIndex";
+
 	private String id;
 	private String name;
+	private String createdAt;
+	private String createdDate;
 	private List<OrderProduct> orderProduct = new ArrayList<OrderProduct>();
 
 	@DynamoDBHashKey(attributeName = "OrderId")
-	@DynamoDBAutoGeneratedKey
 	public String getId() {
 		return id;
 	}
@@ -50,6 +57,29 @@ public class Order {
 		this.name = name;
 	}
 
+	@DynamoDBIndexRangeKey(globalSecondaryIndexName = CREATED_AT_INDEX, attributeName = "CreatedAt")
+	public String getCreatedAt() {
+		return createdAt;
+	}
+
+	public void setCreatedAt(String createdAt) {
+		this.createdAt = createdAt;
+	}
+
+	/**
+	 * Day of createdAt, which partitions the CreatedAtIndex
+	 */
+	@JsonIgnore
+	@DynamoDBIndexHashKey(globalSecondaryIndexName = CREATED_AT_INDEX, attributeName = "CreatedDate")
+	public String getCreatedDate() {
+		return createdDate;
+	}
+
+	@JsonIgnore
+	public void setCreatedDate(String createdDate) {
+		this.createdDate = createdDate;
+	}
+
 	@DynamoDBAttribute(attributeName = "OrderProduct")
 	@DynamoDBTypeConverted(converter = OrderProductConverter.class)
 	public List<OrderProduct> getOrderProduct() {
@@ -62,7 +92,8 @@ public class Order {
 
 	@Override
 	public String toString() {
-		return "Order [id=" + id + ", name=" + name + ", orderProduct=" + orderProduct + "]";
+		return "Order [id=" + id + ", name=" + name + ", createdAt=" + createdAt + ", orderProduct=" + orderProduct
+				+ "]";
 	}
 
 }
\ No newline at end of file
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazonaws.saas.eks.model;
+
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.enhanced.dynamodb.AttributeConverter;
+import software.amazon.awssdk.enhanced.dynamodb.AttributeValueType;
+import software.amazon.awssdk.enhanced.dynamodb.EnhancedType;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+/**
+ * AWS SDK v2 counterpart of {@link OrderProductConverter}, storing line items
+ * in the same attribute format and following its choice of write format.
+ */
+public class OrderProductAttributeConverter implements AttributeConverter<List<OrderProduct>> {
+	private static final Logger logger = LogManager.getLogger(OrderProductAttributeConverter.class);
+
+	@Override
+	public AttributeValue transformFrom(List<OrderProduct> input) {
+		if (!OrderProductConverter.isBinaryWrites()) {
+			return AttributeValue.builder().s(OrderProductCodec.encodeJson(input)).build();
+		}
+		return AttributeValue.builder().b(SdkBytes.fromByteArrayUnsafe(OrderProductCodec.encode(input))).build();
+	}
+
+	@Override
+	public List<OrderProduct> transformTo(AttributeValue input) {
+		try {
+			if (input.s() != null) {
+				return OrderProductCodec.decodeJson(input.s());
+			}
+			if (input.b() != null) {
+				return OrderProductCodec.decode(input.b().asByteArrayUnsafe());
+			}
+		} catch (RuntimeException e) {
+			logger.error("Unable to read the OrderProduct attribute", e);
+			throw new IllegalStateException("Unable to read the OrderProduct attribute", e);
+		}
+		throw new IllegalStateException("OrderProduct is neither a string nor a binary attribute");
+	}
+
+	@Override
+	public EnhancedType<List<OrderProduct>> type() {
+		return EnhancedType.listOf(OrderProduct.class);
+	}
+
+	@Override
+	public AttributeValueType attributeValueType() {
+		return OrderProductConverter.isBinaryWrites() ? AttributeValueType.B : AttributeValueType.S;
+	}
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazonaws.saas.eks.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * Compact binary encoding of an order's line items, stored in a binary
+ * attribute. Two header bytes hold the format version and flags, followed by
+ * the item count and, for every item, a byte marking which fields are set and
+ * the values of these fields. Encodings longer than COMPRESSION_THRESHOLD
+ * bytes are deflated when that makes them smaller.
+ * 
+ * Line items written before were stored as a JSON string, which
+ * {@link #decodeJson(String)} still reads.
+ */
+public final class OrderProductCodec {
+	public static final int VERSION = 1;
+	static final int COMPRESSION_THRESHOLD = 256;
+
+	private static final int FLAG_DEFLATED = 1;
+	private static final int HAS_PRODUCT_ID = 1;
+	private static final int HAS_PRICE = 2;
+	private static final int HAS_QUANTITY = 4;
+	private static final int MAX_ITEMS = 100000;
+
+	private static final ObjectReader jsonReader = new ObjectMapper()
+			.readerFor(new TypeReference<List<OrderProduct>>() {
+			});
+	private static final ObjectWriter jsonWriter = new ObjectMapper()
+			.writerFor(new TypeReference<List<OrderProduct>>() {
+			});
+
+	private OrderProductCodec() {
+	}
+
+	/**
+	 * Method to encode line items
+	 * 
+	 * @param orderProducts
+	 * @return byte[]
+	 */
+	public static byte[] encode(List<OrderProduct> orderProducts) {
+		ByteArrayOutputStream body = new ByteArrayOutputStream(16 + orderProducts.size() * 48);
+		try {
+			DataOutputStream out = new DataOutputStream(body);
+			writeVarInt(out, orderProducts.size());
+			for (OrderProduct orderProduct : orderProducts) {
+				writeItem(out, orderProduct);
+			}
+			out.flush();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		byte[] encoded = body.toByteArray();
+		int flags = 0;
+		if (encoded.length > COMPRESSION_THRESHOLD) {
+			byte[] deflated = deflate(encoded);
+			if (deflated.length < encoded.length) {
+				encoded = deflated;
+				flags |= FLAG_DEFLATED;
+			}
+		}
+
+		byte[] result = new byte[encoded.length + 2];
+		result[0] = (byte) VERSION;
+		result[1] = (byte) flags;
+		System.arraycopy(encoded, 0, result, 2, encoded.length);
+		return result;
+	}
+
+	/**
+	 * Method to decode line items written by {@link #encode(List)}
+	 * 
+	 * @param bytes
+	 * @return List<OrderProduct>
+	 * @throws IllegalArgumentException if the bytes are not in a known format
+	 */
+	public static List<OrderProduct> decode(byte[] bytes) {
+		if (bytes.length < 2 || bytes[0] != VERSION) {
+			throw new IllegalArgumentException("Unknown line item encoding");
+		}
+
+		InputStream body = new ByteArrayInputStream(bytes, 2, bytes.length - 2);
+		if ((bytes[1] & FLAG_DEFLATED) != 0) {
+			body = new InflaterInputStream(body);
+		}
+		try (DataInputStream in = new DataInputStream(body)) {
+			int count = readVarInt(in);
+			if (count < 0 || count > MAX_ITEMS) {
+				throw new IllegalArgumentException("Invalid line item count " + count);
+			}
+			List<OrderProduct> orderProducts = new ArrayList<>(count);
+			for (int i = 0; i < count; i++) {
+				orderProducts.add(readItem(in));
+			}
+			return orderProducts;
+		} catch (IOException e) {
+			throw new IllegalArgumentException("Truncated line item encoding", e);
+		}
+	}
+
+	/**
+	 * Method to encode line items as the JSON string earlier versions read and
+	 * write
+	 * 
+	 * @param orderProducts
+	 * @return String
+	 */
+	public static String encodeJson(List<OrderProduct> orderProducts) {
+		try {
+			return jsonWriter.writeValueAsString(orderProducts);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Method to decode line items stored as a JSON string
+	 * 
+	 * @param json
+	 * @return List<OrderProduct>
+	 * @throws UncheckedIOException if the string is not valid JSON
+	 */
+	public static List<OrderProduct> decodeJson(String json) {
+		try {
+			return jsonReader.readValue(json);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static void writeItem(DataOutputStream out, OrderProduct orderProduct) throws IOException {
+		int fields = (orderProduct.getProductId() != null ? HAS_PRODUCT_ID : 0)
+				| (orderProduct.getPrice() != null ? HAS_PRICE : 0)
+				| (orderProduct.getQuantity() != null ? HAS_QUANTITY : 0);
+		out.writeByte(fields);
+		if (orderProduct.getProductId() != null) {
+			byte[] productId = orderProduct.getProductId().getBytes(StandardCharsets.UTF_8);
+			writeVarInt(out, productId.length);
+			out.write(productId);
+		}
+		if (orderProduct.getPrice() != null) {
+			out.writeDouble(orderProduct.getPrice());
+		}
+		if (orderProduct.getQuantity() != null) {
+			int quantity = orderProduct.getQuantity();
+			writeVarInt(out, (quantity << 1) ^ (quantity >> 31));
+		}
+	}
+
+	private static OrderProduct readItem(DataInputStream in) throws IOException {
+		int fields = in.readUnsignedByte();
+		OrderProduct orderProduct = new OrderProduct();
+		if ((fields & HAS_PRODUCT_ID) != 0) {
+			int length = readVarInt(in);
+			if (length < 0 || length > 0xFFFF) {
+				throw new IllegalArgumentException("Invalid product id length " + length);
+			}
+			byte[] productId = new byte[length];
+			in.readFully(productId);
+			orderProduct.setProductId(new String(productId, StandardCharsets.UTF_8));
+		}
+		if ((fields & HAS_PRICE) != 0) {
+			orderProduct.setPrice(in.readDouble());
+		}
+		if ((fields & HAS_QUANTITY) != 0) {
+			int quantity = readVarInt(in);
+			orderProduct.setQuantity((quantity >>> 1) ^ -(quantity & 1));
+		}
+		return orderProduct;
+	}
+
+	private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+		while ((value & ~0x7F) != 0) {
+			out.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+
+	private static int readVarInt(DataInputStream in) throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			int b = in.readUnsignedByte();
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IllegalArgumentException("Malformed line item encoding");
+	}
+
+	private static byte[] deflate(byte[] bytes) {
+		ByteArrayOutputStream deflated = new ByteArrayOutputStream(bytes.length);
+		Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+		try (DeflaterOutputStream out = new DeflaterOutputStream(deflated, deflater)) {
+			out.write(bytes);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			deflater.end();
+		}
+		return deflated.toByteArray();
+	}
+}
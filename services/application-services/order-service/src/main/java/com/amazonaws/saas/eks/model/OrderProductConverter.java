@@ -16,41 +16,72 @@
  */
 package com.amazonaws.saas.eks.model;
 
-import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.List;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMappingException;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBTypeConverter;
-import com.fasterxml.jackson.core.JsonParseException;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.JsonMappingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+
+/**
+ * Reads line items stored either as a JSON string or as a binary attribute
+ * encoded by {@link OrderProductCodec}. An attribute that cannot be decoded
+ * fails the read rather than dropping the line items.
+ * 
+ * Line items are written as JSON, which earlier versions can read, until
+ * binary writes are switched on together with the line item migration, once
+ * every replica runs a version that reads both.
+ */
+public class OrderProductConverter implements DynamoDBTypeConverter<AttributeValue, List<OrderProduct>> {
+	private static final Logger logger = LogManager.getLogger(OrderProductConverter.class);
+
+	private static volatile boolean binaryWrites = false;
+
+	/**
+	 * Method to choose whether line items are written in the binary encoding or
+	 * as JSON
+	 * 
+	 * @param binaryWrites
+	 */
+	public static void setBinaryWrites(boolean binaryWrites) {
+		OrderProductConverter.binaryWrites = binaryWrites;
+	}
 
-public class OrderProductConverter implements DynamoDBTypeConverter<String, List<OrderProduct>> {
+	public static boolean isBinaryWrites() {
+		return binaryWrites;
+	}
 
 	@Override
-	public String convert(List<OrderProduct> objects) {
-		ObjectMapper objectMapper = new ObjectMapper();
-		try {
-			String objectsString = objectMapper.writeValueAsString(objects);
-			return objectsString;
-		} catch (JsonProcessingException e) {
+	public AttributeValue convert(List<OrderProduct> objects) {
+		if (!binaryWrites) {
+			return new AttributeValue().withS(OrderProductCodec.encodeJson(objects));
 		}
-		return null;
+		return new AttributeValue().withB(ByteBuffer.wrap(OrderProductCodec.encode(objects)));
 	}
 
 	@Override
-	public List<OrderProduct> unconvert(String objectssString) {
-		ObjectMapper objectMapper = new ObjectMapper();
+	public List<OrderProduct> unconvert(AttributeValue attributeValue) {
 		try {
-			List<OrderProduct> objects = objectMapper.readValue(objectssString,
-					new TypeReference<List<OrderProduct>>() {
-					});
-			return objects;
-		} catch (JsonParseException e) {
-		} catch (JsonMappingException e) {
-		} catch (IOException e) {
+			if (attributeValue.getS() != null) {
+				return OrderProductCodec.decodeJson(attributeValue.getS());
+			}
+			if (attributeValue.getB() != null) {
+				return OrderProductCodec.decode(bytes(attributeValue.getB()));
+			}
+		} catch (RuntimeException e) {
+			logger.error("Unable to read the OrderProduct attribute", e);
+			throw new DynamoDBMappingException("Unable to read the OrderProduct attribute", e);
 		}
-		return null;
+		throw new DynamoDBMappingException("OrderProduct is neither a string nor a binary attribute");
+	}
+
+	private static byte[] bytes(ByteBuffer buffer) {
+		ByteBuffer source = buffer.duplicate();
+		byte[] bytes = new byte[source.remaining()];
+		source.get(bytes);
+		return bytes;
 	}
 }
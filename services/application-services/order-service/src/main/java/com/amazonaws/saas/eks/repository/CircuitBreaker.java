@@ -0,0 +1,201 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazonaws.saas.eks.repository;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.saas.eks.config.DynamodbProperties;
+import com.amazonaws.saas.eks.exception.ServiceUnavailableException;
+import com.amazonaws.retry.RetryUtils;
+
+/**
+ * Circuit breaker for the calls to one DynamoDB table. The outcomes of the last
+ * circuitWindowSize calls are kept; the circuit opens when at least
+ * circuitMinimumCalls of them failed at circuitFailureRateThreshold percent or
+ * more, or when circuitThrottleThreshold of them were throttled. While open,
+ * calls are rejected with a ServiceUnavailableException without reaching
+ * DynamoDB. After circuitOpenDuration milliseconds a single probe call is let
+ * through, and its outcome closes or reopens the circuit.
+ * 
+ * Errors DynamoDB reports as the caller's fault, other than throttling, say
+ * nothing about the table's health and are not counted.
+ */
+public class CircuitBreaker {
+	private static final Logger logger = LogManager.getLogger(CircuitBreaker.class);
+
+	private enum State {
+		CLOSED, OPEN, HALF_OPEN
+	}
+
+	private enum Outcome {
+		SUCCESS, FAILURE, THROTTLED
+	}
+
+	private final String name;
+	private final boolean enabled;
+	private final int minimumCalls;
+	private final double failureRateThreshold;
+	private final int throttleThreshold;
+	private final long openDurationNanos;
+
+	private final Outcome[] outcomes;
+	private int next;
+	private int calls;
+	private int failures;
+	private int throttles;
+	private State state = State.CLOSED;
+	private long openedAt;
+	private boolean probing;
+
+	public CircuitBreaker(String name, DynamodbProperties properties) {
+		this.name = name;
+		this.enabled = properties.isCircuitBreakerEnabled();
+		this.minimumCalls = properties.getCircuitMinimumCalls();
+		this.failureRateThreshold = properties.getCircuitFailureRateThreshold();
+		this.throttleThreshold = properties.getCircuitThrottleThreshold();
+		this.openDurationNanos = TimeUnit.MILLISECONDS.toNanos(properties.getCircuitOpenDuration());
+		this.outcomes = new Outcome[Math.max(1, properties.getCircuitWindowSize())];
+	}
+
+	/**
+	 * Method to make a call through the circuit
+	 * 
+	 * @param call
+	 * @return T the result of the call
+	 * @throws ServiceUnavailableException if the circuit is open
+	 */
+	public <T> T execute(Supplier<T> call) {
+		if (!enabled) {
+			return call.get();
+		}
+		boolean probe = acquire();
+
+		try {
+			T value = call.get();
+			record(Outcome.SUCCESS, probe);
+			return value;
+		} catch (RuntimeException e) {
+			record(classify(e), probe);
+			throw e;
+		} catch (Error e) {
+			record(Outcome.FAILURE, probe);
+			throw e;
+		}
+	}
+
+	/**
+	 * Lets a call through, or throws if the circuit is open
+	 * 
+	 * @return boolean, true if the call is the half-open circuit's probe
+	 */
+	private synchronized boolean acquire() {
+		if (state == State.CLOSED) {
+			return false;
+		}
+		long elapsed = System.nanoTime() - openedAt;
+		if (state == State.OPEN && elapsed >= openDurationNanos) {
+			state = State.HALF_OPEN;
+		}
+		if (state == State.HALF_OPEN && !probing) {
+			probing = true;
+			return true;
+		}
+		long retryAfter = TimeUnit.NANOSECONDS.toSeconds(Math.max(0, openDurationNanos - elapsed)) + 1;
+		throw new ServiceUnavailableException("DynamoDB table " + name + " is unavailable", retryAfter);
+	}
+
+	private synchronized void record(Outcome outcome, boolean probe) {
+		if (state == State.HALF_OPEN) {
+			// calls let through before the circuit opened say nothing about the probe
+			if (!probe) {
+				return;
+			}
+			probing = false;
+			if (outcome == Outcome.SUCCESS) {
+				logger.info("Circuit for table " + name + " closed");
+				state = State.CLOSED;
+				reset();
+			} else {
+				open();
+			}
+			return;
+		}
+		if (state == State.OPEN) {
+			return;
+		}
+
+		if (calls == outcomes.length) {
+			forget(outcomes[next]);
+		} else {
+			calls++;
+		}
+		outcomes[next] = outcome;
+		next = (next + 1) % outcomes.length;
+		if (outcome == Outcome.THROTTLED) {
+			throttles++;
+		} else if (outcome == Outcome.FAILURE) {
+			failures++;
+		}
+
+		boolean tooManyFailures = calls >= minimumCalls
+				&& (failures + throttles) * 100.0 / calls >= failureRateThreshold;
+		if (tooManyFailures || throttles >= throttleThreshold) {
+			open();
+		}
+	}
+
+	private void open() {
+		logger.warn("Circuit for table " + name + " opened after " + failures + " failed and " + throttles
+				+ " throttled of the last " + calls + " calls");
+		state = State.OPEN;
+		openedAt = System.nanoTime();
+		reset();
+	}
+
+	private void forget(Outcome outcome) {
+		if (outcome == Outcome.THROTTLED) {
+			throttles--;
+		} else if (outcome == Outcome.FAILURE) {
+			failures--;
+		}
+	}
+
+	private void reset() {
+		next = 0;
+		calls = 0;
+		failures = 0;
+		throttles = 0;
+	}
+
+	private static Outcome classify(RuntimeException e) {
+		if (e instanceof AmazonServiceException) {
+			AmazonServiceException serviceException = (AmazonServiceException) e;
+			if (RetryUtils.isThrottlingException(serviceException)) {
+				return Outcome.THROTTLED;
+			}
+			if (serviceException.getErrorType() == AmazonServiceException.ErrorType.Client) {
+				return Outcome.SUCCESS;
+			}
+		}
+		return Outcome.FAILURE;
+	}
+}
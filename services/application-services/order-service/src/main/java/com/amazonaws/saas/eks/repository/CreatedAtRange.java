@@ -0,0 +1,164 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazonaws.saas.eks.repository;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.amazonaws.saas.eks.exception.InvalidPageTokenException;
+import com.amazonaws.saas.eks.model.Order;
+
+/**
+ * Range of creation times covered by an order listing. The CreatedAtIndex is
+ * partitioned by the day an order was created on, so a range is read one day
+ * at a time, from its last day back to its first, newest orders first.
+ */
+final class CreatedAtRange {
+	/**
+	 * Attributes of a key of the CreatedAtIndex, which page tokens are made of
+	 */
+	static final String[] KEY_ATTRIBUTES = { "OrderId", "CreatedDate", "CreatedAt" };
+
+	private static final DateTimeFormatter CREATED_AT = DateTimeFormatter
+			.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'").withZone(ZoneOffset.UTC);
+
+	private final String tenantId;
+	private final String from;
+	private final String to;
+	private final LocalDate firstDay;
+	private LocalDate day;
+	private Map<String, String> startKey;
+
+	private CreatedAtRange(String tenantId, Instant from, Instant to) {
+		this.tenantId = tenantId;
+		this.from = CREATED_AT.format(from);
+		this.to = CREATED_AT.format(to);
+		this.firstDay = createdDate(from);
+		this.day = createdDate(to);
+	}
+
+	/**
+	 * Method to create the range, continuing from the page token if one is given
+	 * 
+	 * @param tenantId
+	 * @param from
+	 * @param to
+	 * @param nextToken
+	 * @return CreatedAtRange
+	 */
+	static CreatedAtRange of(String tenantId, Instant from, Instant to, String nextToken) {
+		CreatedAtRange range = new CreatedAtRange(tenantId, from, to);
+		Map<String, String> key = PageToken.decode(tenantId, nextToken, KEY_ATTRIBUTES);
+		if (key != null) {
+			LocalDate day;
+			try {
+				day = LocalDate.parse(key.get("CreatedDate"));
+			} catch (DateTimeParseException e) {
+				throw new InvalidPageTokenException("Page token does not match this listing", e);
+			}
+			if (day.isBefore(range.firstDay) || day.isAfter(range.day)) {
+				throw new InvalidPageTokenException("Page token does not match this listing");
+			}
+			range.day = day;
+			range.startKey = key;
+		}
+		return range;
+	}
+
+	/**
+	 * Method to set the id and creation time of a new order. The id is a ULID of
+	 * the same time, so ids sort in the order the orders were created.
+	 * 
+	 * @param order
+	 * @return Order
+	 */
+	static Order stamp(Order order) {
+		if (order.getCreatedAt() == null) {
+			Instant now = Instant.now();
+			order.setCreatedAt(CREATED_AT.format(now));
+			order.setCreatedDate(createdDate(now).toString());
+			if (order.getId() == null) {
+				order.setId(Ulid.generate(now.toEpochMilli()));
+			}
+		} else if (order.getId() == null) {
+			order.setId(Ulid.generate(System.currentTimeMillis()));
+		}
+		return order;
+	}
+
+	private static LocalDate createdDate(Instant instant) {
+		return LocalDate.ofInstant(instant, ZoneOffset.UTC);
+	}
+
+	String getFrom() {
+		return from;
+	}
+
+	String getTo() {
+		return to;
+	}
+
+	/**
+	 * Day that is read next, as stored in CreatedDate
+	 */
+	String getDay() {
+		return day.toString();
+	}
+
+	/**
+	 * Method to take the key the first query continues after
+	 * 
+	 * @return Map<String, String>, or null when not continuing from a token
+	 */
+	Map<String, String> takeStartKey() {
+		Map<String, String> key = startKey;
+		startKey = null;
+		return key;
+	}
+
+	/**
+	 * Method to move on to the day before the current one
+	 * 
+	 * @return boolean false if the current day is the first of the range
+	 */
+	boolean previousDay() {
+		if (!day.isAfter(firstDay)) {
+			return false;
+		}
+		day = day.minusDays(1);
+		return true;
+	}
+
+	/**
+	 * Method to create the token for the page following the given order
+	 * 
+	 * @param last order the page ends with
+	 * @return String
+	 */
+	String nextToken(Order last) {
+		Map<String, String> key = new HashMap<>();
+		key.put("OrderId", last.getId());
+		key.put("CreatedDate", last.getCreatedDate());
+		key.put("CreatedAt", last.getCreatedAt());
+		return PageToken.encode(tenantId, key);
+	}
+}
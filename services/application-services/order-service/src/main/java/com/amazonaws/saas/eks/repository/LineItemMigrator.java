@@ -0,0 +1,217 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazonaws.saas.eks.repository;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.stereotype.Component;
+
+import com.amazonaws.saas.eks.config.DynamodbProperties;
+import com.amazonaws.saas.eks.model.OrderProductCodec;
+import com.amazonaws.saas.eks.model.OrderProductConverter;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
+import com.amazonaws.services.dynamodbv2.model.ListTagsOfResourceRequest;
+import com.amazonaws.services.dynamodbv2.model.ListTagsOfResourceResult;
+import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanResult;
+import com.amazonaws.services.dynamodbv2.model.Tag;
+import com.amazonaws.services.dynamodbv2.model.TagResourceRequest;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Rewrites the line items of orders that still hold them as a JSON string into
+ * the binary encoding of {@link OrderProductCodec}. The migration is off by
+ * default and should only be enabled once every replica runs this version, as
+ * earlier versions write and read line items as JSON. Until then, orders are
+ * written with JSON line items too; enabling the migration also switches
+ * {@link OrderProductConverter} to binary writes. A tenant's table is then
+ * migrated in the background the first time this replica serves the tenant,
+ * one small page at a time so that the migration stays within the table's
+ * provisioned capacity. An order is only rewritten while its line items are
+ * unchanged, so concurrent writes always win. A table whose orders were all
+ * rewritten is tagged with {@value #MIGRATED_TAG}, and is not scanned again.
+ */
+@Component
+public class LineItemMigrator {
+	private static final Logger logger = LogManager.getLogger(LineItemMigrator.class);
+	private static final long RETRY_DELAY = 60000;
+	static final String MIGRATED_TAG = "LineItemsMigrated";
+
+	private final AmazonDynamoDB amazonDynamoDB;
+	private final DynamodbProperties properties;
+	private final Set<String> tenants = ConcurrentHashMap.newKeySet();
+	private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+			Thread.ofPlatform().name("line-item-migrator").daemon(true).factory());
+	private final Counter migrated;
+
+	public LineItemMigrator(AmazonDynamoDB amazonDynamoDB, DynamodbProperties properties,
+			MeterRegistry meterRegistry) {
+		this.amazonDynamoDB = amazonDynamoDB;
+		this.properties = properties;
+		this.migrated = meterRegistry.counter("orders.lineitems.migrated");
+		OrderProductConverter.setBinaryWrites(properties.isLineItemMigrationEnabled());
+	}
+
+	/**
+	 * Method to start migrating a tenant's orders, unless that was started before
+	 * @param tenantId
+	 */
+	public void migrate(String tenantId) {
+		if (properties.isLineItemMigrationEnabled() && tenants.add(tenantId)) {
+			executor.execute(() -> start(tenantId));
+		}
+	}
+
+	private void start(String tenantId) {
+		String tableArn;
+		try {
+			tableArn = amazonDynamoDB.describeTable("Order-" + tenantId).getTable().getTableArn();
+			if (isMigrated(tableArn)) {
+				return;
+			}
+		} catch (Exception e) {
+			logger.error("TenantId: " + tenantId + "-Migrate Line Items failed " + e.getMessage());
+			executor.schedule(() -> start(tenantId), RETRY_DELAY, TimeUnit.MILLISECONDS);
+			return;
+		}
+		migratePage(tenantId, tableArn, null, 0, 0);
+	}
+
+	private boolean isMigrated(String tableArn) {
+		ListTagsOfResourceRequest request = new ListTagsOfResourceRequest().withResourceArn(tableArn);
+		do {
+			ListTagsOfResourceResult result = amazonDynamoDB.listTagsOfResource(request);
+			for (Tag tag : result.getTags()) {
+				if (MIGRATED_TAG.equals(tag.getKey())) {
+					return true;
+				}
+			}
+			request.setNextToken(result.getNextToken());
+		} while (request.getNextToken() != null);
+		return false;
+	}
+
+	private void migratePage(String tenantId, String tableArn, Map<String, AttributeValue> exclusiveStartKey,
+			int rewritten, int failed) {
+		Map<String, String> expressionAttributeNames = new HashMap<>();
+		expressionAttributeNames.put("#OrderId", "OrderId");
+		expressionAttributeNames.put("#OrderProduct", "OrderProduct");
+		ScanRequest scanRequest = new ScanRequest("Order-" + tenantId)
+				.withFilterExpression("attribute_type(#OrderProduct, :Type)")
+				.withProjectionExpression("#OrderId, #OrderProduct")
+				.withExpressionAttributeNames(expressionAttributeNames)
+				.withExpressionAttributeValues(Map.of(":Type", new AttributeValue("S")))
+				.withExclusiveStartKey(exclusiveStartKey)
+				.withLimit(properties.getLineItemMigrationPageSize());
+
+		ScanResult page;
+		try {
+			page = amazonDynamoDB.scan(scanRequest);
+		} catch (Exception e) {
+			logger.error("TenantId: " + tenantId + "-Migrate Line Items failed " + e.getMessage());
+			executor.schedule(() -> migratePage(tenantId, tableArn, exclusiveStartKey, rewritten, failed),
+					RETRY_DELAY, TimeUnit.MILLISECONDS);
+			return;
+		}
+
+		int count = rewritten;
+		int errors = failed;
+		for (Map<String, AttributeValue> item : page.getItems()) {
+			Outcome outcome = rewrite(tenantId, item);
+			if (outcome == Outcome.REWRITTEN) {
+				count++;
+			} else if (outcome == Outcome.FAILED) {
+				errors++;
+			}
+		}
+
+		if (page.getLastEvaluatedKey() == null) {
+			logger.info("TenantId: " + tenantId + "-Migrated line items of " + count + " orders, " + errors
+					+ " failed");
+			if (errors == 0) {
+				markMigrated(tenantId, tableArn);
+			}
+			return;
+		}
+		int total = count;
+		int totalErrors = errors;
+		executor.schedule(() -> migratePage(tenantId, tableArn, page.getLastEvaluatedKey(), total, totalErrors),
+				properties.getLineItemMigrationPageDelay(), TimeUnit.MILLISECONDS);
+	}
+
+	private void markMigrated(String tenantId, String tableArn) {
+		try {
+			amazonDynamoDB.tagResource(new TagResourceRequest()
+					.withResourceArn(tableArn)
+					.withTags(new Tag().withKey(MIGRATED_TAG).withValue("true")));
+		} catch (Exception e) {
+			// the next start scans the table again, which rewrites nothing
+			logger.error("TenantId: " + tenantId + "-Tag Order table as migrated failed " + e.getMessage());
+		}
+	}
+
+	private Outcome rewrite(String tenantId, Map<String, AttributeValue> item) {
+		AttributeValue json = item.get("OrderProduct");
+		try {
+			byte[] encoded = OrderProductCodec.encode(OrderProductCodec.decodeJson(json.getS()));
+			Map<String, AttributeValue> expressionAttributeValues = new HashMap<>();
+			expressionAttributeValues.put(":Json", json);
+			expressionAttributeValues.put(":Encoded", new AttributeValue().withB(ByteBuffer.wrap(encoded)));
+			amazonDynamoDB.updateItem(new UpdateItemRequest()
+					.withTableName("Order-" + tenantId)
+					.withKey(Map.of("OrderId", item.get("OrderId")))
+					.withUpdateExpression("SET #OrderProduct = :Encoded")
+					.withConditionExpression("#OrderProduct = :Json")
+					.withExpressionAttributeNames(Map.of("#OrderProduct", "OrderProduct"))
+					.withExpressionAttributeValues(expressionAttributeValues));
+			migrated.increment();
+			return Outcome.REWRITTEN;
+		} catch (ConditionalCheckFailedException e) {
+			// written or deleted since it was scanned
+			return Outcome.SKIPPED;
+		} catch (Exception e) {
+			logger.error("TenantId: " + tenantId + "-Migrate Line Items of Order " + item.get("OrderId").getS()
+					+ " failed " + e.getMessage());
+			return Outcome.FAILED;
+		}
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	private enum Outcome {
+		REWRITTEN, SKIPPED, FAILED
+	}
+}
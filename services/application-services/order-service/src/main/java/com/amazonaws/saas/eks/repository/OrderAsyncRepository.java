@@ -0,0 +1,298 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazonaws.saas.eks.repository;
+
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.primaryPartitionKey;
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.secondaryPartitionKey;
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.secondarySortKey;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import com.amazonaws.saas.eks.exception.ItemNotFoundException;
+import com.amazonaws.saas.eks.model.Order;
+import com.amazonaws.saas.eks.model.OrderProduct;
+import com.amazonaws.saas.eks.model.OrderProductAttributeConverter;
+import com.amazonaws.saas.eks.model.PagedResult;
+
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbAsyncIndex;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbAsyncTable;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedAsyncClient;
+import software.amazon.awssdk.enhanced.dynamodb.EnhancedType;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.StaticTableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.ScanEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+/**
+ * Non-blocking counterpart of {@link OrderRepository}, backed by the AWS SDK v2
+ * enhanced async client.
+ */
+@Repository
+@ConditionalOnProperty(prefix = "com.amazonaws.saas.eks.dynamodb", name = "async-enabled", havingValue = "true")
+public class OrderAsyncRepository {
+	private static final Logger logger = LogManager.getLogger(OrderAsyncRepository.class);
+
+	static final TableSchema<Order> ORDER_SCHEMA = StaticTableSchema.builder(Order.class)
+			.newItemSupplier(Order::new)
+			.addAttribute(String.class, a -> a.name("OrderId")
+					.getter(Order::getId).setter(Order::setId).tags(primaryPartitionKey()))
+			.addAttribute(String.class, a -> a.name("Name")
+					.getter(Order::getName).setter(Order::setName))
+			.addAttribute(String.class, a -> a.name("CreatedAt")
+					.getter(Order::getCreatedAt).setter(Order::setCreatedAt)
+					.tags(secondarySortKey(Order.CREATED_AT_INDEX)))
+			.addAttribute(String.class, a -> a.name("CreatedDate")
+					.getter(Order::getCreatedDate).setter(Order::setCreatedDate)
+					.tags(secondaryPartitionKey(Order.CREATED_AT_INDEX)))
+			.addAttribute(EnhancedType.listOf(OrderProduct.class), a -> a.name("OrderProduct")
+					.getter(Order::getOrderProduct).setter(Order::setOrderProduct)
+					.attributeConverter(new OrderProductAttributeConverter()))
+			.build();
+
+	private final DynamoDbEnhancedAsyncClient enhancedClient;
+	private final LineItemMigrator lineItemMigrator;
+
+	public OrderAsyncRepository(DynamoDbEnhancedAsyncClient enhancedClient, LineItemMigrator lineItemMigrator) {
+		this.enhancedClient = enhancedClient;
+		this.lineItemMigrator = lineItemMigrator;
+	}
+
+	/**
+	 * Method to get one page of orders for a tenant, read with a Scan bounded by
+	 * the limit for the same reasons as {@link OrderRepository}
+	 * @param tenantId
+	 * @param limit
+	 * @param nextToken
+	 * @param fields
+	 * @return CompletableFuture<PagedResult<Order>>
+	 */
+	public CompletableFuture<PagedResult<Order>> getOrders(String tenantId, int limit, String nextToken,
+			String fields) {
+		Projection projection = Projection.of(fields, OrderRepository.ORDER_FIELDS, "OrderId");
+		ScanEnhancedRequest.Builder request = ScanEnhancedRequest.builder()
+				.exclusiveStartKey(exclusiveStartKey(tenantId, nextToken))
+				.limit(limit);
+		if (projection != null) {
+			request.attributesToProject(projection.getAttributes());
+		}
+		AtomicReference<PagedResult<Order>> result = new AtomicReference<>();
+
+		return table(tenantId).scan(request.build())
+				.limit(1)
+				.subscribe(page -> {
+					page.items().forEach(order -> OrderRepository.applyProjection(order, projection));
+					result.set(new PagedResult<Order>(page.items(), nextToken(tenantId, page.lastEvaluatedKey())));
+				})
+				.thenApply(v -> result.get())
+				.exceptionally(e -> {
+					logger.error("TenantId: " + tenantId + "-Get Orders failed " + e.getMessage());
+					return null;
+				});
+	}
+
+	/**
+	 * Method to get one page of the orders a tenant created between two times,
+	 * newest first
+	 * @param tenantId
+	 * @param from
+	 * @param to
+	 * @param limit
+	 * @param nextToken
+	 * @param fields
+	 * @return CompletableFuture<PagedResult<Order>>
+	 */
+	public CompletableFuture<PagedResult<Order>> getOrders(String tenantId, Instant from, Instant to, int limit,
+			String nextToken, String fields) {
+		CreatedAtRange range = CreatedAtRange.of(tenantId, from, to, nextToken);
+		Projection projection = Projection.of(fields, OrderRepository.ORDER_FIELDS, CreatedAtRange.KEY_ATTRIBUTES);
+		List<Order> orders = new ArrayList<>();
+
+		return queryRange(table(tenantId).index(Order.CREATED_AT_INDEX), range,
+				attributeValues(range.takeStartKey()), limit, projection, orders)
+				.thenApply(more -> new PagedResult<Order>(orders,
+						more ? range.nextToken(orders.get(orders.size() - 1)) : null))
+				.exceptionally(e -> {
+					logger.error("TenantId: " + tenantId + "-Get Orders By Range failed " + e.getMessage());
+					return null;
+				});
+	}
+
+	/**
+	 * Method to query the range's current day, moving on to the days before it
+	 * until the page is full
+	 * @return CompletableFuture<Boolean> whether the range has more orders
+	 */
+	private CompletableFuture<Boolean> queryRange(DynamoDbAsyncIndex<Order> index, CreatedAtRange range,
+			Map<String, AttributeValue> exclusiveStartKey, int limit, Projection projection, List<Order> orders) {
+		QueryEnhancedRequest.Builder request = QueryEnhancedRequest.builder()
+				.queryConditional(QueryConditional.sortBetween(
+						Key.builder().partitionValue(range.getDay()).sortValue(range.getFrom()).build(),
+						Key.builder().partitionValue(range.getDay()).sortValue(range.getTo()).build()))
+				.scanIndexForward(false)
+				.exclusiveStartKey(exclusiveStartKey)
+				.limit(limit - orders.size());
+		if (projection != null) {
+			request.attributesToProject(projection.getAttributes());
+		}
+		AtomicReference<Page<Order>> result = new AtomicReference<>();
+
+		return index.query(request.build())
+				.limit(1)
+				.subscribe(result::set)
+				.thenCompose(v -> {
+					Page<Order> page = result.get();
+					page.items().forEach(order -> orders.add(OrderRepository.applyProjection(order, projection)));
+					Map<String, AttributeValue> lastEvaluatedKey = page.lastEvaluatedKey();
+					boolean more = true;
+					if (lastEvaluatedKey == null || lastEvaluatedKey.isEmpty()) {
+						lastEvaluatedKey = null;
+						more = range.previousDay();
+					}
+					if (!more || orders.size() >= limit) {
+						return CompletableFuture.completedFuture(more);
+					}
+					return queryRange(index, range, lastEvaluatedKey, limit, projection, orders);
+				});
+	}
+
+	/**
+	 * Method to save an order for a tenant
+	 * @param order
+	 * @param tenantId
+	 * @return CompletableFuture<Order>
+	 */
+	public CompletableFuture<Order> save(Order order, String tenantId) {
+		CreatedAtRange.stamp(order);
+
+		return table(tenantId).putItem(order)
+				.thenApply(v -> order)
+				.exceptionally(e -> {
+					logger.error("TenantId: " + tenantId + "-Save Order failed " + e.getMessage());
+					return order;
+				});
+	}
+
+	/**
+	 * Method to get order by Id for a tenant
+	 * @param orderId
+	 * @param tenantId
+	 * @param fields
+	 * @param consistentRead
+	 * @return CompletableFuture<Order>, failed with ItemNotFoundException if the
+	 *         tenant has no such order
+	 */
+	public CompletableFuture<Order> getOrderById(String orderId, String tenantId, String fields,
+			boolean consistentRead) {
+		Projection projection = Projection.of(fields, OrderRepository.ORDER_FIELDS, "OrderId");
+		Key key = Key.builder().partitionValue(orderId).build();
+		CompletableFuture<Order> order;
+
+		if (projection == null) {
+			order = table(tenantId).getItem(r -> r.key(key).consistentRead(consistentRead));
+		} else {
+			AtomicReference<Order> result = new AtomicReference<>();
+			order = table(tenantId).query(r -> r.queryConditional(QueryConditional.keyEqualTo(key))
+					.attributesToProject(projection.getAttributes())
+					.consistentRead(consistentRead))
+					.items()
+					.limit(1)
+					.subscribe(result::set)
+					.thenApply(v -> result.get() == null ? null
+							: OrderRepository.applyProjection(result.get(), projection));
+		}
+
+		return order.thenApply(found -> {
+			if (found == null) {
+				throw new ItemNotFoundException("Order " + orderId + " not found");
+			}
+			return found;
+		}).exceptionally(e -> {
+			if (unwrap(e) instanceof ItemNotFoundException) {
+				throw new CompletionException(unwrap(e));
+			}
+			logger.error("TenantId: " + tenantId + "-Get Order By Id failed " + e.getMessage());
+			return null;
+		});
+	}
+
+	/**
+	 * Method to delete a tenant's order
+	 * @param order
+	 * @param tenantId
+	 * @return CompletableFuture<Void>
+	 */
+	public CompletableFuture<Void> delete(Order order, String tenantId) {
+		Key key = Key.builder().partitionValue(order.getId()).build();
+
+		return table(tenantId).deleteItem(key)
+				.<Void>thenApply(deleted -> null)
+				.exceptionally(e -> {
+					logger.error("TenantId: " + tenantId + "-Delete Order failed " + e.getMessage());
+					return null;
+				});
+	}
+
+	private DynamoDbAsyncTable<Order> table(String tenantId) {
+		lineItemMigrator.migrate(tenantId);
+		return enhancedClient.table("Order-" + tenantId, ORDER_SCHEMA);
+	}
+
+	private Map<String, AttributeValue> exclusiveStartKey(String tenantId, String nextToken) {
+		Map<String, String> key = PageToken.decode(tenantId, nextToken, "OrderId");
+		if (key == null) {
+			return null;
+		}
+		return Collections.singletonMap("OrderId", AttributeValue.builder().s(key.get("OrderId")).build());
+	}
+
+	private static Throwable unwrap(Throwable e) {
+		return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+	}
+
+	private static Map<String, AttributeValue> attributeValues(Map<String, String> key) {
+		if (key == null) {
+			return null;
+		}
+		Map<String, AttributeValue> values = new HashMap<>();
+		key.forEach((name, value) -> values.put(name, AttributeValue.builder().s(value).build()));
+		return values;
+	}
+
+	private String nextToken(String tenantId, Map<String, AttributeValue> lastEvaluatedKey) {
+		if (lastEvaluatedKey == null || lastEvaluatedKey.isEmpty()) {
+			return null;
+		}
+		return PageToken.encode(tenantId, Collections.singletonMap("OrderId", lastEvaluatedKey.get("OrderId").s()));
+	}
+}
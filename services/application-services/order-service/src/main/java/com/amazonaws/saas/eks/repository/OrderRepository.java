@@ -16,36 +16,108 @@
  */
 package com.amazonaws.saas.eks.repository;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Repository;
 
-import com.amazonaws.auth.DefaultAWSCredentialsProviderChain;
+import com.amazonaws.saas.eks.config.DynamodbProperties;
+import com.amazonaws.saas.eks.exception.ItemNotFoundException;
+import com.amazonaws.saas.eks.exception.ServiceUnavailableException;
 import com.amazonaws.saas.eks.model.Order;
-import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClient;
-import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClientBuilder;
+import com.amazonaws.saas.eks.model.PagedResult;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.TableNameOverride;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBScanExpression;
-import com.amazonaws.services.dynamodbv2.datamodeling.PaginatedScanList;
+import com.amazonaws.services.dynamodbv2.datamodeling.QueryResultPage;
+import com.amazonaws.services.dynamodbv2.datamodeling.ScanResultPage;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 
 @Repository
 public class OrderRepository {
 	private static final Logger logger = LogManager.getLogger(OrderRepository.class);
 
 	/**
-	 * Method to get all orders for a tenant
+	 * Fields that can be selected through the fields parameter, with the
+	 * attributes they are read from
+	 */
+	static final Map<String, String> ORDER_FIELDS = Map.of("id", "OrderId", "name", "Name", "createdAt", "CreatedAt",
+			"orderProduct", "OrderProduct");
+
+	private final AmazonDynamoDB amazonDynamoDB;
+	private final LoadingCache<String, DynamoDBMapper> tenantMappers;
+	private final HedgingPolicy orderByIdHedging;
+	private final LoadingCache<String, CircuitBreaker> tableCircuits;
+	private final LineItemMigrator lineItemMigrator;
+
+	public OrderRepository(AmazonDynamoDB amazonDynamoDB, DynamodbProperties properties,
+			@Qualifier("hedgeExecutor") ExecutorService hedgeExecutor, MeterRegistry meterRegistry,
+			LineItemMigrator lineItemMigrator) {
+		this.amazonDynamoDB = amazonDynamoDB;
+		this.lineItemMigrator = lineItemMigrator;
+		this.tenantMappers = Caffeine.newBuilder()
+				.maximumSize(properties.getMapperCacheMaximumSize())
+				.expireAfterAccess(properties.getMapperCacheExpireAfterAccess(), TimeUnit.MILLISECONDS)
+				.recordStats()
+				.build(this::createDynamoDBMapper);
+		CaffeineCacheMetrics.monitor(meterRegistry, tenantMappers, "orderMappers");
+		this.orderByIdHedging = new HedgingPolicy("getOrderById", properties, hedgeExecutor, meterRegistry);
+		this.tableCircuits = Caffeine.newBuilder()
+				.maximumSize(properties.getMapperCacheMaximumSize())
+				.expireAfterAccess(properties.getMapperCacheExpireAfterAccess(), TimeUnit.MILLISECONDS)
+				.build(tenantId -> new CircuitBreaker("Order-" + tenantId, properties));
+	}
+
+	/**
+	 * Method to get one page of orders for a tenant. The page is read with a
+	 * Scan bounded by the limit, which resumes from the page token. The tenant's
+	 * table has no key to query all its orders on: the CreatedAtIndex only holds
+	 * orders saved with a createdAt, and is partitioned by day, so listing every
+	 * order through it would miss older orders and query every day back to the
+	 * first one.
 	 * @param tenantId
-	 * @return List<Order>
+	 * @param limit
+	 * @param nextToken
+	 * @param fields
+	 * @return PagedResult<Order>
 	 */
-	public List<Order> getOrders(String tenantId) {
-		PaginatedScanList<Order> results = null;
+	public PagedResult<Order> getOrders(String tenantId, int limit, String nextToken, String fields) {
+		PagedResult<Order> results = null;
 		DynamoDBMapper mapper = dynamoDBMapper(tenantId);
+		Projection projection = projection(fields);
+		DynamoDBScanExpression scanExpression = new DynamoDBScanExpression()
+				.withExclusiveStartKey(exclusiveStartKey(tenantId, nextToken))
+				.withLimit(limit);
+		if (projection != null) {
+			scanExpression.withProjectionExpression(projection.expression())
+					.withExpressionAttributeNames(projection.expressionAttributeNames());
+		}
 		
 		try {
-			results = mapper.scan(Order.class, new DynamoDBScanExpression());
+			ScanResultPage<Order> page = tableCircuits.get(tenantId)
+					.execute(() -> mapper.scanPage(Order.class, scanExpression));
+			page.getResults().forEach(order -> applyProjection(order, projection));
+			results = new PagedResult<Order>(page.getResults(), nextToken(tenantId, page.getLastEvaluatedKey()));
+		} catch (ServiceUnavailableException e) {
+			throw e;
 		} catch (Exception e) {
 			logger.error("TenantId: " + tenantId + "-Get Orders failed " + e.getMessage());
 		}
@@ -53,6 +125,97 @@ public class OrderRepository {
 		return results;
 	}
 
+	/**
+	 * Method to get one page of the orders a tenant created between two times,
+	 * newest first. The CreatedAtIndex is queried one day at a time until the
+	 * page is full or the first day of the range is read.
+	 * @param tenantId
+	 * @param from
+	 * @param to
+	 * @param limit
+	 * @param nextToken
+	 * @param fields
+	 * @return PagedResult<Order>
+	 */
+	public PagedResult<Order> getOrders(String tenantId, Instant from, Instant to, int limit, String nextToken,
+			String fields) {
+		PagedResult<Order> results = null;
+		DynamoDBMapper mapper = dynamoDBMapper(tenantId);
+		CircuitBreaker orderTable = tableCircuits.get(tenantId);
+		CreatedAtRange range = CreatedAtRange.of(tenantId, from, to, nextToken);
+		Projection projection = Projection.of(fields, ORDER_FIELDS, CreatedAtRange.KEY_ATTRIBUTES);
+		List<Order> orders = new ArrayList<>();
+		Map<String, AttributeValue> exclusiveStartKey = attributeValues(range.takeStartKey());
+		boolean more = true;
+
+		try {
+			do {
+				DynamoDBQueryExpression<Order> queryExpression = rangeQuery(range, exclusiveStartKey,
+						limit - orders.size(), projection);
+				QueryResultPage<Order> page = orderTable.execute(() -> mapper.queryPage(Order.class, queryExpression));
+				page.getResults().forEach(order -> orders.add(applyProjection(order, projection)));
+				exclusiveStartKey = page.getLastEvaluatedKey();
+				if (exclusiveStartKey == null) {
+					more = range.previousDay();
+				}
+			} while (more && orders.size() < limit);
+			results = new PagedResult<Order>(orders,
+					more ? range.nextToken(orders.get(orders.size() - 1)) : null);
+		} catch (ServiceUnavailableException e) {
+			throw e;
+		} catch (Exception e) {
+			logger.error("TenantId: " + tenantId + "-Get Orders By Range failed " + e.getMessage());
+		}
+
+		return results;
+	}
+
+	private DynamoDBQueryExpression<Order> rangeQuery(CreatedAtRange range,
+			Map<String, AttributeValue> exclusiveStartKey, int limit, Projection projection) {
+		Map<String, String> expressionAttributeNames = projection == null ? new HashMap<>()
+				: projection.expressionAttributeNames();
+		expressionAttributeNames.put("#CreatedDate", "CreatedDate");
+		expressionAttributeNames.put("#CreatedAt", "CreatedAt");
+		Map<String, AttributeValue> expressionAttributeValues = new HashMap<>();
+		expressionAttributeValues.put(":CreatedDate", new AttributeValue().withS(range.getDay()));
+		expressionAttributeValues.put(":From", new AttributeValue().withS(range.getFrom()));
+		expressionAttributeValues.put(":To", new AttributeValue().withS(range.getTo()));
+
+		DynamoDBQueryExpression<Order> queryExpression = new DynamoDBQueryExpression<Order>()
+				.withIndexName(Order.CREATED_AT_INDEX)
+				.withConsistentRead(false)
+				.withScanIndexForward(false)
+				.withKeyConditionExpression("#CreatedDate = :CreatedDate AND #CreatedAt BETWEEN :From AND :To")
+				.withExpressionAttributeNames(expressionAttributeNames)
+				.withExpressionAttributeValues(expressionAttributeValues)
+				.withExclusiveStartKey(exclusiveStartKey)
+				.withLimit(limit);
+		if (projection != null) {
+			queryExpression.withProjectionExpression(projection.expression());
+		}
+		return queryExpression;
+	}
+
+	/**
+	 * Method to read all orders of a tenant, handing each page to the consumer
+	 * as soon as DynamoDB returns it. Only one page is held in memory at a time.
+	 * @param tenantId
+	 * @param pageConsumer
+	 */
+	public void exportOrders(String tenantId, Consumer<List<Order>> pageConsumer) {
+		DynamoDBMapper mapper = dynamoDBMapper(tenantId);
+		CircuitBreaker orderTable = tableCircuits.get(tenantId);
+		Map<String, AttributeValue> exclusiveStartKey = null;
+
+		do {
+			DynamoDBScanExpression scanExpression = new DynamoDBScanExpression()
+					.withExclusiveStartKey(exclusiveStartKey);
+			ScanResultPage<Order> page = orderTable.execute(() -> mapper.scanPage(Order.class, scanExpression));
+			pageConsumer.accept(page.getResults());
+			exclusiveStartKey = page.getLastEvaluatedKey();
+		} while (exclusiveStartKey != null);
+	}
+
 	/**
 	 * Method to save an order for a tenant
 	 * @param order
@@ -60,9 +223,15 @@ public class OrderRepository {
 	 * @return Order
 	 */
 	public Order save(Order order, String tenantId) {
+		CreatedAtRange.stamp(order);
 		try {
 			DynamoDBMapper mapper = dynamoDBMapper(tenantId);
-			mapper.save(order);
+			tableCircuits.get(tenantId).execute(() -> {
+				mapper.save(order);
+				return order;
+			});
+		} catch (ServiceUnavailableException e) {
+			throw e;
 		} catch (Exception e) {
 			logger.error("TenantId: " + tenantId + "-Save Order failed " + e.getMessage());
 		}
@@ -74,20 +243,53 @@ public class OrderRepository {
 	 * Method to get order by Id for a tenant
 	 * @param orderId
 	 * @param tenantId
-	 * @return Order
+	 * @param fields
+	 * @param consistentRead
+	 * @return Order, or null if the read failed
+	 * @throws ItemNotFoundException if the tenant has no such order
 	 */
-	public Order getOrderById(String orderId, String tenantId) {
+	public Order getOrderById(String orderId, String tenantId, String fields, boolean consistentRead) {
 		DynamoDBMapper mapper = dynamoDBMapper(tenantId);
+		CircuitBreaker orderTable = tableCircuits.get(tenantId);
+		Projection projection = projection(fields);
 		Order order = null;
 		
 		DynamoDBMapperConfig config = DynamoDBMapperConfig.builder()
-				.withConsistentReads(DynamoDBMapperConfig.ConsistentReads.CONSISTENT).build();
+				.withConsistentReads(consistentRead ? DynamoDBMapperConfig.ConsistentReads.CONSISTENT
+						: DynamoDBMapperConfig.ConsistentReads.EVENTUAL)
+				.build();
 		try {
-			order = mapper.load(Order.class, orderId, config);
+			if (projection == null) {
+				order = orderTable
+						.execute(() -> orderByIdHedging.execute(() -> mapper.load(Order.class, orderId, config)));
+			} else {
+				// GetItem through the mapper cannot project, so read the item with a key query
+				Map<String, String> expressionAttributeNames = projection.expressionAttributeNames();
+				expressionAttributeNames.put("#OrderId", "OrderId");
+				DynamoDBQueryExpression<Order> queryExpression = new DynamoDBQueryExpression<Order>()
+						.withKeyConditionExpression("#OrderId = :OrderId")
+						.withExpressionAttributeNames(expressionAttributeNames)
+						.withExpressionAttributeValues(
+								Collections.singletonMap(":OrderId", new AttributeValue().withS(orderId)))
+						.withProjectionExpression(projection.expression())
+						.withConsistentRead(consistentRead);
+				List<Order> orders = orderTable.execute(() -> orderByIdHedging
+						.execute(() -> mapper.queryPage(Order.class, queryExpression).getResults()));
+				if (!orders.isEmpty()) {
+					order = applyProjection(orders.get(0), projection);
+				}
+			}
+		} catch (ServiceUnavailableException e) {
+			throw e;
 		} catch (Exception e) {
 			logger.error("TenantId: " + tenantId + "-Get Order By Id failed " + e.getMessage());
+			return null;
 		}
-		
+
+		if (order == null) {
+			throw new ItemNotFoundException("Order " + orderId + " not found");
+		}
+
 		return order;
 	}
 
@@ -99,35 +301,76 @@ public class OrderRepository {
 	public void delete(Order order, String tenantId) {
 		try {
 			DynamoDBMapper mapper = dynamoDBMapper(tenantId);
-			mapper.delete(order);
+			tableCircuits.get(tenantId).execute(() -> {
+				mapper.delete(order);
+				return order;
+			});
+		} catch (ServiceUnavailableException e) {
+			throw e;
 		} catch (Exception e) {
 			logger.error("TenantId: " + tenantId + "-Delete Order failed " + e.getMessage());
 		}
 	}
 	
 	/**
-	 * Method to retrieve DynamoDBMapper and access to the tenant's Order table
+	 * Method to retrieve DynamoDBMapper and access to the tenant's Order table.
+	 * Mappers are cached per tenant and evicted when idle or when the cache is full.
 	 * @param tenantId
 	 * @return DynamoDBMapper
 	 */
 	public DynamoDBMapper dynamoDBMapper(String tenantId) {
+		return tenantMappers.get(tenantId);
+	}
+
+	private DynamoDBMapper createDynamoDBMapper(String tenantId) {
+		lineItemMigrator.migrate(tenantId);
 		String tableName = "Order-" + tenantId;
 		DynamoDBMapperConfig dbMapperConfig = new DynamoDBMapperConfig.Builder()
 				.withTableNameOverride(TableNameOverride.withTableNameReplacement(tableName)).build();
 
-		AmazonDynamoDBClient dynamoClient = getAmazonDynamoDBLocalClient(tenantId);
-		return new DynamoDBMapper(dynamoClient, dbMapperConfig);
+		return new DynamoDBMapper(amazonDynamoDB, dbMapperConfig);
+	}
+
+	private Projection projection(String fields) {
+		return Projection.of(fields, ORDER_FIELDS, "OrderId");
 	}
 
 	/**
-	 * Helper method for DynamoDBMapper
-	 * @param tenantId
-	 * @return AmazonDynamoDBClient
+	 * Method to clear line items that were not read, which would otherwise show
+	 * as an empty list
+	 * @param order
+	 * @param projection
+	 * @return Order
 	 */
-	private AmazonDynamoDBClient getAmazonDynamoDBLocalClient(String tenantId) {
-		return (AmazonDynamoDBClient) AmazonDynamoDBClientBuilder.standard()
-				// .withCredentials(WebIdentityTokenCredentialsProvider.builder().roleSessionName("ddb-query").build())
-				.withCredentials(new DefaultAWSCredentialsProviderChain()).build();
+	static Order applyProjection(Order order, Projection projection) {
+		if (projection != null && !projection.includes("OrderProduct")) {
+			order.setOrderProduct(null);
+		}
+		return order;
+	}
+
+	private Map<String, AttributeValue> exclusiveStartKey(String tenantId, String nextToken) {
+		Map<String, String> key = PageToken.decode(tenantId, nextToken, "OrderId");
+		if (key == null) {
+			return null;
+		}
+		return Collections.singletonMap("OrderId", new AttributeValue().withS(key.get("OrderId")));
+	}
+
+	private static Map<String, AttributeValue> attributeValues(Map<String, String> key) {
+		if (key == null) {
+			return null;
+		}
+		Map<String, AttributeValue> values = new HashMap<>();
+		key.forEach((name, value) -> values.put(name, new AttributeValue().withS(value)));
+		return values;
+	}
+
+	private String nextToken(String tenantId, Map<String, AttributeValue> lastEvaluatedKey) {
+		if (lastEvaluatedKey == null) {
+			return null;
+		}
+		return PageToken.encode(tenantId, Collections.singletonMap("OrderId", lastEvaluatedKey.get("OrderId").getS()));
 	}
 
-}
+}
\ No newline at end of file
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazonaws.saas.eks.repository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import com.amazonaws.saas.eks.exception.InvalidFieldsException;
+
+/**
+ * Attributes to read for a comma separated list of API field names, as given
+ * in the fields request parameter. Field names are resolved through a fixed
+ * mapping, so callers cannot project attributes that are not part of the API.
+ */
+public final class Projection {
+	private final List<String> attributes;
+
+	private Projection(List<String> attributes) {
+		this.attributes = Collections.unmodifiableList(attributes);
+	}
+
+	/**
+	 * Method to resolve the projection for a fields parameter
+	 * 
+	 * @param fields
+	 * @param fieldAttributes API field name to attribute name
+	 * @param keyAttributes attributes that are always read
+	 * @return Projection, or null when all attributes should be read
+	 */
+	public static Projection of(String fields, Map<String, String> fieldAttributes, String... keyAttributes) {
+		if (fields == null || fields.trim().isEmpty()) {
+			return null;
+		}
+
+		Set<String> attributes = new LinkedHashSet<>();
+		Collections.addAll(attributes, keyAttributes);
+		for (String field : fields.split(",")) {
+			String attribute = fieldAttributes.get(field.trim());
+			if (attribute == null) {
+				throw new InvalidFieldsException("Unknown field: " + field.trim());
+			}
+			attributes.add(attribute);
+		}
+
+		return new Projection(new ArrayList<>(attributes));
+	}
+
+	public List<String> getAttributes() {
+		return attributes;
+	}
+
+	public boolean includes(String attribute) {
+		return attributes.contains(attribute);
+	}
+
+	/**
+	 * Method to build the ProjectionExpression, using a placeholder for every
+	 * attribute since names such as Name are reserved words in DynamoDB
+	 * 
+	 * @return String
+	 */
+	public String expression() {
+		return attributes.stream().map(attribute -> "#" + attribute).collect(Collectors.joining(", "));
+	}
+
+	public Map<String, String> expressionAttributeNames() {
+		Map<String, String> names = new HashMap<>();
+		attributes.forEach(attribute -> names.put("#" + attribute, attribute));
+		return names;
+	}
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazonaws.saas.eks.repository;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Generates ULIDs: 26 characters of Crockford's base32 that start with the
+ * millisecond the id was created at, followed by 80 random bits, so that ids
+ * sort by the time they were created.
+ */
+public final class Ulid {
+	private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+	private Ulid() {
+	}
+
+	/**
+	 * Method to generate a ULID for the given time
+	 * 
+	 * @param timestamp milliseconds since the epoch
+	 * @return String
+	 */
+	public static String generate(long timestamp) {
+		char[] chars = new char[26];
+		long time = timestamp;
+		for (int i = 9; i >= 0; i--) {
+			chars[i] = ALPHABET[(int) (time & 31)];
+			time >>>= 5;
+		}
+
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		long high = random.nextLong();
+		long low = random.nextLong();
+		for (int i = 17; i >= 10; i--) {
+			chars[i] = ALPHABET[(int) (high & 31)];
+			high >>>= 5;
+		}
+		for (int i = 25; i >= 18; i--) {
+			chars[i] = ALPHABET[(int) (low & 31)];
+			low >>>= 5;
+		}
+
+		return new String(chars);
+	}
+}
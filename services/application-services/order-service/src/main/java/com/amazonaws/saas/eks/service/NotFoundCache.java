@@ -0,0 +1,90 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazonaws.saas.eks.service;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.stereotype.Component;
+
+import com.amazonaws.saas.eks.config.CacheProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Short-lived record of order ids a tenant looked up that do not exist, so that
+ * repeated reads of a missing order are answered without reaching DynamoDB.
+ * Entries are dropped when the order is written and otherwise expire after
+ * notFoundTimeToLive milliseconds. Hit and miss counts are published under the
+ * "cache.gets" metric with cache=ordersNotFound.
+ */
+@Component
+public class NotFoundCache {
+	private static final String CACHE_NAME = "ordersNotFound";
+
+	private final Cache<String, Boolean> cache;
+	private final boolean enabled;
+
+	public NotFoundCache(CacheProperties cacheProperties, MeterRegistry meterRegistry) {
+		this.enabled = cacheProperties.getNotFoundMaximumSize() > 0 && cacheProperties.getNotFoundTimeToLive() > 0;
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(cacheProperties.getNotFoundMaximumSize())
+				.expireAfterWrite(cacheProperties.getNotFoundTimeToLive(), TimeUnit.MILLISECONDS)
+				.recordStats()
+				.build();
+		CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+	}
+
+	/**
+	 * Method to check whether an id was recently found missing
+	 * 
+	 * @param tenantId
+	 * @param id
+	 * @return boolean
+	 */
+	public boolean isMissing(String tenantId, String id) {
+		return enabled && cache.getIfPresent(key(tenantId, id)) != null;
+	}
+
+	/**
+	 * Method to remember that an id does not exist
+	 * 
+	 * @param tenantId
+	 * @param id
+	 */
+	public void putMissing(String tenantId, String id) {
+		if (enabled) {
+			cache.put(key(tenantId, id), Boolean.TRUE);
+		}
+	}
+
+	/**
+	 * Method to forget a missing id once it has been written
+	 * 
+	 * @param tenantId
+	 * @param id
+	 */
+	public void invalidate(String tenantId, String id) {
+		cache.invalidate(key(tenantId, id));
+	}
+
+	private static String key(String tenantId, String id) {
+		return tenantId + "\u0000" + id;
+	}
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazonaws.saas.eks.service;
+
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import com.amazonaws.saas.eks.config.DynamodbProperties;
+import com.amazonaws.saas.eks.model.Order;
+import com.amazonaws.saas.eks.model.PagedResult;
+import com.amazonaws.saas.eks.repository.OrderAsyncRepository;
+
+@Service
+@ConditionalOnProperty(prefix = "com.amazonaws.saas.eks.dynamodb", name = "async-enabled", havingValue = "true")
+public class OrderAsyncServiceImpl implements OrderAsyncService {
+
+	private OrderAsyncRepository orderAsyncRepository;
+	private DynamodbProperties dynamodbProperties;
+
+	public OrderAsyncServiceImpl(OrderAsyncRepository orderAsyncRepository, DynamodbProperties dynamodbProperties) {
+		this.orderAsyncRepository = orderAsyncRepository;
+		this.dynamodbProperties = dynamodbProperties;
+	}
+
+	@Override
+	public CompletableFuture<PagedResult<Order>> getOrders(String tenantId, Integer limit, String nextToken,
+			String fields) {
+		return orderAsyncRepository.getOrders(tenantId, dynamodbProperties.pageSize(limit), nextToken, fields);
+	}
+
+	@Override
+	public CompletableFuture<PagedResult<Order>> getOrders(String tenantId, Instant from, Instant to, Integer limit,
+			String nextToken, String fields) {
+		Instant rangeEnd = to == null ? Instant.now() : to;
+		Instant rangeStart = OrderServiceImpl.rangeStart(from, rangeEnd, dynamodbProperties.getMaxRangeDays());
+		return orderAsyncRepository.getOrders(tenantId, rangeStart, rangeEnd, dynamodbProperties.pageSize(limit),
+				nextToken, fields);
+	}
+
+	@Override
+	public CompletableFuture<Order> getOrderById(String orderId, String tenantId, String fields, boolean consistentRead) {
+		return orderAsyncRepository.getOrderById(orderId, tenantId, fields, consistentRead);
+	}
+
+	@Override
+	public CompletableFuture<Order> save(Order order, String tenantId) {
+		return orderAsyncRepository.save(order, tenantId);
+	}
+
+	@Override
+	public CompletableFuture<Void> delete(Order order, String tenantId) {
+		return orderAsyncRepository.delete(order, tenantId);
+	}
+}
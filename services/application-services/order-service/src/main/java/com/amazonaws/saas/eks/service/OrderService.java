@@ -16,16 +16,25 @@
  */
 package com.amazonaws.saas.eks.service;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.function.Consumer;
+
 import com.amazonaws.saas.eks.model.Order;
+import com.amazonaws.saas.eks.model.PagedResult;
 
 public interface OrderService {
 
 	Order save(Order order, String tenantId);
 
-	Order getOrderById(String orderId, String tenantId);
+	Order getOrderById(String orderId, String tenantId, String fields, boolean consistentRead);
+
+	PagedResult<Order> getOrders(String tenantId, Integer limit, String nextToken, String fields);
+
+	PagedResult<Order> getOrders(String tenantId, Instant from, Instant to, Integer limit, String nextToken,
+			String fields);
 
-	List<Order> getOrders(String tenantId);
+	void exportOrders(String tenantId, Consumer<List<Order>> pageConsumer);
 
 	void delete(Order order, String tenantId);
 }
\ No newline at end of file
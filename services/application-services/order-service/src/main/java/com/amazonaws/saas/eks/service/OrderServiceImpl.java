@@ -16,39 +16,135 @@
  */
 package com.amazonaws.saas.eks.service;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
+import java.util.function.Consumer;
 
 import org.springframework.stereotype.Service;
 
+import com.amazonaws.saas.eks.config.DynamodbProperties;
+import com.amazonaws.saas.eks.exception.InvalidRangeException;
+import com.amazonaws.saas.eks.exception.ItemNotFoundException;
 import com.amazonaws.saas.eks.model.Order;
+import com.amazonaws.saas.eks.model.PagedResult;
 import com.amazonaws.saas.eks.repository.OrderRepository;
 
 @Service
 public class OrderServiceImpl implements OrderService {
 
 	private OrderRepository orderRepository;
+	private DynamodbProperties dynamodbProperties;
+	private NotFoundCache notFoundCache;
+	private LastKnownGood lastKnownGood;
+	private SingleFlight<String, Order> orderReads = new SingleFlight<String, Order>();
 
-	public OrderServiceImpl(OrderRepository orderRepository) {
+	public OrderServiceImpl(OrderRepository orderRepository, DynamodbProperties dynamodbProperties,
+			NotFoundCache notFoundCache, LastKnownGood lastKnownGood) {
 		this.orderRepository = orderRepository;
+		this.dynamodbProperties = dynamodbProperties;
+		this.notFoundCache = notFoundCache;
+		this.lastKnownGood = lastKnownGood;
 	}
 
 	@Override
-	public List<Order> getOrders(String tenantId) {
-		return orderRepository.getOrders(tenantId);
+	public PagedResult<Order> getOrders(String tenantId, Integer limit, String nextToken, String fields) {
+		int pageSize = dynamodbProperties.pageSize(limit);
+		return lastKnownGood.read(tenantId, "list:" + pageSize + ":" + nextToken + ":" + fields,
+				() -> orderRepository.getOrders(tenantId, pageSize, nextToken, fields));
 	}
 
 	@Override
-	public Order getOrderById(String orderId, String tenantId) {
-		return orderRepository.getOrderById(orderId, tenantId);
+	public PagedResult<Order> getOrders(String tenantId, Instant from, Instant to, Integer limit, String nextToken,
+			String fields) {
+		int pageSize = dynamodbProperties.pageSize(limit);
+		Instant rangeEnd = to == null ? Instant.now() : to;
+		Instant rangeStart = rangeStart(from, rangeEnd, dynamodbProperties.getMaxRangeDays());
+		return lastKnownGood.read(tenantId,
+				"range:" + from + ":" + to + ":" + pageSize + ":" + nextToken + ":" + fields,
+				() -> orderRepository.getOrders(tenantId, rangeStart, rangeEnd, pageSize, nextToken, fields));
+	}
+
+	/**
+	 * Method to resolve the start of a range of creation times, which defaults to
+	 * the longest range allowed before its end
+	 * @param from
+	 * @param to
+	 * @param maxRangeDays
+	 * @return Instant
+	 * @throws InvalidRangeException if the range is reversed or too long
+	 */
+	static Instant rangeStart(Instant from, Instant to, int maxRangeDays) {
+		Duration maxRange = Duration.ofDays(maxRangeDays);
+		if (from == null) {
+			return to.minus(maxRange);
+		}
+		if (from.isAfter(to)) {
+			throw new InvalidRangeException("from must not be after to");
+		}
+		if (Duration.between(from, to).compareTo(maxRange) > 0) {
+			throw new InvalidRangeException("Range must not be longer than " + maxRangeDays + " days");
+		}
+		return from;
+	}
+
+	@Override
+	public void exportOrders(String tenantId, Consumer<List<Order>> pageConsumer) {
+		orderRepository.exportOrders(tenantId, pageConsumer);
+	}
+
+	/**
+	 * Concurrent reads of the same order share one DynamoDB call, ids found missing
+	 * are answered from the not found cache until it expires, and the last order
+	 * read is served when DynamoDB fails. A consistent read skips the not found
+	 * cache and is never shared, as they may hold what was read before a write
+	 * through another replica.
+	 */
+	@Override
+	public Order getOrderById(String orderId, String tenantId, String fields, boolean consistentRead) {
+		String key = readKey(tenantId, orderId) + fields;
+		if (consistentRead) {
+			return lastKnownGood.read(tenantId, key,
+					() -> orderRepository.getOrderById(orderId, tenantId, fields, true));
+		}
+
+		if (notFoundCache.isMissing(tenantId, orderId)) {
+			throw new ItemNotFoundException("Order " + orderId + " not found");
+		}
+
+		try {
+			return lastKnownGood.read(tenantId, key, () -> orderReads.execute(key,
+					() -> orderRepository.getOrderById(orderId, tenantId, fields, false)));
+		} catch (ItemNotFoundException e) {
+			notFoundCache.putMissing(tenantId, orderId);
+			throw e;
+		}
 	}
 
 	@Override
 	public Order save(Order order, String tenantId) {
-		return orderRepository.save(order, tenantId);
+		Order savedOrder = orderRepository.save(order, tenantId);
+		written(tenantId, order.getId());
+		return savedOrder;
 	}
 
 	@Override
 	public void delete(Order order, String tenantId) {
 		orderRepository.delete(order, tenantId);
+		written(tenantId, order.getId());
+	}
+
+	/**
+	 * Drops everything read of an order before it was written
+	 */
+	private void written(String tenantId, String orderId) {
+		notFoundCache.invalidate(tenantId, orderId);
+		String orderReadPrefix = readKey(tenantId, orderId);
+		lastKnownGood.invalidate(tenantId, orderReadPrefix);
+		orderReads.forget(key -> key.startsWith(orderReadPrefix));
+	}
+
+	private static String readKey(String tenantId, String orderId) {
+		return tenantId + "\u0000" + orderId + "\u0000";
 	}
 }
\ No newline at end of file
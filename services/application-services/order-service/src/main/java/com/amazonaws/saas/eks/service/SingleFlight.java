@@ -0,0 +1,82 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazonaws.saas.eks.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent identical reads: while a read for a key is in flight,
+ * further callers for the same key wait for its result, or its exception,
+ * instead of issuing their own.
+ */
+public class SingleFlight<K, V> {
+	private final ConcurrentMap<K, CompletableFuture<V>> calls = new ConcurrentHashMap<K, CompletableFuture<V>>();
+
+	/**
+	 * Method to run the loader for a key unless a call for the key is already in
+	 * flight, in which case its result is shared
+	 * 
+	 * @param key
+	 * @param loader
+	 * @return V
+	 */
+	public V execute(K key, Supplier<V> loader) {
+		CompletableFuture<V> call = new CompletableFuture<V>();
+		CompletableFuture<V> inFlight = calls.putIfAbsent(key, call);
+
+		if (inFlight != null) {
+			try {
+				return inFlight.join();
+			} catch (CompletionException e) {
+				if (e.getCause() instanceof RuntimeException) {
+					throw (RuntimeException) e.getCause();
+				}
+				if (e.getCause() instanceof Error) {
+					throw (Error) e.getCause();
+				}
+				throw e;
+			}
+		}
+
+		try {
+			V value = loader.get();
+			call.complete(value);
+			return value;
+		} catch (Throwable e) {
+			// complete on errors too, or the callers waiting for this call never return
+			call.completeExceptionally(e);
+			throw e;
+		} finally {
+			calls.remove(key, call);
+		}
+	}
+
+	/**
+	 * Method to stop sharing the in-flight calls of the matching keys, so that
+	 * reads arriving after a write do not pick up a result read before it
+	 * 
+	 * @param keys
+	 */
+	public void forget(Predicate<K> keys) {
+		calls.keySet().removeIf(keys);
+	}
+}
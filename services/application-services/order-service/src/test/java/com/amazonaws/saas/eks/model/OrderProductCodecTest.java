@@ -0,0 +1,105 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazonaws.saas.eks.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class OrderProductCodecTest {
+
+	@Test
+	void decodesTheItemsItEncoded() {
+		List<OrderProduct> items = Arrays.asList(item("p-1", 12.5, 3), item("prodütto-2", 0.1, -7),
+				item(null, null, null), item("p-4", null, Integer.MAX_VALUE), item("p-5", 9.99, Integer.MIN_VALUE));
+
+		byte[] encoded = OrderProductCodec.encode(items);
+
+		assertThat(encoded[0]).isEqualTo((byte) OrderProductCodec.VERSION);
+		assertThat(encoded[1]).isZero();
+		assertThat(OrderProductCodec.decode(encoded)).usingRecursiveFieldByFieldElementComparator()
+				.containsExactlyElementsOf(items);
+	}
+
+	@Test
+	void encodesNoItems() {
+		byte[] encoded = OrderProductCodec.encode(Collections.emptyList());
+
+		assertThat(encoded).hasSize(3);
+		assertThat(OrderProductCodec.decode(encoded)).isEmpty();
+	}
+
+	@Test
+	void deflatesLargeEncodings() {
+		List<OrderProduct> items = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			items.add(item("product-" + i, 10.0, 1));
+		}
+
+		byte[] encoded = OrderProductCodec.encode(items);
+
+		assertThat(encoded[1] & 1).isEqualTo(1);
+		assertThat(encoded.length).isLessThan(items.size() * 10);
+		assertThat(OrderProductCodec.decode(encoded)).usingRecursiveFieldByFieldElementComparator()
+				.containsExactlyElementsOf(items);
+	}
+
+	@Test
+	void rejectsUnknownEncodings() {
+		byte[] encoded = OrderProductCodec.encode(Collections.singletonList(item("p-1", 1.0, 1)));
+		encoded[0] = 2;
+
+		assertThatThrownBy(() -> OrderProductCodec.decode(encoded)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> OrderProductCodec.decode(new byte[] { 1 }))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void rejectsTruncatedEncodings() {
+		byte[] encoded = OrderProductCodec.encode(Collections.singletonList(item("p-1", 1.0, 1)));
+
+		assertThatThrownBy(() -> OrderProductCodec.decode(Arrays.copyOf(encoded, encoded.length - 1)))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> OrderProductCodec.decode(new byte[] { 1, 0, (byte) 0xFF, (byte) 0xFF }))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void readsLineItemsStoredAsJson() {
+		List<OrderProduct> items = OrderProductCodec
+				.decodeJson("[{\"productId\":\"p-1\",\"price\":12.5,\"quantity\":3}]");
+
+		assertThat(items).usingRecursiveFieldByFieldElementComparator()
+				.containsExactly(item("p-1", 12.5, 3));
+		assertThatThrownBy(() -> OrderProductCodec.decodeJson("[{")).isInstanceOf(UncheckedIOException.class);
+	}
+
+	private static OrderProduct item(String productId, Double price, Integer quantity) {
+		OrderProduct item = new OrderProduct();
+		item.setProductId(productId);
+		item.setPrice(price);
+		item.setQuantity(quantity);
+		return item;
+	}
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazonaws.saas.eks.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMappingException;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+
+class OrderProductConverterTest {
+	private final OrderProductConverter converter = new OrderProductConverter();
+	private final OrderProductAttributeConverter attributeConverter = new OrderProductAttributeConverter();
+
+	@AfterEach
+	void tearDown() {
+		OrderProductConverter.setBinaryWrites(false);
+	}
+
+	@Test
+	void writesJsonUntilBinaryWritesAreSwitchedOn() {
+		List<OrderProduct> items = Collections.singletonList(item());
+
+		assertThat(converter.convert(items).getS()).isEqualTo("[{\"productId\":\"p-1\",\"price\":12.5,\"quantity\":3}]");
+		assertThat(attributeConverter.transformFrom(items).s()).isEqualTo(converter.convert(items).getS());
+
+		OrderProductConverter.setBinaryWrites(true);
+
+		assertThat(converter.convert(items).getB()).isNotNull();
+		assertThat(attributeConverter.transformFrom(items).b()).isNotNull();
+	}
+
+	@Test
+	void readsBinaryAndJsonLineItems() {
+		OrderProduct item = item();
+		List<OrderProduct> items = Collections.singletonList(item);
+
+		assertThat(converter.unconvert(converter.convert(items))).usingRecursiveFieldByFieldElementComparator()
+				.containsExactly(item);
+		OrderProductConverter.setBinaryWrites(true);
+		assertThat(converter.unconvert(converter.convert(items))).usingRecursiveFieldByFieldElementComparator()
+				.containsExactly(item);
+		assertThat(attributeConverter.transformTo(attributeConverter.transformFrom(items)))
+				.usingRecursiveFieldByFieldElementComparator().containsExactly(item);
+		assertThat(converter.unconvert(new AttributeValue("[{\"productId\":\"p-1\",\"price\":12.5,\"quantity\":3}]")))
+				.usingRecursiveFieldByFieldElementComparator().containsExactly(item);
+	}
+
+	@Test
+	void failsOnLineItemsItCannotRead() {
+		assertThatThrownBy(() -> converter.unconvert(new AttributeValue("[{")))
+				.isInstanceOf(DynamoDBMappingException.class);
+		assertThatThrownBy(() -> converter.unconvert(new AttributeValue().withB(ByteBuffer.wrap(new byte[] { 9 }))))
+				.isInstanceOf(DynamoDBMappingException.class);
+		assertThatThrownBy(() -> converter.unconvert(new AttributeValue().withN("1")))
+				.isInstanceOf(DynamoDBMappingException.class);
+	}
+
+	private static OrderProduct item() {
+		OrderProduct item = new OrderProduct();
+		item.setProductId("p-1");
+		item.setPrice(12.5);
+		item.setQuantity(3);
+		return item;
+	}
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazonaws.saas.eks.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.amazonaws.saas.eks.exception.InvalidPageTokenException;
+import com.amazonaws.saas.eks.model.Order;
+
+class CreatedAtRangeTest {
+	private static final Instant FROM = Instant.parse("2024-05-01T10:00:00Z");
+	private static final Instant TO = Instant.parse("2024-05-03T08:30:00.250Z");
+
+	@Test
+	void formatsTheBoundsAsCreatedAt() {
+		CreatedAtRange range = CreatedAtRange.of("tenant1", FROM, TO, null);
+
+		assertThat(range.getFrom()).isEqualTo("2024-05-01T10:00:00.000Z");
+		assertThat(range.getTo()).isEqualTo("2024-05-03T08:30:00.250Z");
+	}
+
+	@Test
+	void readsTheDaysFromTheLastBackToTheFirst() {
+		CreatedAtRange range = CreatedAtRange.of("tenant1", FROM, TO, null);
+		List<String> days = new ArrayList<>();
+		do {
+			days.add(range.getDay());
+		} while (range.previousDay());
+
+		assertThat(days).containsExactly("2024-05-03", "2024-05-02", "2024-05-01");
+		assertThat(range.takeStartKey()).isNull();
+	}
+
+	@Test
+	void continuesFromThePageToken() {
+		Order last = order("01HX0000000000000000000000", "2024-05-02T23:59:59.999Z", "2024-05-02");
+		String token = CreatedAtRange.of("tenant1", FROM, TO, null).nextToken(last);
+
+		CreatedAtRange range = CreatedAtRange.of("tenant1", FROM, TO, token);
+
+		assertThat(range.getDay()).isEqualTo("2024-05-02");
+		assertThat(range.takeStartKey()).containsEntry("OrderId", last.getId())
+				.containsEntry("CreatedDate", "2024-05-02").containsEntry("CreatedAt", last.getCreatedAt());
+		assertThat(range.takeStartKey()).isNull();
+		assertThat(range.previousDay()).isTrue();
+		assertThat(range.getDay()).isEqualTo("2024-05-01");
+		assertThat(range.previousDay()).isFalse();
+	}
+
+	@Test
+	void rejectsATokenOutsideTheRange() {
+		Order last = order("01HX0000000000000000000000", "2024-05-04T00:00:00.000Z", "2024-05-04");
+		String token = CreatedAtRange.of("tenant1", FROM, Instant.parse("2024-05-05T00:00:00Z"), null)
+				.nextToken(last);
+
+		assertThatThrownBy(() -> CreatedAtRange.of("tenant1", FROM, TO, token))
+				.isInstanceOf(InvalidPageTokenException.class);
+	}
+
+	@Test
+	void rejectsATokenWithoutACreatedDate() {
+		Order last = order("01HX0000000000000000000000", "2024-05-02T00:00:00.000Z", "yesterday");
+		String token = CreatedAtRange.of("tenant1", FROM, TO, null).nextToken(last);
+
+		assertThatThrownBy(() -> CreatedAtRange.of("tenant1", FROM, TO, token))
+				.isInstanceOf(InvalidPageTokenException.class);
+	}
+
+	@Test
+	void rejectsATokenOfAnotherTenant() {
+		Order last = order("01HX0000000000000000000000", "2024-05-02T00:00:00.000Z", "2024-05-02");
+		String token = CreatedAtRange.of("tenant1", FROM, TO, null).nextToken(last);
+
+		assertThatThrownBy(() -> CreatedAtRange.of("tenant2", FROM, TO, token))
+				.isInstanceOf(InvalidPageTokenException.class);
+	}
+
+	@Test
+	void stampsANewOrderWithATimeOrderedId() {
+		Order order = CreatedAtRange.stamp(new Order());
+
+		assertThat(order.getCreatedAt()).matches("\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2}:\\d{2}\\.\\d{3}Z");
+		assertThat(order.getCreatedDate()).isEqualTo(order.getCreatedAt().substring(0, 10));
+		assertThat(order.getId().substring(0, 10)).isEqualTo(
+				Ulid.generate(Instant.parse(order.getCreatedAt()).toEpochMilli()).substring(0, 10));
+	}
+
+	@Test
+	void keepsTheIdAndCreationTimeOfAnExistingOrder() {
+		Order order = CreatedAtRange.stamp(order("order-1", "2024-05-02T00:00:00.000Z", "2024-05-02"));
+
+		assertThat(order.getId()).isEqualTo("order-1");
+		assertThat(order.getCreatedAt()).isEqualTo("2024-05-02T00:00:00.000Z");
+	}
+
+	private static Order order(String id, String createdAt, String createdDate) {
+		Order order = new Order();
+		order.setId(id);
+		order.setCreatedAt(createdAt);
+		order.setCreatedDate(createdDate);
+		return order;
+	}
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazonaws.saas.eks.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class UlidTest {
+
+	@Test
+	void startsWithTheEncodedTimestamp() {
+		assertThat(Ulid.generate(0)).startsWith("0000000000");
+		assertThat(Ulid.generate(1469918176385L)).startsWith("01ARYZ6S41");
+		assertThat(Ulid.generate((1L << 48) - 1)).startsWith("7ZZZZZZZZZ");
+	}
+
+	@Test
+	void consistsOf26CrockfordBase32Characters() {
+		for (int i = 0; i < 1000; i++) {
+			assertThat(Ulid.generate(System.currentTimeMillis())).matches("[0-9A-HJKMNP-TV-Z]{26}");
+		}
+	}
+
+	@Test
+	void sortsByCreationTime() {
+		String earlier = Ulid.generate(1700000000000L);
+		String later = Ulid.generate(1700000000001L);
+
+		assertThat(earlier).isLessThan(later);
+	}
+
+	@Test
+	void differsWithinTheSameMillisecond() {
+		Set<String> ids = new HashSet<>();
+		for (int i = 0; i < 10000; i++) {
+			ids.add(Ulid.generate(1700000000000L));
+		}
+
+		assertThat(ids).hasSize(10000);
+	}
+}
@@ -19,12 +19,12 @@ package com.amazonaws.saas.eks.auth;
 import java.io.IOException;
 
 import javax.servlet.FilterChain;
+import javax.servlet.GenericFilter;
 import javax.servlet.ServletException;
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
 import javax.servlet.http.HttpServletRequest;
 
-import org.apache.catalina.servlet4preview.GenericFilter;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.springframework.security.core.Authentication;
@@ -50,6 +50,10 @@ public class AuthFilter extends GenericFilter {
 			authentication = this.cognitoIdTokenProcessor.authenticate((HttpServletRequest) request);
 			if (authentication != null) {
 				SecurityContextHolder.getContext().setAuthentication(authentication);
+				if (authentication instanceof JwtAuth) {
+					request.setAttribute(TenantContext.REQUEST_ATTRIBUTE,
+							((JwtAuth) authentication).getTenantContext());
+				}
 			}
 		} catch (Exception var6) {
 			logger.error("Cognito ID Token processing error", var6);
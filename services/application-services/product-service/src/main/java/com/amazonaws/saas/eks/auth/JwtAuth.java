@@ -26,11 +26,14 @@ public class JwtAuth extends AbstractAuthenticationToken {
 
 	private final Object principal;
 	private JWTClaimsSet jwtClaimsSet;
+	private TenantContext tenantContext;
 
-	public JwtAuth(Object principal, JWTClaimsSet jwtClaimsSet, Collection<? extends GrantedAuthority> authorities) {
+	public JwtAuth(Object principal, JWTClaimsSet jwtClaimsSet, TenantContext tenantContext,
+			Collection<? extends GrantedAuthority> authorities) {
 		super(authorities);
 		this.principal = principal;
 		this.jwtClaimsSet = jwtClaimsSet;
+		this.tenantContext = tenantContext;
 		super.setAuthenticated(true);
 	}
 
@@ -45,4 +48,8 @@ public class JwtAuth extends AbstractAuthenticationToken {
 	public JWTClaimsSet getJwtClaimsSet() {
 		return this.jwtClaimsSet;
 	}
+
+	public TenantContext getTenantContext() {
+		return this.tenantContext;
+	}
 }
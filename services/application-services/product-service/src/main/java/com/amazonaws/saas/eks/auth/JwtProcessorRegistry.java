@@ -0,0 +1,157 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazonaws.saas.eks.auth;
+
+import static com.nimbusds.jose.JWSAlgorithm.RS256;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.annotation.PreDestroy;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.jwk.source.JWKSourceBuilder;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jose.util.DefaultResourceRetriever;
+import com.nimbusds.jose.util.ResourceRetriever;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.proc.BadJWTException;
+import com.nimbusds.jwt.proc.ConfigurableJWTProcessor;
+import com.nimbusds.jwt.proc.DefaultJWTClaimsVerifier;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+
+/**
+ * Holds one long-lived JWT processor per trusted token issuer. Each processor
+ * is backed by a cached JWK set that is refreshed ahead of expiry, and
+ * re-fetched at most once per rate limit interval when a token presents an
+ * unknown key id.
+ * 
+ * The trusted issuers are the configured trustedIssuers plus the issuer of the
+ * configured userPoolId. Their processors are built at startup and looked up
+ * from an immutable map, so tokens from any other issuer are rejected before a
+ * JWK set is ever fetched. The service does not start without a trusted issuer.
+ */
+@Component
+public class JwtProcessorRegistry {
+	private static final Logger logger = LogManager.getLogger(JwtProcessorRegistry.class);
+	private static final String JWKS_PATH = "/.well-known/jwks.json";
+
+	private final JwtConfig jwtConfiguration;
+	private final ResourceRetriever resourceRetriever;
+	private final Map<String, ConfigurableJWTProcessor<SecurityContext>> trustedProcessors;
+	private final List<JWKSource<SecurityContext>> keySources = new CopyOnWriteArrayList<>();
+
+	@Autowired
+	public JwtProcessorRegistry(JwtConfig jwtConfiguration) {
+		this(jwtConfiguration, new DefaultResourceRetriever(jwtConfiguration.getConnectionTimeout(),
+				jwtConfiguration.getReadTimeout()));
+	}
+
+	public JwtProcessorRegistry(JwtConfig jwtConfiguration, ResourceRetriever resourceRetriever) {
+		this.jwtConfiguration = jwtConfiguration;
+		this.resourceRetriever = resourceRetriever;
+
+		Set<String> issuers = new LinkedHashSet<>(jwtConfiguration.getTrustedIssuers());
+		if (jwtConfiguration.getUserPoolId() != null && jwtConfiguration.getRegion() != null) {
+			issuers.add(jwtConfiguration.getCognitoIdentityPoolUrl());
+		}
+		if (issuers.isEmpty()) {
+			throw new IllegalStateException("No trusted token issuers configured, set "
+					+ "com.amazonaws.saas.eks.trusted-issuers or com.amazonaws.saas.eks.user-pool-id and region");
+		}
+
+		Map<String, ConfigurableJWTProcessor<SecurityContext>> processors = new HashMap<>();
+		for (String issuer : issuers) {
+			processors.put(issuer, createProcessor(issuer));
+		}
+		this.trustedProcessors = Collections.unmodifiableMap(processors);
+	}
+
+	/**
+	 * Method to retrieve the JWT processor for a trusted issuer
+	 * 
+	 * @param issuer
+	 * @return ConfigurableJWTProcessor
+	 * @throws BadJWTException if the issuer is not trusted
+	 */
+	public ConfigurableJWTProcessor<SecurityContext> getProcessor(String issuer) throws BadJWTException {
+		if (issuer == null) {
+			throw new BadJWTException("Missing token issuer");
+		}
+
+		ConfigurableJWTProcessor<SecurityContext> processor = trustedProcessors.get(issuer);
+		if (processor == null) {
+			throw new BadJWTException("Untrusted token issuer: " + issuer);
+		}
+		return processor;
+	}
+
+	/**
+	 * Method to stop the background JWK set refresh of all processors
+	 */
+	@PreDestroy
+	public void close() {
+		for (JWKSource<SecurityContext> keySource : keySources) {
+			try {
+				if (keySource instanceof Closeable) {
+					((Closeable) keySource).close();
+				}
+			} catch (IOException e) {
+				logger.warn("Unable to close JWK source", e);
+			}
+		}
+	}
+
+	private ConfigurableJWTProcessor<SecurityContext> createProcessor(String issuer) {
+		URL jwkSetURL;
+		try {
+			jwkSetURL = URI.create(issuer + JWKS_PATH).toURL();
+		} catch (IllegalArgumentException | MalformedURLException e) {
+			throw new IllegalArgumentException("Invalid token issuer: " + issuer, e);
+		}
+		logger.info("Creating JWT processor for issuer: " + issuer);
+
+		JWKSource<SecurityContext> keySource = JWKSourceBuilder.<SecurityContext>create(jwkSetURL, resourceRetriever)
+				.cache(jwtConfiguration.getJwkCacheTimeToLive(), jwtConfiguration.getJwkCacheRefreshTimeout())
+				.refreshAheadCache(jwtConfiguration.getJwkRefreshAheadTime(), true)
+				.rateLimited(jwtConfiguration.getJwkRateLimitInterval())
+				.build();
+		keySources.add(keySource);
+
+		ConfigurableJWTProcessor<SecurityContext> jwtProcessor = new DefaultJWTProcessor<>();
+		jwtProcessor.setJWSKeySelector(new JWSVerificationKeySelector<>(RS256, keySource));
+		jwtProcessor.setJWTClaimsSetVerifier(
+				new DefaultJWTClaimsVerifier<>(new JWTClaimsSet.Builder().issuer(issuer).build(), null));
+		return jwtProcessor;
+	}
+}
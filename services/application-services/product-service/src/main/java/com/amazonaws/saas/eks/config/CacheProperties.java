@@ -0,0 +1,97 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazonaws.saas.eks.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "com.amazonaws.saas.eks.cache")
+public class CacheProperties {
+	private long maximumSize = 10000;
+	private long timeToLive = 30000;
+	private long maximumTenants = 1000;
+	private long responseMaximumSize = 67108864;
+	private long notFoundMaximumSize = 10000;
+	private long notFoundTimeToLive = 5000;
+	private long staleMaximumSize = 10000;
+	private long staleTimeToLive = 3600000;
+
+	public long getMaximumSize() {
+		return maximumSize;
+	}
+
+	public void setMaximumSize(long maximumSize) {
+		this.maximumSize = maximumSize;
+	}
+
+	public long getTimeToLive() {
+		return timeToLive;
+	}
+
+	public void setTimeToLive(long timeToLive) {
+		this.timeToLive = timeToLive;
+	}
+
+	public long getMaximumTenants() {
+		return maximumTenants;
+	}
+
+	public void setMaximumTenants(long maximumTenants) {
+		this.maximumTenants = maximumTenants;
+	}
+
+	public long getResponseMaximumSize() {
+		return responseMaximumSize;
+	}
+
+	public void setResponseMaximumSize(long responseMaximumSize) {
+		this.responseMaximumSize = responseMaximumSize;
+	}
+
+	public long getNotFoundMaximumSize() {
+		return notFoundMaximumSize;
+	}
+
+	public void setNotFoundMaximumSize(long notFoundMaximumSize) {
+		this.notFoundMaximumSize = notFoundMaximumSize;
+	}
+
+	public long getNotFoundTimeToLive() {
+		return notFoundTimeToLive;
+	}
+
+	public void setNotFoundTimeToLive(long notFoundTimeToLive) {
+		this.notFoundTimeToLive = notFoundTimeToLive;
+	}
+
+	public long getStaleMaximumSize() {
+		return staleMaximumSize;
+	}
+
+	public void setStaleMaximumSize(long staleMaximumSize) {
+		this.staleMaximumSize = staleMaximumSize;
+	}
+
+	public long getStaleTimeToLive() {
+		return staleTimeToLive;
+	}
+
+	public void setStaleTimeToLive(long staleTimeToLive) {
+		this.staleTimeToLive = staleTimeToLive;
+	}
+}
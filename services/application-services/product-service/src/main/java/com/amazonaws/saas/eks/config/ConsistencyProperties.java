@@ -0,0 +1,73 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazonaws.saas.eks.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "com.amazonaws.saas.eks.consistency")
+public class ConsistencyProperties {
+	private String defaultMode = "eventual";
+	private List<String> strongTiers = new ArrayList<String>();
+	private String sessionSecret;
+	private long sessionWindow = 5000;
+	private int sessionMaxKeys = 20;
+
+	public String getDefaultMode() {
+		return defaultMode;
+	}
+
+	public void setDefaultMode(String defaultMode) {
+		this.defaultMode = defaultMode;
+	}
+
+	public List<String> getStrongTiers() {
+		return strongTiers;
+	}
+
+	public void setStrongTiers(List<String> strongTiers) {
+		this.strongTiers = strongTiers;
+	}
+
+	public String getSessionSecret() {
+		return sessionSecret;
+	}
+
+	public void setSessionSecret(String sessionSecret) {
+		this.sessionSecret = sessionSecret;
+	}
+
+	public long getSessionWindow() {
+		return sessionWindow;
+	}
+
+	public void setSessionWindow(long sessionWindow) {
+		this.sessionWindow = sessionWindow;
+	}
+
+	public int getSessionMaxKeys() {
+		return sessionMaxKeys;
+	}
+
+	public void setSessionMaxKeys(int sessionMaxKeys) {
+		this.sessionMaxKeys = sessionMaxKeys;
+	}
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazonaws.saas.eks.controller;
+
+import java.util.List;
+
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+/**
+ * Media types the product endpoints produce besides application/json, for
+ * callers that prefer a compact binary representation
+ */
+public final class ContentTypes {
+	public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+	public static final MediaType APPLICATION_SMILE = MediaType.valueOf(APPLICATION_SMILE_VALUE);
+
+	private static final List<MediaType> PRODUCIBLE = List.of(MediaType.APPLICATION_JSON, MediaType.APPLICATION_CBOR,
+			APPLICATION_SMILE);
+
+	private ContentTypes() {
+	}
+
+	/**
+	 * Method to pick the media type of a response written without a message
+	 * converter, the same way Spring MVC picks one for a converted response:
+	 * the most specific accepted type with the highest quality wins, and JSON
+	 * when the client accepts anything or sent no usable Accept header.
+	 * 
+	 * @param accept the Accept header
+	 * @return MediaType
+	 */
+	public static MediaType negotiate(String accept) {
+		if (accept == null || accept.isEmpty()) {
+			return MediaType.APPLICATION_JSON;
+		}
+
+		List<MediaType> accepted;
+		try {
+			accepted = MediaType.parseMediaTypes(accept);
+		} catch (InvalidMediaTypeException e) {
+			return MediaType.APPLICATION_JSON;
+		}
+		MediaType.sortBySpecificityAndQuality(accepted);
+		for (MediaType acceptedType : accepted) {
+			if (acceptedType.getQualityValue() == 0) {
+				continue;
+			}
+			for (MediaType producible : PRODUCIBLE) {
+				if (acceptedType.isCompatibleWith(producible)) {
+					return producible;
+				}
+			}
+		}
+		return MediaType.APPLICATION_JSON;
+	}
+
+	/**
+	 * Method to tell whether a response may be gzip compressed, which it may
+	 * unless gzip is missing from the Accept-Encoding header or has a quality of
+	 * zero
+	 * 
+	 * @param acceptEncoding the Accept-Encoding header
+	 * @return boolean
+	 */
+	public static boolean acceptsGzip(String acceptEncoding) {
+		if (acceptEncoding == null) {
+			return false;
+		}
+		for (String coding : acceptEncoding.split(",")) {
+			String[] parts = coding.trim().split(";");
+			if (parts[0].trim().equalsIgnoreCase("gzip")) {
+				return parts.length == 1 || !parts[1].trim().matches("q=0(\\.0*)?");
+			}
+		}
+		return false;
+	}
+}
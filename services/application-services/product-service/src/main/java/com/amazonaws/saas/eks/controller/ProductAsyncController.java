@@ -0,0 +1,250 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazonaws.saas.eks.controller;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.amazonaws.saas.eks.auth.TokenManager;
+import com.amazonaws.saas.eks.model.PagedResult;
+import com.amazonaws.saas.eks.model.Product;
+import com.amazonaws.saas.eks.model.ProductPatch;
+import com.amazonaws.saas.eks.service.ProductAsyncService;
+
+/**
+ * Non-blocking variant of {@link ProductController}, serving the same endpoints
+ * when com.amazonaws.saas.eks.dynamodb.async-enabled is set. The servlet thread
+ * is released while DynamoDB is called and the response is written when the
+ * returned future completes.
+ */
+@CrossOrigin(origins = "*", allowedHeaders = "*")
+@RestController
+@ConditionalOnProperty(prefix = "com.amazonaws.saas.eks.dynamodb", name = "async-enabled", havingValue = "true")
+public class ProductAsyncController {
+	private static final Logger logger = LogManager.getLogger(ProductAsyncController.class);
+
+	@Autowired
+	private ProductAsyncService productAsyncService;
+
+	@Autowired
+	private TokenManager tokenManager;
+
+	@Autowired
+	private ReadConsistency readConsistency;
+
+	/**
+	 * Method to retrieve one page of products for a tenant. The token for the
+	 * next page, if any, is returned in the X-Next-Token header.
+	 * 
+	 * @param limit
+	 * @param nextToken
+	 * @param fields
+	 * @param request
+	 * @param response
+	 * @return CompletableFuture<List<Product>>
+	 */
+	@GetMapping(value = "{companyName}/products", produces = { MediaType.APPLICATION_JSON_VALUE,
+			MediaType.APPLICATION_CBOR_VALUE, ContentTypes.APPLICATION_SMILE_VALUE })
+	public CompletableFuture<List<Product>> getProducts(@RequestParam(value = "limit", required = false) Integer limit,
+			@RequestParam(value = "nextToken", required = false) String nextToken,
+			@RequestParam(value = "fields", required = false) String fields, HttpServletRequest request,
+			HttpServletResponse response) {
+		String tenantId = tokenManager.getTenantId(request);
+
+		if (tenantId != null && !tenantId.isEmpty()) {
+			return productAsyncService.getProducts(tenantId, limit, nextToken, fields).thenApply(page -> {
+				if (page == null) {
+					return null;
+				}
+				if (page.getNextToken() != null) {
+					response.setHeader(PagedResult.NEXT_TOKEN_HEADER, page.getNextToken());
+				}
+				return page.getItems();
+			});
+		}
+
+		return CompletableFuture.completedFuture(null);
+	}
+
+	/**
+	 * Method that retrieves a tenant product by productId.
+	 * 
+	 * @param productId
+	 * @param fields
+	 * @param request
+	 * @return CompletableFuture<Product>
+	 */
+	@GetMapping(value = "{companyName}/products/{productId}", produces = { MediaType.APPLICATION_JSON_VALUE,
+			MediaType.APPLICATION_CBOR_VALUE, ContentTypes.APPLICATION_SMILE_VALUE })
+	public CompletableFuture<Product> getProductById(@PathVariable("productId") String productId,
+			@RequestParam(value = "fields", required = false) String fields, HttpServletRequest request) {
+		String tenantId = tokenManager.getTenantId(request);
+
+		if (tenantId != null && !tenantId.isEmpty()) {
+			return productAsyncService.getProductById(productId, tenantId, fields,
+					readConsistency.isConsistent(request, tenantId, productId));
+		}
+
+		return CompletableFuture.completedFuture(null);
+	}
+
+	/**
+	 * Method to save the tenant product, with an X-Consistency-Token for the
+	 * product in the response
+	 * 
+	 * @param product
+	 * @param request
+	 * @param response
+	 * @return CompletableFuture<Product>
+	 */
+	@PostMapping(value = "{companyName}/products", produces = { MediaType.APPLICATION_JSON_VALUE,
+			MediaType.APPLICATION_CBOR_VALUE, ContentTypes.APPLICATION_SMILE_VALUE })
+	public CompletableFuture<Product> saveProduct(@RequestBody Product product, HttpServletRequest request,
+			HttpServletResponse response) {
+		String tenantId = tokenManager.getTenantId(request);
+		Product newProduct = new Product();
+
+		if (tenantId != null && !tenantId.isEmpty()) {
+			newProduct.setTenantId(tenantId);
+			newProduct.setName(product.getName());
+			newProduct.setPrice(product.getPrice());
+			newProduct.setPictureUrl(product.getPictureUrl());
+
+			return productAsyncService.save(newProduct).thenApply(written -> {
+				readConsistency.written(request, response, tenantId, written.getProductId());
+				return written;
+			});
+		}
+
+		return CompletableFuture.completedFuture(newProduct);
+	}
+
+	/**
+	 * Method to update a tenant product, with an X-Consistency-Token for the
+	 * product in the response
+	 * 
+	 * @param product
+	 * @param request
+	 * @param response
+	 * @return CompletableFuture<Product>
+	 */
+	@PutMapping(value = "{companyName}/products", produces = { MediaType.APPLICATION_JSON_VALUE,
+			MediaType.APPLICATION_CBOR_VALUE, ContentTypes.APPLICATION_SMILE_VALUE })
+	public CompletableFuture<Product> updateProduct(@RequestBody Product product, HttpServletRequest request,
+			HttpServletResponse response) {
+		String tenantId = tokenManager.getTenantId(request);
+		Product updateProduct = new Product();
+
+		if (tenantId != null && !tenantId.isEmpty()) {
+			updateProduct.setProductId(product.getProductId());
+			updateProduct.setTenantId(tenantId);
+			updateProduct.setName(product.getName());
+			updateProduct.setPrice(product.getPrice());
+			updateProduct.setPictureUrl(product.getPictureUrl());
+			updateProduct.setVersion(product.getVersion());
+
+			return productAsyncService.update(updateProduct).thenApply(written -> {
+				readConsistency.written(request, response, tenantId, written.getProductId());
+				return written;
+			});
+		}
+
+		return CompletableFuture.completedFuture(updateProduct);
+	}
+
+	/**
+	 * Method to change only the attributes of a tenant product present in the
+	 * body, with an X-Consistency-Token for the product in the response
+	 * 
+	 * @param productId
+	 * @param patch
+	 * @param request
+	 * @param response
+	 * @return CompletableFuture<Product>
+	 */
+	@PatchMapping(value = "{companyName}/products/{productId}", produces = { MediaType.APPLICATION_JSON_VALUE,
+			MediaType.APPLICATION_CBOR_VALUE, ContentTypes.APPLICATION_SMILE_VALUE })
+	public CompletableFuture<Product> patchProduct(@PathVariable("productId") String productId,
+			@RequestBody ProductPatch patch, HttpServletRequest request, HttpServletResponse response) {
+		String tenantId = tokenManager.getTenantId(request);
+
+		if (tenantId != null && !tenantId.isEmpty()) {
+			ProductController.validate(patch);
+			return productAsyncService.patch(productId, tenantId, patch).thenApply(patched -> {
+				readConsistency.written(request, response, tenantId, productId);
+				return patched;
+			});
+		}
+
+		return CompletableFuture.completedFuture(null);
+	}
+
+	/**
+	 * Method to delete a tenant product, with an X-Consistency-Token for the
+	 * product in the response
+	 * 
+	 * @param product
+	 * @param request
+	 * @param response
+	 * @return CompletableFuture<Void>
+	 */
+	@DeleteMapping(value = "{companyName}/products")
+	public CompletableFuture<Void> deleteProduct(@RequestBody Product product, HttpServletRequest request,
+			HttpServletResponse response) {
+		String tenantId = tokenManager.getTenantId(request);
+
+		if (tenantId != null && !tenantId.isEmpty()) {
+			product.setTenantId(tenantId);
+			return productAsyncService.delete(product).thenRun(
+					() -> readConsistency.written(request, response, tenantId, product.getProductId()));
+		}
+
+		logger.error("TenantId: " + tenantId + "-Invalid tenant. Delete unsuccessful");
+		return CompletableFuture.completedFuture(null);
+	}
+
+	/**
+	 * Hearbeat method to check if product service is up and running
+	 * 
+	 * @return
+	 */
+	@RequestMapping("{tenantId}/products/health")
+	public String health() {
+		return "\"Product service is up!\"";
+	}
+
+}
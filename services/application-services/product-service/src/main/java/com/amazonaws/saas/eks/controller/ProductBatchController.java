@@ -0,0 +1,134 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazonaws.saas.eks.controller;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.amazonaws.saas.eks.auth.TokenManager;
+import com.amazonaws.saas.eks.config.DynamodbProperties;
+import com.amazonaws.saas.eks.exception.InvalidBatchRequestException;
+import com.amazonaws.saas.eks.exception.ServiceUnavailableException;
+import com.amazonaws.saas.eks.model.BatchGetRequest;
+import com.amazonaws.saas.eks.model.BulkWriteSummary;
+import com.amazonaws.saas.eks.model.Product;
+import com.amazonaws.saas.eks.service.ProductBulkReader;
+import com.amazonaws.saas.eks.service.ProductService;
+
+@CrossOrigin(origins = "*", allowedHeaders = "*")
+@RestController
+public class ProductBatchController {
+	private static final Logger logger = LogManager.getLogger(ProductBatchController.class);
+
+	private static final String TEXT_CSV_VALUE = "text/csv";
+	private static final MediaType TEXT_CSV = MediaType.parseMediaType(TEXT_CSV_VALUE);
+
+	@Autowired
+	private ProductService productService;
+
+	@Autowired
+	private TokenManager tokenManager;
+
+	@Autowired
+	private DynamodbProperties dynamodbProperties;
+
+	/**
+	 * Method to retrieve several tenant products in one call. Products that do not
+	 * exist are left out of the result.
+	 * 
+	 * @param batchGetRequest
+	 * @param request
+	 * @return List<Product>
+	 */
+	@PostMapping(value = "{companyName}/products:batchGet", produces = { MediaType.APPLICATION_JSON_VALUE,
+			MediaType.APPLICATION_CBOR_VALUE, ContentTypes.APPLICATION_SMILE_VALUE })
+	public List<Product> batchGetProducts(@RequestBody BatchGetRequest batchGetRequest, HttpServletRequest request) {
+		List<String> productIds = batchGetRequest.getProductIds();
+
+		if (productIds == null || productIds.isEmpty()) {
+			return Collections.emptyList();
+		}
+		if (productIds.size() > dynamodbProperties.getMaxBatchGetSize()) {
+			throw new InvalidBatchRequestException(
+					"At most " + dynamodbProperties.getMaxBatchGetSize() + " productIds can be requested at once");
+		}
+
+		String tenantId = null;
+		List<Product> products = null;
+
+		try {
+			tenantId = tokenManager.getTenantId(request);
+
+			if (tenantId != null && !tenantId.isEmpty()) {
+				products = productService.getProductsByIds(productIds, tenantId);
+				return products;
+			}
+		} catch (ServiceUnavailableException e) {
+			throw e;
+		} catch (Exception e) {
+			logger.error("TenantId: " + tenantId + "-batch get products failed: ", e);
+		}
+
+		return products;
+	}
+
+	/**
+	 * Method to upsert and delete tenant products in bulk from a newline delimited
+	 * JSON or CSV upload. Rows carry op (upsert or delete), productId, name, price
+	 * and pictureUrl; the tenant always comes from the caller's token.
+	 * 
+	 * @param request
+	 * @return BulkWriteSummary
+	 * @throws IOException
+	 */
+	@PostMapping(value = "{companyName}/products:bulk", consumes = { MediaType.APPLICATION_NDJSON_VALUE,
+			TEXT_CSV_VALUE }, produces = { MediaType.APPLICATION_JSON_VALUE })
+	public BulkWriteSummary bulkWriteProducts(HttpServletRequest request) throws IOException {
+		String tenantId = tokenManager.getTenantId(request);
+
+		if (tenantId == null || tenantId.isEmpty()) {
+			logger.error("TenantId: " + tenantId + "-bulk write products failed: no tenant");
+			return null;
+		}
+
+		Charset charset = request.getCharacterEncoding() != null ? Charset.forName(request.getCharacterEncoding())
+				: StandardCharsets.UTF_8;
+		ProductBulkReader rows = MediaType.parseMediaType(request.getContentType()).isCompatibleWith(TEXT_CSV)
+				? ProductBulkReader.csv(request.getInputStream(), charset)
+				: ProductBulkReader.ndjson(request.getInputStream(), charset);
+
+		BulkWriteSummary summary = productService.bulkWrite(tenantId, rows);
+		logger.info("TenantId: " + tenantId + "-bulk write products received " + summary.getReceived() + ", failed "
+				+ summary.getFailed());
+		return summary;
+	}
+
+}
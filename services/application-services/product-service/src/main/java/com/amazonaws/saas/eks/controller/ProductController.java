@@ -16,30 +16,47 @@
  */
 package com.amazonaws.saas.eks.controller;
 
-import java.util.List;
-
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import com.amazonaws.saas.eks.auth.TokenManager;
+import com.amazonaws.saas.eks.controller.ProductListingCache.EncodedListing;
+import com.amazonaws.saas.eks.exception.InvalidFieldsException;
+import com.amazonaws.saas.eks.exception.InvalidPageTokenException;
+import com.amazonaws.saas.eks.exception.InvalidUpdateException;
+import com.amazonaws.saas.eks.exception.ItemNotFoundException;
+import com.amazonaws.saas.eks.exception.ServiceUnavailableException;
+import com.amazonaws.saas.eks.exception.VersionConflictException;
+import com.amazonaws.saas.eks.model.PagedResult;
 import com.amazonaws.saas.eks.model.Product;
+import com.amazonaws.saas.eks.model.ProductPatch;
 import com.amazonaws.saas.eks.service.ProductService;
+import com.amazonaws.saas.eks.service.StaleReads;
 
 @CrossOrigin(origins = "*", allowedHeaders = "*")
 @RestController
+@ConditionalOnProperty(prefix = "com.amazonaws.saas.eks.dynamodb", name = "async-enabled", havingValue = "false", matchIfMissing = true)
 public class ProductController {
 	private static final Logger logger = LogManager.getLogger(ProductController.class);
 
@@ -49,42 +66,88 @@ public class ProductController {
 	@Autowired
 	private TokenManager tokenManager;
 
+	@Autowired
+	private ProductListingCache productListingCache;
+
+	@Autowired
+	private ReadConsistency readConsistency;
+
 	/**
-	 * Method to retrieve all products for a tenant.
+	 * Method to retrieve one page of products for a tenant. The token for the
+	 * next page, if any, is returned in the X-Next-Token header. Answers 304 when
+	 * If-None-Match carries the tenant's current catalog ETag, and otherwise
+	 * serves the page from already encoded JSON, CBOR or Smile, as negotiated
+	 * through the Accept header, when it was requested before for the same
+	 * catalog version.
 	 * 
+	 * @param limit
+	 * @param nextToken
+	 * @param fields
 	 * @param request
-	 * @return List<Product>
+	 * @param response
+	 * @return ResponseEntity<byte[]> the products as an array
 	 */
-	@GetMapping(value = "{companyName}/products", produces = { MediaType.APPLICATION_JSON_VALUE })
-	public List<Product> getProducts(HttpServletRequest request) {
+	@GetMapping(value = "{companyName}/products", produces = { MediaType.APPLICATION_JSON_VALUE,
+			MediaType.APPLICATION_CBOR_VALUE, ContentTypes.APPLICATION_SMILE_VALUE })
+	public ResponseEntity<byte[]> getProducts(@RequestParam(value = "limit", required = false) Integer limit,
+			@RequestParam(value = "nextToken", required = false) String nextToken,
+			@RequestParam(value = "fields", required = false) String fields, HttpServletRequest request,
+			HttpServletResponse response) {
 		String tenantId = null;
-		List<Product> products = null;
 
 		try {
 			tenantId = tokenManager.getTenantId(request);
 
 			if (tenantId != null && !tenantId.isEmpty()) {
-				products = productService.getProducts(tenantId);
-				return products;
+				String eTag = productService.getCatalogETag(tenantId);
+				if (notModified(eTag, request, response)) {
+					return null;
+				}
+
+				MediaType mediaType = ContentTypes.negotiate(request.getHeader(HttpHeaders.ACCEPT));
+				String cacheKey = eTag != null
+						? ProductListingCache.key(tenantId, eTag, mediaType, limit, nextToken, fields)
+						: null;
+				EncodedListing listing = cacheKey != null ? productListingCache.get(cacheKey) : null;
+
+				if (listing == null) {
+					PagedResult<Product> page = productService.getProducts(tenantId, limit, nextToken, fields);
+					if (page == null) {
+						return null;
+					}
+					listing = productListingCache.encode(mediaType, page.getItems(), page.getNextToken());
+					if (cacheKey != null && !StaleReads.isStale()) {
+						productListingCache.put(cacheKey, listing);
+					}
+				}
+
+				return toResponse(listing, request);
 			}
+		} catch (InvalidPageTokenException | InvalidFieldsException | ServiceUnavailableException e) {
+			throw e;
 		} catch (Exception e) {
 			logger.error("TenantId: " + tenantId + "-get products failed: ", e);
-			return null;
 		}
 
-		return products;
+		return null;
 	}
 
 	/**
-	 * Method that retrieves a tenant product by productId.
+	 * Method that retrieves a tenant product by productId. Answers 304 when
+	 * If-None-Match carries the tenant's current catalog ETag, unless the read is
+	 * strongly consistent.
 	 * 
 	 * @param productId
+	 * @param fields
 	 * @param request
+	 * @param response
 	 * @return Product
 	 */
-	@GetMapping(value = "{companyName}/products/{productId}", produces = {
-			MediaType.APPLICATION_JSON_VALUE })
-	public Product getProductById(@PathVariable("productId") String productId, HttpServletRequest request) {
+	@GetMapping(value = "{companyName}/products/{productId}", produces = { MediaType.APPLICATION_JSON_VALUE,
+			MediaType.APPLICATION_CBOR_VALUE, ContentTypes.APPLICATION_SMILE_VALUE })
+	public Product getProductById(@PathVariable("productId") String productId,
+			@RequestParam(value = "fields", required = false) String fields, HttpServletRequest request,
+			HttpServletResponse response) {
 		String tenantId = null;
 		Product product = null;
 
@@ -92,9 +155,16 @@ public class ProductController {
 			tenantId = tokenManager.getTenantId(request);
 
 			if (tenantId != null && !tenantId.isEmpty()) {
-				product = productService.getProductById(productId, tenantId);
+				boolean consistentRead = readConsistency.isConsistent(request, tenantId, productId);
+				if (notModified(consistentRead ? null : productService.getCatalogETag(tenantId), request,
+						response)) {
+					return null;
+				}
+				product = productService.getProductById(productId, tenantId, fields, consistentRead);
 				return product;
 			}
+		} catch (InvalidFieldsException | ItemNotFoundException | ServiceUnavailableException e) {
+			throw e;
 		} catch (Exception e) {
 			logger.error("TenantId: " + tenantId + "-get product by ID failed: ", e);
 		}
@@ -103,14 +173,18 @@ public class ProductController {
 	}
 
 	/**
-	 * Method to save the tenant product
+	 * Method to save the tenant product. The X-Consistency-Token header of the
+	 * response lets the next reads of the product see this write.
 	 * 
 	 * @param product
 	 * @param request
+	 * @param response
 	 * @return Product
 	 */
-	@PostMapping(value = "{companyName}/products", produces = { MediaType.APPLICATION_JSON_VALUE })
-	public Product saveProduct(@RequestBody Product product, HttpServletRequest request) {
+	@PostMapping(value = "{companyName}/products", produces = { MediaType.APPLICATION_JSON_VALUE,
+			MediaType.APPLICATION_CBOR_VALUE, ContentTypes.APPLICATION_SMILE_VALUE })
+	public Product saveProduct(@RequestBody Product product, HttpServletRequest request,
+			HttpServletResponse response) {
 		String tenantId = null;
 		Product newProduct = new Product();
 
@@ -124,8 +198,11 @@ public class ProductController {
 				newProduct.setPictureUrl(product.getPictureUrl());
 
 				newProduct = productService.save(newProduct);
+				readConsistency.written(request, response, tenantId, newProduct.getProductId());
 				return newProduct;
 			}
+		} catch (ServiceUnavailableException | VersionConflictException e) {
+			throw e;
 		} catch (Exception e) {
 			logger.error("TenantId: " + tenantId + "-save product failed: ", e);
 		}
@@ -134,14 +211,19 @@ public class ProductController {
 	}
 
 	/**
-	 * Method to update a tenant product
+	 * Method to update a tenant product. The X-Consistency-Token header of the
+	 * response lets the next reads of the product see this write. With a version
+	 * in the body, the product is only updated at that version.
 	 * 
 	 * @param product
 	 * @param request
+	 * @param response
 	 * @return Product
 	 */
-	@PutMapping(value = "{companyName}/products", produces = { MediaType.APPLICATION_JSON_VALUE })
-	public Product updateProduct(@RequestBody Product product, HttpServletRequest request) {
+	@PutMapping(value = "{companyName}/products", produces = { MediaType.APPLICATION_JSON_VALUE,
+			MediaType.APPLICATION_CBOR_VALUE, ContentTypes.APPLICATION_SMILE_VALUE })
+	public Product updateProduct(@RequestBody Product product, HttpServletRequest request,
+			HttpServletResponse response) {
 		String tenantId = null;
 		Product updateProduct = new Product();
 
@@ -154,10 +236,14 @@ public class ProductController {
 				updateProduct.setName(product.getName());
 				updateProduct.setPrice(product.getPrice());
 				updateProduct.setPictureUrl(product.getPictureUrl());
+				updateProduct.setVersion(product.getVersion());
 
 				updateProduct = productService.update(updateProduct);
+				readConsistency.written(request, response, tenantId, updateProduct.getProductId());
 				return updateProduct;
 			}
+		} catch (ServiceUnavailableException | VersionConflictException e) {
+			throw e;
 		} catch (Exception e) {
 			logger.error("TenantId: " + tenantId + "-update product failed: ", e);
 		}
@@ -166,13 +252,54 @@ public class ProductController {
 	}
 
 	/**
-	 * Method to delete a tenant product
+	 * Method to change only the attributes of a tenant product present in the
+	 * body, which is read as a JSON merge patch. With a version in the body, the
+	 * patch is only applied if the product is still at that version, and
+	 * answered with 409 otherwise.
+	 * 
+	 * @param productId
+	 * @param patch
+	 * @param request
+	 * @param response
+	 * @return Product, with its new version
+	 */
+	@PatchMapping(value = "{companyName}/products/{productId}", produces = { MediaType.APPLICATION_JSON_VALUE,
+			MediaType.APPLICATION_CBOR_VALUE, ContentTypes.APPLICATION_SMILE_VALUE })
+	public Product patchProduct(@PathVariable("productId") String productId, @RequestBody ProductPatch patch,
+			HttpServletRequest request, HttpServletResponse response) {
+		String tenantId = null;
+		Product patchedProduct = null;
+
+		try {
+			tenantId = tokenManager.getTenantId(request);
+
+			if (tenantId != null && !tenantId.isEmpty()) {
+				validate(patch);
+				patchedProduct = productService.patch(productId, tenantId, patch);
+				readConsistency.written(request, response, tenantId, productId);
+				return patchedProduct;
+			}
+		} catch (InvalidUpdateException | ItemNotFoundException | VersionConflictException
+				| ServiceUnavailableException e) {
+			throw e;
+		} catch (Exception e) {
+			logger.error("TenantId: " + tenantId + "-patch product failed: ", e);
+		}
+
+		return patchedProduct;
+	}
+
+	/**
+	 * Method to delete a tenant product. The X-Consistency-Token header of the
+	 * response lets the next reads of the product see this delete.
 	 * 
 	 * @param product
 	 * @param request
+	 * @param response
 	 */
 	@DeleteMapping(value = "{companyName}/products")
-	public void deleteProduct(@RequestBody Product product, HttpServletRequest request) {
+	public void deleteProduct(@RequestBody Product product, HttpServletRequest request,
+			HttpServletResponse response) {
 		String tenantId = null;
 
 		try {
@@ -181,9 +308,12 @@ public class ProductController {
 			if (tenantId != null && !tenantId.isEmpty()) {
 				product.setTenantId(tenantId);
 				productService.delete(product);
+				readConsistency.written(request, response, tenantId, product.getProductId());
 			} else {
 				logger.error("TenantId: " + tenantId + "-Invalid tenant. Delete unsuccessful");
 			}
+		} catch (ServiceUnavailableException | VersionConflictException e) {
+			throw e;
 		} catch (Exception e) {
 			logger.error("TenantId: " + tenantId + "-delete product failed: ", e);
 		}
@@ -199,4 +329,44 @@ public class ProductController {
 		return "\"Product service is up!\"";
 	}
 
+	/**
+	 * A patch has to change something, and cannot remove the name or price
+	 */
+	static void validate(ProductPatch patch) {
+		if (!patch.isNameSet() && !patch.isPriceSet() && !patch.isPictureUrlSet()) {
+			throw new InvalidUpdateException("Patch does not change name, price or pictureUrl");
+		}
+		if (patch.isNameSet() && (patch.getName() == null || patch.getName().isEmpty())) {
+			throw new InvalidUpdateException("Product name cannot be removed");
+		}
+		if (patch.isPriceSet() && patch.getPrice() == null) {
+			throw new InvalidUpdateException("Product price cannot be removed");
+		}
+	}
+
+	/**
+	 * Lets the browser keep the response but revalidate it on every use, and
+	 * answers 304 when the client already holds the current catalog version.
+	 * Kept responses vary by Accept, as a product is sent as JSON, CBOR or Smile.
+	 */
+	static boolean notModified(String eTag, HttpServletRequest request, HttpServletResponse response) {
+		response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue());
+		response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+		return eTag != null && new ServletWebRequest(request, response).checkNotModified(eTag);
+	}
+
+	/**
+	 * Writes the encoded listing as is, compressed when the client accepts gzip
+	 */
+	static ResponseEntity<byte[]> toResponse(EncodedListing listing, HttpServletRequest request) {
+		ResponseEntity.BodyBuilder builder = ResponseEntity.ok().contentType(listing.getMediaType())
+				.varyBy(HttpHeaders.ACCEPT_ENCODING);
+		if (listing.getNextToken() != null) {
+			builder.header(PagedResult.NEXT_TOKEN_HEADER, listing.getNextToken());
+		}
+		if (ContentTypes.acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING))) {
+			return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(listing.getGzipBody());
+		}
+		return builder.body(listing.getBody());
+	}
 }
\ No newline at end of file
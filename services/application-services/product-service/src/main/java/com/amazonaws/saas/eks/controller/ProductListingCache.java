@@ -0,0 +1,185 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazonaws.saas.eks.controller;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.stereotype.Component;
+
+import com.amazonaws.saas.eks.config.CacheProperties;
+import com.amazonaws.saas.eks.model.Product;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Cache of encoded product listing responses as JSON, CBOR or Smile, keyed by
+ * tenant, catalog ETag, media type and request parameters, along with their
+ * gzip compressed form once a client asked for it. Listings are encoded with
+ * writers built once per media type. A catalog write changes the ETag, so
+ * entries of older catalog versions are never served again and age out. The
+ * cache is bounded by the total size of the encoded bodies; hit and miss
+ * counts are published under the "cache.gets" metric with
+ * cache=productListings.
+ */
+@Component
+public class ProductListingCache {
+	private static final String CACHE_NAME = "productListings";
+
+	private final Cache<String, EncodedListing> cache;
+	private final boolean enabled;
+	private final Map<MediaType, ObjectWriter> writers;
+
+	public ProductListingCache(CacheProperties cacheProperties, MeterRegistry meterRegistry,
+			ObjectMapper objectMapper, MappingJackson2CborHttpMessageConverter cborConverter,
+			MappingJackson2SmileHttpMessageConverter smileConverter) {
+		JavaType listingType = objectMapper.getTypeFactory().constructCollectionType(List.class, Product.class);
+		this.writers = Map.of(MediaType.APPLICATION_JSON, objectMapper.writerFor(listingType),
+				MediaType.APPLICATION_CBOR, cborConverter.getObjectMapper().writerFor(listingType),
+				ContentTypes.APPLICATION_SMILE, smileConverter.getObjectMapper().writerFor(listingType));
+		this.enabled = cacheProperties.getResponseMaximumSize() > 0 && cacheProperties.getTimeToLive() > 0;
+		this.cache = Caffeine.newBuilder()
+				.maximumWeight(cacheProperties.getResponseMaximumSize())
+				.weigher((String key, EncodedListing listing) -> listing.weight())
+				.expireAfterWrite(cacheProperties.getTimeToLive(), TimeUnit.MILLISECONDS)
+				.recordStats()
+				.build();
+		CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+	}
+
+	/**
+	 * Method to encode a page of products
+	 * 
+	 * @param mediaType one of the types {@link ContentTypes#negotiate(String)}
+	 *                  picks
+	 * @param products
+	 * @param nextToken
+	 * @return EncodedListing
+	 * @throws IOException
+	 */
+	public EncodedListing encode(MediaType mediaType, List<Product> products, String nextToken) throws IOException {
+		return new EncodedListing(mediaType, writers.get(mediaType).writeValueAsBytes(products), nextToken);
+	}
+
+	/**
+	 * Method to look up an encoded listing
+	 * 
+	 * @param key
+	 * @return EncodedListing, or null if it is not cached
+	 */
+	public EncodedListing get(String key) {
+		if (!enabled) {
+			return null;
+		}
+		return cache.getIfPresent(key);
+	}
+
+	/**
+	 * Method to keep an encoded listing
+	 * 
+	 * @param key
+	 * @param listing
+	 */
+	public void put(String key, EncodedListing listing) {
+		if (enabled) {
+			cache.put(key, listing);
+		}
+	}
+
+	public static String key(String tenantId, String eTag, MediaType mediaType, Integer limit, String nextToken,
+			String fields) {
+		return tenantId + "\u0000" + eTag + "\u0000" + mediaType + "\u0000" + limit + "\u0000" + nextToken
+				+ "\u0000" + fields;
+	}
+
+	/**
+	 * One page of products encoded as JSON, CBOR or Smile, with the token of the
+	 * page that follows it. The gzip compressed form is only made the first time
+	 * it is asked for, and then kept, so that clients that do not accept gzip
+	 * never pay for the compression.
+	 */
+	public static final class EncodedListing {
+		private final MediaType mediaType;
+		private final byte[] body;
+		private final String nextToken;
+		private volatile byte[] gzipBody;
+
+		public EncodedListing(MediaType mediaType, byte[] body, String nextToken) {
+			this.mediaType = mediaType;
+			this.body = body;
+			this.nextToken = nextToken;
+		}
+
+		public MediaType getMediaType() {
+			return mediaType;
+		}
+
+		public byte[] getBody() {
+			return body;
+		}
+
+		public byte[] getGzipBody() {
+			byte[] compressed = gzipBody;
+			if (compressed == null) {
+				synchronized (this) {
+					compressed = gzipBody;
+					if (compressed == null) {
+						compressed = gzip(body);
+						gzipBody = compressed;
+					}
+				}
+			}
+			return compressed;
+		}
+
+		public String getNextToken() {
+			return nextToken;
+		}
+
+		/**
+		 * Weighs the gzip form, made later, as large as the body, which it
+		 * hardly ever exceeds
+		 */
+		private int weight() {
+			return 2 * body.length;
+		}
+
+		private static byte[] gzip(byte[] body) {
+			ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4 + 64);
+			try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(compressed)) {
+				gzipOutputStream.write(body);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			return compressed.toByteArray();
+		}
+	}
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazonaws.saas.eks.controller;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.stereotype.Component;
+
+import com.amazonaws.saas.eks.auth.TenantContext;
+import com.amazonaws.saas.eks.config.ConsistencyProperties;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Decides whether a read by id is strongly consistent. An X-Read-Consistency
+ * header of strong or eventual decides for the request, otherwise a session
+ * token covering the key, or the tenant's tier being one of the strong tiers,
+ * makes the read strongly consistent and everything else reads eventually
+ * consistent.
+ * 
+ * A session token is returned in the X-Consistency-Token header of every write
+ * and lists the keys written with the time until which they are read
+ * consistently. It is signed with HMAC-SHA256, so it can only be presented by
+ * the tenant it was issued to and is accepted by every replica sharing the
+ * session secret.
+ */
+@Component
+public class ReadConsistency {
+	private static final Logger logger = LogManager.getLogger(ReadConsistency.class);
+
+	public static final String HEADER = "X-Read-Consistency";
+	public static final String TOKEN_HEADER = "X-Consistency-Token";
+	private static final String STRONG = "strong";
+	private static final String EVENTUAL = "eventual";
+	private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final ConsistencyProperties properties;
+	private final SecretKeySpec secret;
+
+	public ReadConsistency(ConsistencyProperties properties) {
+		this.properties = properties;
+
+		byte[] key;
+		if (properties.getSessionSecret() != null && !properties.getSessionSecret().isEmpty()) {
+			key = properties.getSessionSecret().getBytes(StandardCharsets.UTF_8);
+		} else {
+			logger.warn("No consistency session secret configured, session tokens are only honored by this replica");
+			key = new byte[32];
+			new SecureRandom().nextBytes(key);
+		}
+		this.secret = new SecretKeySpec(key, HMAC_ALGORITHM);
+	}
+
+	/**
+	 * Method to decide whether the read of a key is strongly consistent
+	 * 
+	 * @param request
+	 * @param tenantId
+	 * @param key
+	 * @return boolean
+	 */
+	public boolean isConsistent(HttpServletRequest request, String tenantId, String key) {
+		String mode = request.getHeader(HEADER);
+		if (STRONG.equalsIgnoreCase(mode)) {
+			return true;
+		}
+		if (EVENTUAL.equalsIgnoreCase(mode)) {
+			return false;
+		}
+
+		JsonNode keys = sessionKeys(request, tenantId);
+		if (keys != null && keys.path(key).asLong() > System.currentTimeMillis()) {
+			return true;
+		}
+
+		TenantContext tenantContext = TenantContext.from(request);
+		if (tenantContext != null && tenantContext.getTier() != null) {
+			for (String tier : properties.getStrongTiers()) {
+				if (tier.equalsIgnoreCase(tenantContext.getTier())) {
+					return true;
+				}
+			}
+		}
+
+		return STRONG.equalsIgnoreCase(properties.getDefaultMode());
+	}
+
+	/**
+	 * Method to return a session token covering the written key, along with the
+	 * keys of the request's own token that have not expired yet
+	 * 
+	 * @param request
+	 * @param response
+	 * @param tenantId
+	 * @param key
+	 */
+	public void written(HttpServletRequest request, HttpServletResponse response, String tenantId, String key) {
+		if (key == null || properties.getSessionWindow() <= 0 || properties.getSessionMaxKeys() <= 0) {
+			return;
+		}
+		long now = System.currentTimeMillis();
+
+		List<Map.Entry<String, JsonNode>> live = new ArrayList<Map.Entry<String, JsonNode>>();
+		JsonNode keys = sessionKeys(request, tenantId);
+		if (keys != null) {
+			for (Iterator<Map.Entry<String, JsonNode>> it = keys.fields(); it.hasNext();) {
+				Map.Entry<String, JsonNode> entry = it.next();
+				if (entry.getValue().asLong() > now && !entry.getKey().equals(key)) {
+					live.add(entry);
+				}
+			}
+		}
+		// the oldest keys are dropped first once the token is full
+		live.sort((a, b) -> Long.compare(a.getValue().asLong(), b.getValue().asLong()));
+		int skip = Math.max(0, live.size() - properties.getSessionMaxKeys() + 1);
+
+		ObjectNode token = objectMapper.createObjectNode();
+		token.put("t", tenantId);
+		ObjectNode tokenKeys = token.putObject("k");
+		for (Map.Entry<String, JsonNode> entry : live.subList(skip, live.size())) {
+			tokenKeys.set(entry.getKey(), entry.getValue());
+		}
+		tokenKeys.put(key, now + properties.getSessionWindow());
+
+		try {
+			byte[] payload = objectMapper.writeValueAsBytes(token);
+			response.setHeader(TOKEN_HEADER, encode(payload) + "." + encode(sign(payload)));
+		} catch (IOException | GeneralSecurityException e) {
+			logger.error("TenantId: " + tenantId + "-Issue consistency token failed " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Returns the keys of the request's session token, or null when there is no
+	 * token, or it is not validly signed for the tenant
+	 */
+	private JsonNode sessionKeys(HttpServletRequest request, String tenantId) {
+		String value = request.getHeader(TOKEN_HEADER);
+		int dot = value != null ? value.indexOf('.') : -1;
+		if (dot < 0) {
+			return null;
+		}
+
+		try {
+			byte[] payload = Base64.getUrlDecoder().decode(value.substring(0, dot));
+			byte[] signature = Base64.getUrlDecoder().decode(value.substring(dot + 1));
+			if (!MessageDigest.isEqual(sign(payload), signature)) {
+				return null;
+			}
+			JsonNode token = objectMapper.readTree(payload);
+			return tenantId.equals(token.path("t").asText()) ? token.path("k") : null;
+		} catch (IllegalArgumentException | IOException | GeneralSecurityException e) {
+			return null;
+		}
+	}
+
+	private byte[] sign(byte[] payload) throws GeneralSecurityException {
+		Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+		mac.init(secret);
+		return mac.doFinal(payload);
+	}
+
+	private static String encode(byte[] bytes) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+	}
+}
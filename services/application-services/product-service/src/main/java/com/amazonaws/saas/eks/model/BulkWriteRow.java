@@ -0,0 +1,63 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazonaws.saas.eks.model;
+
+/**
+ * One parsed row of a bulk product upload. Rows that could not be parsed carry
+ * the reason in error and no product.
+ */
+public class BulkWriteRow {
+	public enum Operation {
+		UPSERT, DELETE
+	}
+
+	private final long row;
+	private final Operation operation;
+	private final Product product;
+	private final String error;
+
+	private BulkWriteRow(long row, Operation operation, Product product, String error) {
+		this.row = row;
+		this.operation = operation;
+		this.product = product;
+		this.error = error;
+	}
+
+	public static BulkWriteRow of(long row, Operation operation, Product product) {
+		return new BulkWriteRow(row, operation, product, null);
+	}
+
+	public static BulkWriteRow invalid(long row, String error) {
+		return new BulkWriteRow(row, null, null, error);
+	}
+
+	public long getRow() {
+		return row;
+	}
+
+	public Operation getOperation() {
+		return operation;
+	}
+
+	public Product getProduct() {
+		return product;
+	}
+
+	public String getError() {
+		return error;
+	}
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazonaws.saas.eks.model;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Outcome of a bulk product upload. Counters cover every row, while errors
+ * keeps only the first maxErrors failures so the response stays small.
+ */
+public class BulkWriteSummary {
+	private final int maxErrors;
+	private long received;
+	private long upserted;
+	private long deleted;
+	private long failed;
+	private final List<RowError> errors = new ArrayList<RowError>();
+
+	public BulkWriteSummary(int maxErrors) {
+		this.maxErrors = maxErrors;
+	}
+
+	public synchronized void received() {
+		received++;
+	}
+
+	public synchronized void succeeded(BulkWriteRow row) {
+		if (row.getOperation() == BulkWriteRow.Operation.DELETE) {
+			deleted++;
+		} else {
+			upserted++;
+		}
+	}
+
+	public synchronized void failed(BulkWriteRow row, String message) {
+		failed++;
+		if (errors.size() < maxErrors) {
+			String productId = row.getProduct() != null ? row.getProduct().getProductId() : null;
+			errors.add(new RowError(row.getRow(), productId, message));
+		}
+	}
+
+	public synchronized long getReceived() {
+		return received;
+	}
+
+	public synchronized long getUpserted() {
+		return upserted;
+	}
+
+	public synchronized long getDeleted() {
+		return deleted;
+	}
+
+	public synchronized long getFailed() {
+		return failed;
+	}
+
+	public synchronized List<RowError> getErrors() {
+		List<RowError> sorted = new ArrayList<RowError>(errors);
+		sorted.sort(Comparator.comparingLong(RowError::getRow));
+		return sorted;
+	}
+
+	public synchronized boolean isErrorsTruncated() {
+		return failed > errors.size();
+	}
+
+	public static class RowError {
+		private final long row;
+		private final String productId;
+		private final String message;
+
+		public RowError(long row, String productId, String message) {
+			this.row = row;
+			this.productId = productId;
+			this.message = message;
+		}
+
+		public long getRow() {
+			return row;
+		}
+
+		public String getProductId() {
+			return productId;
+		}
+
+		public String getMessage() {
+			return message;
+		}
+	}
+}
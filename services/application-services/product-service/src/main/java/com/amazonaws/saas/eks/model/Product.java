@@ -21,8 +21,11 @@ import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBAutoGeneratedKey;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBHashKey;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBRangeKey;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBTable;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBVersionAttribute;
+import com.fasterxml.jackson.annotation.JsonInclude;
 
 @DynamoDBTable(tableName = "Product")
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class Product {
 
 	private String productId;
@@ -30,6 +33,7 @@ public class Product {
 	private String name;
 	private Double price;
 	private String pictureUrl;
+	private Long version;
 
 	@DynamoDBHashKey(attributeName = "TenantId")
 	public String getTenantId() {
@@ -77,10 +81,19 @@ public class Product {
 		this.pictureUrl = pictureUrl;
 	}
 
+	@DynamoDBVersionAttribute(attributeName = "Version")
+	public Long getVersion() {
+		return version;
+	}
+
+	public void setVersion(Long version) {
+		this.version = version;
+	}
+
 	@Override
 	public String toString() {
 		return "Product [productId=" + productId + ", tenantId=" + tenantId + ", name=" + name + ", price=" + price
-				+ ", pictureUrl=" + pictureUrl + "]";
+				+ ", pictureUrl=" + pictureUrl + ", version=" + version + "]";
 	}
 
 }
\ No newline at end of file
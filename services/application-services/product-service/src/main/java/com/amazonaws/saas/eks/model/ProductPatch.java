@@ -0,0 +1,87 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazonaws.saas.eks.model;
+
+/**
+ * Changes to a product sent with PATCH, read as a JSON merge patch: only the
+ * attributes present in the body are written, and a pictureUrl of null removes
+ * the picture. When a version is given, the patch is only applied to that
+ * version of the product.
+ */
+public class ProductPatch {
+
+	private String name;
+	private Double price;
+	private String pictureUrl;
+	private Long version;
+	private boolean nameSet;
+	private boolean priceSet;
+	private boolean pictureUrlSet;
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+		this.nameSet = true;
+	}
+
+	public Double getPrice() {
+		return price;
+	}
+
+	public void setPrice(Double price) {
+		this.price = price;
+		this.priceSet = true;
+	}
+
+	public String getPictureUrl() {
+		return pictureUrl;
+	}
+
+	public void setPictureUrl(String pictureUrl) {
+		this.pictureUrl = pictureUrl;
+		this.pictureUrlSet = true;
+	}
+
+	public Long getVersion() {
+		return version;
+	}
+
+	public void setVersion(Long version) {
+		this.version = version;
+	}
+
+	public boolean isNameSet() {
+		return nameSet;
+	}
+
+	public boolean isPriceSet() {
+		return priceSet;
+	}
+
+	public boolean isPictureUrlSet() {
+		return pictureUrlSet;
+	}
+
+	@Override
+	public String toString() {
+		return "ProductPatch [name=" + name + ", price=" + price + ", pictureUrl=" + pictureUrl + ", version="
+				+ version + "]";
+	}
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazonaws.saas.eks.repository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.BatchLoadContext;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.BatchLoadRetryStrategy;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.BatchWriteRetryStrategy;
+import com.amazonaws.services.dynamodbv2.model.KeysAndAttributes;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
+
+/**
+ * Retries the UnprocessedKeys of a BatchGetItem call and the UnprocessedItems
+ * of a BatchWriteItem call with exponential backoff and full jitter, so
+ * throttled batches do not retry in lockstep.
+ */
+public class BatchBackoffStrategy implements BatchLoadRetryStrategy, BatchWriteRetryStrategy {
+	private static final long BASE_DELAY = 50;
+	private static final long MAX_DELAY = 2000;
+
+	private final int maxRetries;
+
+	public BatchBackoffStrategy(int maxRetries) {
+		this.maxRetries = maxRetries;
+	}
+
+	@Override
+	public boolean shouldRetry(BatchLoadContext batchLoadContext) {
+		Map<String, KeysAndAttributes> unprocessedKeys = batchLoadContext.getBatchGetItemResult().getUnprocessedKeys();
+		return unprocessedKeys != null && !unprocessedKeys.isEmpty()
+				&& batchLoadContext.getRetriesAttempted() < maxRetries;
+	}
+
+	@Override
+	public long getDelayBeforeNextRetry(BatchLoadContext batchLoadContext) {
+		return delay(batchLoadContext.getRetriesAttempted());
+	}
+
+	@Override
+	public int getMaxRetryOnUnprocessedItems(Map<String, List<WriteRequest>> batchWriteItemInput) {
+		return maxRetries;
+	}
+
+	@Override
+	public long getDelayBeforeRetryUnprocessedItems(Map<String, List<WriteRequest>> unprocessedItems,
+			int retriesAttempted) {
+		return delay(retriesAttempted);
+	}
+
+	private static long delay(int retriesAttempted) {
+		long ceiling = Math.min(MAX_DELAY, BASE_DELAY << Math.min(retriesAttempted, 16));
+		return ThreadLocalRandom.current().nextLong(ceiling + 1);
+	}
+}
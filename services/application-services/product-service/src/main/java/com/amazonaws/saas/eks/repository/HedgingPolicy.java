@@ -0,0 +1,210 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazonaws.saas.eks.repository;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import com.amazonaws.saas.eks.config.DynamodbProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Hedges a blocking DynamoDB read: when the read has not answered within the
+ * configured percentile of the latencies recently seen for the same operation,
+ * a second identical read is sent and whichever succeeds first is used. The
+ * slower read cannot be cancelled and is left to finish in the background.
+ * A read that cannot be hedged, because no latencies are known yet or the
+ * budget is spent, runs on the calling thread, and so does a read the executor
+ * rejects.
+ * 
+ * A hedged read has to be sent from the executor as well: the caller waits
+ * for whichever read answers first, and a blocking read on the calling thread
+ * could not be given up when the hedge wins. The executor should hand reads
+ * to a bounded number of threads without queueing them, so that a busy
+ * executor rejects reads, which then run unhedged, instead of delaying them.
+ * 
+ * Hedges are paid for from a budget that grows by hedgingBudget percent of a
+ * hedge with every read, so they add at most that share of extra load. No
+ * hedge is sent until enough latencies have been recorded. Hedges sent and won
+ * are counted in the "dynamodb.reads.hedged" and "dynamodb.reads.hedge.wins"
+ * metrics, tagged with the operation.
+ */
+public class HedgingPolicy {
+	private static final int WINDOW = 1024;
+	private static final int MIN_SAMPLES = 100;
+	private static final int RECOMPUTE_EVERY = 64;
+	private static final double MAX_CREDITS = 10;
+
+	private final boolean enabled;
+	private final double percentile;
+	private final double creditsPerRead;
+	private final long minDelayNanos;
+	private final ExecutorService executor;
+	private final Counter hedged;
+	private final Counter hedgeWins;
+
+	private final long[] latencies = new long[WINDOW];
+	private int next;
+	private int count;
+	private int sinceRecompute;
+	private volatile long thresholdNanos = -1;
+	private double credits;
+
+	public HedgingPolicy(String operation, DynamodbProperties properties, ExecutorService executor,
+			MeterRegistry meterRegistry) {
+		this.enabled = properties.isHedgingEnabled();
+		this.percentile = properties.getHedgingPercentile();
+		this.creditsPerRead = properties.getHedgingBudget() / 100.0;
+		this.minDelayNanos = TimeUnit.MILLISECONDS.toNanos(properties.getHedgingMinDelay());
+		this.executor = executor;
+		this.hedged = meterRegistry.counter("dynamodb.reads.hedged", "operation", operation);
+		this.hedgeWins = meterRegistry.counter("dynamodb.reads.hedge.wins", "operation", operation);
+	}
+
+	/**
+	 * Method to run a read, hedging it when it is slow
+	 * 
+	 * @param read
+	 * @return T the result of the first read that succeeded
+	 */
+	public <T> T execute(Supplier<T> read) {
+		if (!enabled) {
+			return read.get();
+		}
+		earnCredit();
+
+		long delay = thresholdNanos;
+		if (delay < 0 || !hasCredit()) {
+			return readOnCaller(read);
+		}
+
+		CompletableFuture<T> result = new CompletableFuture<T>();
+		AtomicInteger outstanding = new AtomicInteger();
+		try {
+			send(read, result, outstanding, false);
+		} catch (RejectedExecutionException e) {
+			return readOnCaller(read);
+		}
+
+		try {
+			try {
+				return result.get(Math.max(delay, minDelayNanos), TimeUnit.NANOSECONDS);
+			} catch (TimeoutException e) {
+				if (!result.isDone() && spendCredit()) {
+					try {
+						send(read, result, outstanding, true);
+						hedged.increment();
+					} catch (RejectedExecutionException rejected) {
+						refundCredit();
+						// the first read may have failed in the meantime without failing the result
+						if (outstanding.get() == 0 && !result.isDone()) {
+							return readOnCaller(read);
+						}
+					}
+				}
+			}
+			return result.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for DynamoDB", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw new CompletionException(e.getCause());
+		}
+	}
+
+	private <T> T readOnCaller(Supplier<T> read) {
+		long start = System.nanoTime();
+		T value = read.get();
+		record(System.nanoTime() - start);
+		return value;
+	}
+
+	private <T> void send(Supplier<T> read, CompletableFuture<T> result, AtomicInteger outstanding,
+			boolean hedge) {
+		outstanding.incrementAndGet();
+		try {
+			executor.execute(() -> {
+				long start = System.nanoTime();
+				try {
+					T value = read.get();
+					record(System.nanoTime() - start);
+					if (result.complete(value) && hedge) {
+						hedgeWins.increment();
+					}
+				} catch (Throwable e) {
+					// only fail once no other read can still succeed
+					if (outstanding.decrementAndGet() == 0) {
+						result.completeExceptionally(e);
+					}
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			outstanding.decrementAndGet();
+			throw e;
+		}
+	}
+
+	private synchronized void record(long latencyNanos) {
+		latencies[next] = latencyNanos;
+		next = (next + 1) % WINDOW;
+		count = Math.min(count + 1, WINDOW);
+
+		if (++sinceRecompute >= RECOMPUTE_EVERY && count >= MIN_SAMPLES) {
+			sinceRecompute = 0;
+			long[] sorted = Arrays.copyOf(latencies, count);
+			Arrays.sort(sorted);
+			int index = (int) Math.ceil(percentile / 100.0 * count) - 1;
+			thresholdNanos = sorted[Math.max(0, Math.min(index, count - 1))];
+		}
+	}
+
+	private synchronized void earnCredit() {
+		credits = Math.min(MAX_CREDITS, credits + creditsPerRead);
+	}
+
+	private synchronized boolean hasCredit() {
+		return credits >= 1;
+	}
+
+	private synchronized boolean spendCredit() {
+		if (credits < 1) {
+			return false;
+		}
+		credits -= 1;
+		return true;
+	}
+
+	private synchronized void refundCredit() {
+		credits = Math.min(MAX_CREDITS, credits + 1);
+	}
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazonaws.saas.eks.repository;
+
+import java.io.IOException;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.amazonaws.saas.eks.exception.InvalidPageTokenException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Opaque pagination token carrying the string key attributes of DynamoDB's
+ * LastEvaluatedKey. A token is only accepted for the tenant it was issued to,
+ * and only with the key attributes the caller expects.
+ */
+public final class PageToken {
+	private static final ObjectMapper objectMapper = new ObjectMapper();
+
+	private PageToken() {
+	}
+
+	/**
+	 * Method to create the token for the page following the given key
+	 * 
+	 * @param tenantId
+	 * @param lastEvaluatedKey
+	 * @return String, or null when there are no more pages
+	 */
+	public static String encode(String tenantId, Map<String, String> lastEvaluatedKey) {
+		if (lastEvaluatedKey == null || lastEvaluatedKey.isEmpty()) {
+			return null;
+		}
+
+		ObjectNode token = objectMapper.createObjectNode();
+		token.put("t", tenantId);
+		ObjectNode key = token.putObject("k");
+		lastEvaluatedKey.forEach(key::put);
+
+		try {
+			return Base64.getUrlEncoder().withoutPadding().encodeToString(objectMapper.writeValueAsBytes(token));
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to encode page token", e);
+		}
+	}
+
+	/**
+	 * Method to read the key to continue from out of a token
+	 * 
+	 * @param tenantId
+	 * @param nextToken
+	 * @param keyAttributes names of the attributes the key must consist of
+	 * @return Map<String, String>, or null when no token was given
+	 */
+	public static Map<String, String> decode(String tenantId, String nextToken, String... keyAttributes) {
+		if (nextToken == null || nextToken.isEmpty()) {
+			return null;
+		}
+
+		JsonNode token;
+		try {
+			token = objectMapper.readTree(Base64.getUrlDecoder().decode(nextToken));
+		} catch (IllegalArgumentException | IOException e) {
+			throw new InvalidPageTokenException("Malformed page token", e);
+		}
+
+		if (token == null || !tenantId.equals(token.path("t").asText(null))) {
+			throw new InvalidPageTokenException("Page token was not issued to this tenant");
+		}
+
+		JsonNode key = token.path("k");
+		if (!key.isObject() || key.size() != keyAttributes.length) {
+			throw new InvalidPageTokenException("Page token does not match this listing");
+		}
+
+		Map<String, String> exclusiveStartKey = new HashMap<>();
+		for (String keyAttribute : keyAttributes) {
+			JsonNode value = key.get(keyAttribute);
+			if (value == null || !value.isTextual()) {
+				throw new InvalidPageTokenException("Page token does not match this listing");
+			}
+			exclusiveStartKey.put(keyAttribute, value.asText());
+		}
+
+		return exclusiveStartKey;
+	}
+}
@@ -0,0 +1,389 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazonaws.saas.eks.repository;
+
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.primaryPartitionKey;
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.primarySortKey;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import com.amazonaws.saas.eks.exception.ItemNotFoundException;
+import com.amazonaws.saas.eks.exception.ServiceUnavailableException;
+import com.amazonaws.saas.eks.exception.VersionConflictException;
+import com.amazonaws.saas.eks.model.PagedResult;
+import com.amazonaws.saas.eks.model.Product;
+import com.amazonaws.saas.eks.model.ProductPatch;
+
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbAsyncTable;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedAsyncClient;
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.StaticTableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.ReturnValue;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+
+/**
+ * Non-blocking counterpart of {@link ProductRepository}, backed by the AWS SDK
+ * v2 enhanced async client. Calls go through the same circuit as those of
+ * ProductRepository.
+ */
+@Repository
+@ConditionalOnProperty(prefix = "com.amazonaws.saas.eks.dynamodb", name = "async-enabled", havingValue = "true")
+public class ProductAsyncRepository {
+	private static final Logger logger = LogManager.getLogger(ProductAsyncRepository.class);
+	private static final String TABLE_NAME = "Product";
+
+	static final TableSchema<Product> PRODUCT_SCHEMA = StaticTableSchema.builder(Product.class)
+			.newItemSupplier(Product::new)
+			.addAttribute(String.class, a -> a.name("TenantId")
+					.getter(Product::getTenantId).setter(Product::setTenantId).tags(primaryPartitionKey()))
+			.addAttribute(String.class, a -> a.name("ProductId")
+					.getter(Product::getProductId).setter(Product::setProductId).tags(primarySortKey()))
+			.addAttribute(String.class, a -> a.name("Name")
+					.getter(Product::getName).setter(Product::setName))
+			.addAttribute(Double.class, a -> a.name("Price")
+					.getter(Product::getPrice).setter(Product::setPrice))
+			.addAttribute(String.class, a -> a.name("PictureUrl")
+					.getter(Product::getPictureUrl).setter(Product::setPictureUrl))
+			.addAttribute(Long.class, a -> a.name("Version")
+					.getter(Product::getVersion).setter(Product::setVersion))
+			.build();
+
+	private final DynamoDbAsyncClient dynamoDbAsyncClient;
+	private final DynamoDbAsyncTable<Product> table;
+	private final CircuitBreaker productTable;
+
+	public ProductAsyncRepository(DynamoDbAsyncClient dynamoDbAsyncClient, DynamoDbEnhancedAsyncClient enhancedClient,
+			ProductRepository productRepository) {
+		this.dynamoDbAsyncClient = dynamoDbAsyncClient;
+		this.table = enhancedClient.table(TABLE_NAME, PRODUCT_SCHEMA);
+		this.productTable = productRepository.getCircuitBreaker();
+	}
+
+	/**
+	 * Method to retrieve one page of products for a tenant
+	 * 
+	 * @param tenantId
+	 * @param limit
+	 * @param nextToken
+	 * @param fields
+	 * @return CompletableFuture<PagedResult<Product>>
+	 */
+	public CompletableFuture<PagedResult<Product>> getProducts(String tenantId, int limit, String nextToken,
+			String fields) {
+		QueryEnhancedRequest.Builder request = QueryEnhancedRequest.builder()
+				.queryConditional(QueryConditional.keyEqualTo(k -> k.partitionValue(tenantId)))
+				.exclusiveStartKey(exclusiveStartKey(tenantId, nextToken))
+				.limit(limit);
+		project(request, fields);
+		AtomicReference<PagedResult<Product>> result = new AtomicReference<>();
+
+		return productTable.executeAsync(() -> table.query(request.build())
+				.limit(1)
+				.subscribe(page -> result.set(new PagedResult<Product>(page.items(),
+						nextToken(tenantId, page.lastEvaluatedKey())))))
+				.thenApply(v -> result.get())
+				.exceptionally(e -> {
+					if (unwrap(e) instanceof ServiceUnavailableException) {
+						throw new CompletionException(unwrap(e));
+					}
+					logger.error("TenantId: " + tenantId + "-Get Products failed " + e.getMessage());
+					return null;
+				});
+	}
+
+	/**
+	 * Method to save a new tenant product, which is only written if the tenant
+	 * has no product with its id yet
+	 * 
+	 * @param product
+	 * @return CompletableFuture<Product>, failed with VersionConflictException if
+	 *         the product already exists, or with the error of the write
+	 */
+	public CompletableFuture<Product> save(Product product) {
+		if (product.getProductId() == null) {
+			product.setProductId(UUID.randomUUID().toString());
+		}
+		product.setVersion(1L);
+		Expression condition = Expression.builder().expression("attribute_not_exists(#ProductId)")
+				.putExpressionName("#ProductId", "ProductId")
+				.build();
+
+		return productTable.executeAsync(() -> table.putItem(r -> r.item(product).conditionExpression(condition)))
+				.thenApply(v -> product)
+				.exceptionally(e -> {
+					if (unwrap(e) instanceof ConditionalCheckFailedException) {
+						throw new VersionConflictException("Product " + product.getProductId() + " already exists");
+					}
+					if (unwrap(e) instanceof ServiceUnavailableException) {
+						throw new CompletionException(unwrap(e));
+					}
+					logger.error("TenantId: " + product.getTenantId() + "-Save Product failed " + e.getMessage());
+					throw new CompletionException(unwrap(e));
+				});
+	}
+
+	/**
+	 * Method to update a tenant product, writing every attribute over the given
+	 * version if the product carries one
+	 * 
+	 * @param product
+	 * @return CompletableFuture<Product>, failed with VersionConflictException if
+	 *         the product is no longer at the given version
+	 */
+	public CompletableFuture<Product> update(Product product) {
+		Map<String, AttributeValue> values = new HashMap<>();
+		values.put("Name", stringValue(product.getName()));
+		values.put("Price", numberValue(product.getPrice()));
+		values.put("PictureUrl", stringValue(product.getPictureUrl()));
+
+		return updateItem(product.getTenantId(), product.getProductId(), values, product.getVersion(), false)
+				.exceptionally(e -> {
+					if (unwrap(e) instanceof VersionConflictException
+							|| unwrap(e) instanceof ServiceUnavailableException) {
+						throw new CompletionException(unwrap(e));
+					}
+					logger.error("TenantId: " + product.getTenantId() + "-Update Product failed " + e.getMessage());
+					return product;
+				});
+	}
+
+	/**
+	 * Method to apply a patch to a tenant product, writing only the attributes it
+	 * changes with a single UpdateItem
+	 * 
+	 * @param productId
+	 * @param tenantId
+	 * @param patch
+	 * @return CompletableFuture<Product>, failed with ItemNotFoundException or
+	 *         VersionConflictException if the product is missing or no longer at
+	 *         the version of the patch
+	 */
+	public CompletableFuture<Product> patch(String productId, String tenantId, ProductPatch patch) {
+		Map<String, AttributeValue> values = new HashMap<>();
+		if (patch.isNameSet()) {
+			values.put("Name", stringValue(patch.getName()));
+		}
+		if (patch.isPriceSet()) {
+			values.put("Price", numberValue(patch.getPrice()));
+		}
+		if (patch.isPictureUrlSet()) {
+			values.put("PictureUrl", stringValue(patch.getPictureUrl()));
+		}
+
+		return updateItem(tenantId, productId, values, patch.getVersion(), true)
+				.exceptionally(e -> {
+					if (unwrap(e) instanceof VersionConflictException || unwrap(e) instanceof ItemNotFoundException
+							|| unwrap(e) instanceof ServiceUnavailableException) {
+						throw new CompletionException(unwrap(e));
+					}
+					logger.error("TenantId: " + tenantId + "-Patch Product failed " + e.getMessage());
+					return null;
+				});
+	}
+
+	/**
+	 * Method to get a tenant's product by productId
+	 * 
+	 * @param productId
+	 * @param tenantId
+	 * @param fields
+	 * @param consistentRead
+	 * @return CompletableFuture<Product>, failed with ItemNotFoundException if
+	 *         the tenant has no such product
+	 */
+	public CompletableFuture<Product> getProductById(String productId, String tenantId, String fields,
+			boolean consistentRead) {
+		QueryEnhancedRequest.Builder request = QueryEnhancedRequest.builder()
+				.queryConditional(QueryConditional.keyEqualTo(k -> k.partitionValue(tenantId).sortValue(productId)))
+				.consistentRead(consistentRead);
+		project(request, fields);
+		AtomicReference<Product> result = new AtomicReference<>();
+
+		return productTable.executeAsync(() -> table.query(request.build())
+				.items()
+				.limit(1)
+				.subscribe(result::set))
+				.thenApply(v -> {
+					if (result.get() == null) {
+						throw new ItemNotFoundException("Product " + productId + " not found");
+					}
+					return result.get();
+				})
+				.exceptionally(e -> {
+					if (unwrap(e) instanceof ItemNotFoundException || unwrap(e) instanceof ServiceUnavailableException) {
+						throw new CompletionException(unwrap(e));
+					}
+					logger.error("TenantId: " + tenantId + "-Get Product By Id failed " + e.getMessage());
+					return null;
+				});
+	}
+
+	/**
+	 * Method to delete a tenant's product, only at the given version if the
+	 * product carries one
+	 * 
+	 * @param product
+	 * @return CompletableFuture<Void>, failed with VersionConflictException if the
+	 *         product is no longer at the given version
+	 */
+	public CompletableFuture<Void> delete(Product product) {
+		Key key = Key.builder().partitionValue(product.getTenantId()).sortValue(product.getProductId()).build();
+		Expression condition = product.getVersion() == null ? null
+				: Expression.builder().expression("#Version = :Version")
+						.putExpressionName("#Version", "Version")
+						.putExpressionValue(":Version", AttributeValue.builder().n(product.getVersion().toString()).build())
+						.build();
+
+		return productTable.executeAsync(() -> table.deleteItem(r -> r.key(key).conditionExpression(condition)))
+				.<Void>thenApply(deleted -> null)
+				.exceptionally(e -> {
+					if (unwrap(e) instanceof ConditionalCheckFailedException) {
+						throw new VersionConflictException("Product " + product.getProductId()
+								+ " is no longer at version " + product.getVersion());
+					}
+					if (unwrap(e) instanceof ServiceUnavailableException) {
+						throw new CompletionException(unwrap(e));
+					}
+					logger.error("TenantId: " + product.getTenantId() + "-Delete Product failed " + e.getMessage());
+					return null;
+				});
+	}
+
+	/**
+	 * Same update as {@link ProductRepository}, setting the given attributes and
+	 * the next version with the version and existence checked by the condition
+	 */
+	private CompletableFuture<Product> updateItem(String tenantId, String productId,
+			Map<String, AttributeValue> values, Long expectedVersion, boolean mustExist) {
+		Map<String, String> names = new HashMap<>();
+		Map<String, AttributeValue> expressionValues = new HashMap<>();
+		List<String> set = new ArrayList<>();
+		List<String> remove = new ArrayList<>();
+
+		values.forEach((attribute, value) -> {
+			names.put("#" + attribute, attribute);
+			if (value != null) {
+				expressionValues.put(":" + attribute, value);
+				set.add("#" + attribute + " = :" + attribute);
+			} else {
+				remove.add("#" + attribute);
+			}
+		});
+		names.put("#Version", "Version");
+		expressionValues.put(":One", AttributeValue.builder().n("1").build());
+		expressionValues.put(":Zero", AttributeValue.builder().n("0").build());
+		set.add("#Version = if_not_exists(#Version, :Zero) + :One");
+
+		String updateExpression = "SET " + String.join(", ", set);
+		if (!remove.isEmpty()) {
+			updateExpression += " REMOVE " + String.join(", ", remove);
+		}
+
+		List<String> conditions = new ArrayList<>();
+		if (mustExist) {
+			names.put("#ProductId", "ProductId");
+			conditions.add("attribute_exists(#ProductId)");
+		}
+		if (expectedVersion != null) {
+			expressionValues.put(":Version", AttributeValue.builder().n(expectedVersion.toString()).build());
+			conditions.add("#Version = :Version");
+		}
+
+		Map<String, AttributeValue> key = new HashMap<>();
+		key.put("TenantId", AttributeValue.builder().s(tenantId).build());
+		key.put("ProductId", AttributeValue.builder().s(productId).build());
+		UpdateItemRequest request = UpdateItemRequest.builder().tableName(TABLE_NAME).key(key)
+				.updateExpression(updateExpression)
+				.conditionExpression(conditions.isEmpty() ? null : String.join(" AND ", conditions))
+				.expressionAttributeNames(names)
+				.expressionAttributeValues(expressionValues)
+				.returnValues(ReturnValue.ALL_NEW)
+				.build();
+
+		return productTable.executeAsync(() -> dynamoDbAsyncClient.updateItem(request))
+				.thenApply(response -> PRODUCT_SCHEMA.mapToItem(response.attributes()))
+				.exceptionally(e -> {
+					if (unwrap(e) instanceof ConditionalCheckFailedException) {
+						throw expectedVersion != null
+								? new VersionConflictException(
+										"Product " + productId + " is no longer at version " + expectedVersion)
+								: new ItemNotFoundException("Product " + productId + " not found");
+					}
+					throw new CompletionException(unwrap(e));
+				});
+	}
+
+	private static Throwable unwrap(Throwable e) {
+		return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+	}
+
+	private static AttributeValue stringValue(String value) {
+		return value != null && !value.isEmpty() ? AttributeValue.builder().s(value).build() : null;
+	}
+
+	private static AttributeValue numberValue(Double value) {
+		return value != null ? AttributeValue.builder().n(BigDecimal.valueOf(value).toPlainString()).build() : null;
+	}
+
+	private void project(QueryEnhancedRequest.Builder request, String fields) {
+		Projection projection = Projection.of(fields, ProductRepository.PRODUCT_FIELDS, "ProductId");
+		if (projection != null) {
+			request.attributesToProject(projection.getAttributes());
+		}
+	}
+
+	private Map<String, AttributeValue> exclusiveStartKey(String tenantId, String nextToken) {
+		Map<String, String> key = PageToken.decode(tenantId, nextToken, "ProductId");
+		if (key == null) {
+			return null;
+		}
+
+		Map<String, AttributeValue> exclusiveStartKey = new HashMap<>();
+		exclusiveStartKey.put("TenantId", AttributeValue.builder().s(tenantId).build());
+		exclusiveStartKey.put("ProductId", AttributeValue.builder().s(key.get("ProductId")).build());
+		return exclusiveStartKey;
+	}
+
+	private String nextToken(String tenantId, Map<String, AttributeValue> lastEvaluatedKey) {
+		if (lastEvaluatedKey == null || lastEvaluatedKey.isEmpty()) {
+			return null;
+		}
+		return PageToken.encode(tenantId,
+				Collections.singletonMap("ProductId", lastEvaluatedKey.get("ProductId").s()));
+	}
+}
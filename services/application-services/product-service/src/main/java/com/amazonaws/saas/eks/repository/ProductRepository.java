@@ -16,59 +16,232 @@
  */
 package com.amazonaws.saas.eks.repository;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-
-import javax.annotation.Resource;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Repository;
 
-import com.amazonaws.auth.DefaultAWSCredentialsProviderChain;
+import com.amazonaws.saas.eks.config.DynamodbProperties;
+import com.amazonaws.saas.eks.exception.ItemNotFoundException;
+import com.amazonaws.saas.eks.exception.ServiceUnavailableException;
+import com.amazonaws.saas.eks.exception.VersionConflictException;
+import com.amazonaws.saas.eks.model.PagedResult;
 import com.amazonaws.saas.eks.model.Product;
-import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClient;
-import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClientBuilder;
+import com.amazonaws.saas.eks.model.ProductPatch;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper.FailedBatch;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
-import com.amazonaws.services.dynamodbv2.datamodeling.PaginatedQueryList;
+import com.amazonaws.services.dynamodbv2.datamodeling.QueryResultPage;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
+import com.amazonaws.services.dynamodbv2.model.ReturnValue;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
+
+import io.micrometer.core.instrument.MeterRegistry;
 
 @Repository
 public class ProductRepository {
 	private static final Logger logger = LogManager.getLogger(ProductRepository.class);
 
 	/**
-	 * Method to retrieve all products for a tenant
+	 * Fields that can be selected through the fields parameter, with the
+	 * attributes they are read from
+	 */
+	static final Map<String, String> PRODUCT_FIELDS = Map.of("productId", "ProductId", "tenantId", "TenantId",
+			"name", "Name", "price", "Price", "pictureUrl", "PictureUrl", "version", "Version");
+
+	/**
+	 * Most keys a single BatchGetItem request accepts
+	 */
+	static final int BATCH_GET_SIZE = 100;
+
+	private final AmazonDynamoDB amazonDynamoDB;
+	private final DynamoDBMapper mapper;
+	private final DynamoDBMapperConfig batchConfig;
+	private final ExecutorService fanOutExecutor;
+	private final HedgingPolicy productsHedging;
+	private final HedgingPolicy productByIdHedging;
+	private final CircuitBreaker productTable;
+
+	public ProductRepository(AmazonDynamoDB amazonDynamoDB, DynamoDBMapper dynamoDBMapper,
+			DynamodbProperties properties, @Qualifier("fanOutExecutor") ExecutorService fanOutExecutor,
+			@Qualifier("hedgeExecutor") ExecutorService hedgeExecutor, MeterRegistry meterRegistry) {
+		this.amazonDynamoDB = amazonDynamoDB;
+		this.mapper = dynamoDBMapper;
+		BatchBackoffStrategy batchBackoffStrategy = new BatchBackoffStrategy(properties.getMaxErrorRetry());
+		this.batchConfig = DynamoDBMapperConfig.builder()
+				.withBatchLoadRetryStrategy(batchBackoffStrategy)
+				.withBatchWriteRetryStrategy(batchBackoffStrategy).build();
+		this.fanOutExecutor = fanOutExecutor;
+		this.productsHedging = new HedgingPolicy("getProducts", properties, hedgeExecutor, meterRegistry);
+		this.productByIdHedging = new HedgingPolicy("getProductById", properties, hedgeExecutor, meterRegistry);
+		this.productTable = new CircuitBreaker("Product", properties);
+	}
+
+	/**
+	 * Circuit of the Product table, shared with {@link ProductAsyncRepository}
+	 * so that both clients see the same table health
+	 */
+	CircuitBreaker getCircuitBreaker() {
+		return productTable;
+	}
+
+	/**
+	 * Method to retrieve one page of products for a tenant
+	 * 
+	 * @param tenantId
+	 * @param limit
+	 * @param nextToken
+	 * @param fields
+	 * @return PagedResult<Product>
+	 */
+	public PagedResult<Product> getProducts(String tenantId, int limit, String nextToken, String fields) {
+		PagedResult<Product> results = null;
+
+		DynamoDBQueryExpression<Product> queryExpression = tenantQuery(tenantId, projection(fields))
+				.withExclusiveStartKey(exclusiveStartKey(tenantId, nextToken))
+				.withLimit(limit);
+
+		try {
+			QueryResultPage<Product> page = productTable.execute(
+					() -> productsHedging.execute(() -> mapper.queryPage(Product.class, queryExpression)));
+			results = new PagedResult<Product>(page.getResults(), nextToken(tenantId, page.getLastEvaluatedKey()));
+		} catch (ServiceUnavailableException e) {
+			throw e;
+		} catch (Exception e) {
+			logger.error("TenantId: " + tenantId + "-Get Products failed " + e.getMessage());
+		}
+
+		return results;
+	}
+
+	/**
+	 * Method to read all products of a tenant, handing each page to the consumer
+	 * as soon as DynamoDB returns it. Only one page is held in memory at a time.
+	 * 
+	 * @param tenantId
+	 * @param pageConsumer
+	 */
+	public void exportProducts(String tenantId, Consumer<List<Product>> pageConsumer) {
+		Map<String, AttributeValue> exclusiveStartKey = null;
+
+		do {
+			DynamoDBQueryExpression<Product> queryExpression = tenantQuery(tenantId, null)
+					.withExclusiveStartKey(exclusiveStartKey);
+			QueryResultPage<Product> page = productTable
+					.execute(() -> mapper.queryPage(Product.class, queryExpression));
+			pageConsumer.accept(page.getResults());
+			exclusiveStartKey = page.getLastEvaluatedKey();
+		} while (exclusiveStartKey != null);
+	}
+
+	/**
+	 * Method to get a tenant's products by productIds. The keys are read with
+	 * BatchGetItem in chunks of 100, which run in parallel. Products are returned
+	 * in the order of the ids given; ids without a product are left out.
 	 * 
+	 * @param productIds
 	 * @param tenantId
 	 * @return List<Product>
 	 */
-	public List<Product> getProducts(String tenantId) {
-		PaginatedQueryList<Product> results = null;
+	public List<Product> getProductsByIds(List<String> productIds, String tenantId) {
+		List<String> distinctIds = new ArrayList<String>(new LinkedHashSet<String>(productIds));
+		List<CompletableFuture<Map<String, List<Object>>>> chunks = new ArrayList<>();
+		List<Product> products = null;
 
-		Map<String, String> expressionAttributeNames = new HashMap<String, String>();
-		expressionAttributeNames.put("#TenantId", "TenantId");
-		Map<String, AttributeValue> expressionAttributeValues = new HashMap<String, AttributeValue>();
-		expressionAttributeValues.put(":TenantId", new AttributeValue().withS(tenantId));
+		for (int i = 0; i < distinctIds.size(); i += BATCH_GET_SIZE) {
+			List<Product> keys = distinctIds.subList(i, Math.min(i + BATCH_GET_SIZE, distinctIds.size()))
+					.stream()
+					.map(productId -> productKey(productId, tenantId))
+					.collect(Collectors.toList());
+			chunks.add(CompletableFuture.supplyAsync(
+					() -> productTable.execute(() -> mapper.batchLoad(keys, batchConfig)), fanOutExecutor));
+		}
 
-		DynamoDBQueryExpression<Product> queryExpression = new DynamoDBQueryExpression<Product>()
-				.withKeyConditionExpression("#TenantId = :TenantId")
-				.withExpressionAttributeNames(expressionAttributeNames)
-				.withExpressionAttributeValues(expressionAttributeValues);
+		try {
+			Map<String, Product> productsById = new HashMap<String, Product>();
+			for (CompletableFuture<Map<String, List<Object>>> chunk : chunks) {
+				for (List<Object> items : chunk.join().values()) {
+					items.forEach(item -> productsById.put(((Product) item).getProductId(), (Product) item));
+				}
+			}
+			products = distinctIds.stream()
+					.map(productsById::get)
+					.filter(Objects::nonNull)
+					.collect(Collectors.toList());
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof ServiceUnavailableException) {
+				throw (ServiceUnavailableException) e.getCause();
+			}
+			logger.error("TenantId: " + tenantId + "-Get Products By Ids failed " + e.getCause().getMessage());
+		} catch (Exception e) {
+			logger.error("TenantId: " + tenantId + "-Get Products By Ids failed " + e.getMessage());
+		}
 
-		queryExpression.setConsistentRead(false);
+		return products;
+	}
+
+	/**
+	 * Method to write a batch of product upserts and up to 25 deletes. Each
+	 * upsert is its own UpdateItem, which moves the product to its next version
+	 * like any other update; BatchWriteItem cannot, and would reset the version
+	 * so that a client still holding an old version could write over the bulk
+	 * upload. The deletes go out in one BatchWriteItem request, retrying
+	 * unprocessed items with backoff.
+	 * 
+	 * @param upserts
+	 * @param deletes
+	 * @param tenantId
+	 * @return Map<String, String> error message by productId for the items that
+	 *         could not be written
+	 */
+	public Map<String, String> batchWrite(List<Product> upserts, List<Product> deletes, String tenantId) {
+		Map<String, String> failures = new HashMap<String, String>();
+
+		for (Product product : upserts) {
+			try {
+				updateItem(tenantId, product.getProductId(), attributes(product), null, false);
+			} catch (Exception e) {
+				logger.error("TenantId: " + tenantId + "-Bulk Upsert Product failed " + e.getMessage());
+				failures.put(product.getProductId(), e.getMessage());
+			}
+		}
+		if (deletes.isEmpty()) {
+			return failures;
+		}
 
 		try {
-			DynamoDBMapper mapper = dynamoDBMapper();
-			results = mapper.query(Product.class, queryExpression);
+			for (FailedBatch failedBatch : productTable
+					.execute(() -> mapper.batchWrite(Collections.emptyList(), deletes, batchConfig))) {
+				String message = failedBatch.getException() != null ? failedBatch.getException().getMessage()
+						: "Not processed after retries";
+				for (List<WriteRequest> writeRequests : failedBatch.getUnprocessedItems().values()) {
+					writeRequests.forEach(writeRequest -> failures.put(productId(writeRequest), message));
+				}
+			}
 		} catch (Exception e) {
-			logger.error("TenantId: " + tenantId + "-Get Products failed " + e.getMessage());
+			logger.error("TenantId: " + tenantId + "-Batch Delete Products failed " + e.getMessage());
+			deletes.forEach(product -> failures.put(product.getProductId(), e.getMessage()));
 		}
 
-		return results;
+		return failures;
 	}
 
 	/**
@@ -76,11 +249,20 @@ public class ProductRepository {
 	 * 
 	 * @param product
 	 * @return Product
+	 * @throws VersionConflictException if the product was written by someone else
+	 *                                  in the meantime
 	 */
 	public Product save(Product product) {
 		try {
-			DynamoDBMapper mapper = dynamoDBMapper();
-			mapper.save(product);
+			productTable.execute(() -> {
+				mapper.save(product);
+				return product;
+			});
+		} catch (ServiceUnavailableException e) {
+			throw e;
+		} catch (ConditionalCheckFailedException e) {
+			throw new VersionConflictException("Product " + product.getProductId() + " is no longer at version "
+					+ product.getVersion());
 		} catch (Exception e) {
 			logger.error(e);
 			logger.error("TenantId: " + product.getTenantId() + "-Save Product failed " + e.getMessage());
@@ -90,18 +272,21 @@ public class ProductRepository {
 	}
 
 	/**
-	 * Method to update a tenant product
+	 * Method to update a tenant product. Every attribute is written, one without
+	 * a value is removed, and the product is created if it does not exist. When
+	 * the product carries a version, it is only written over that version.
 	 * 
 	 * @param product
-	 * @return Product
+	 * @return Product, with its new version
+	 * @throws VersionConflictException if the product is no longer at the given
+	 *                                  version
 	 */
 	public Product update(Product product) {
 		try {
-			DynamoDBMapper mapper = dynamoDBMapper();
-			DynamoDBMapperConfig dynamoDBMapperConfig = new DynamoDBMapperConfig.Builder()
-					.withConsistentReads(DynamoDBMapperConfig.ConsistentReads.CONSISTENT)
-					.withSaveBehavior(DynamoDBMapperConfig.SaveBehavior.UPDATE).build();
-			mapper.save(product, dynamoDBMapperConfig);
+			return updateItem(product.getTenantId(), product.getProductId(), attributes(product), product.getVersion(),
+					false);
+		} catch (ServiceUnavailableException | VersionConflictException e) {
+			throw e;
 		} catch (Exception e) {
 			logger.error("TenantId: " + product.getTenantId() + "-Update Product failed " + e.getMessage());
 		}
@@ -109,64 +294,250 @@ public class ProductRepository {
 		return product;
 	}
 
+	/**
+	 * Method to apply a patch to a tenant product, writing only the attributes it
+	 * changes with a single UpdateItem
+	 * 
+	 * @param productId
+	 * @param tenantId
+	 * @param patch
+	 * @return Product, with its new version, or null if the write failed
+	 * @throws ItemNotFoundException    if the tenant has no such product
+	 * @throws VersionConflictException if the product is no longer at the
+	 *                                  version of the patch
+	 */
+	public Product patch(String productId, String tenantId, ProductPatch patch) {
+		Map<String, AttributeValue> values = new HashMap<String, AttributeValue>();
+		if (patch.isNameSet()) {
+			values.put("Name", stringValue(patch.getName()));
+		}
+		if (patch.isPriceSet()) {
+			values.put("Price", numberValue(patch.getPrice()));
+		}
+		if (patch.isPictureUrlSet()) {
+			values.put("PictureUrl", stringValue(patch.getPictureUrl()));
+		}
+
+		try {
+			return updateItem(tenantId, productId, values, patch.getVersion(), true);
+		} catch (ServiceUnavailableException | VersionConflictException | ItemNotFoundException e) {
+			throw e;
+		} catch (Exception e) {
+			logger.error("TenantId: " + tenantId + "-Patch Product failed " + e.getMessage());
+			return null;
+		}
+	}
+
 	/**
 	 * Method to get a tenant's product by productId
 	 * 
 	 * @param productId
-	 * @return Product
+	 * @param tenantId
+	 * @param fields
+	 * @param consistentRead
+	 * @return Product, or null if the read failed
+	 * @throws ItemNotFoundException if the tenant has no such product
 	 */
-	public Product getProductById(String productId, String tenantId) {
-		DynamoDBMapperConfig config = DynamoDBMapperConfig.builder()
-				.withConsistentReads(DynamoDBMapperConfig.ConsistentReads.CONSISTENT).build();
-		Product product = null;
+	public Product getProductById(String productId, String tenantId, String fields, boolean consistentRead) {
+		DynamoDBQueryExpression<Product> queryExpression = tenantQuery(tenantId, projection(fields))
+				.withKeyConditionExpression("#TenantId = :TenantId AND #ProductId = :ProductId")
+				.withConsistentRead(consistentRead);
+		queryExpression.getExpressionAttributeNames().put("#ProductId", "ProductId");
+		queryExpression.getExpressionAttributeValues().put(":ProductId", new AttributeValue().withS(productId));
+		List<Product> results = null;
 
 		try {
-			DynamoDBMapper mapper = dynamoDBMapper();
-			product = mapper.load(Product.class, productId, config);
+			results = productTable.execute(() -> productByIdHedging
+					.execute(() -> mapper.queryPage(Product.class, queryExpression).getResults()));
+		} catch (ServiceUnavailableException e) {
+			throw e;
 		} catch (Exception e) {
 			logger.error("TenantId: " + tenantId + "-Get Product By Id failed " + e.getMessage());
+			return null;
 		}
 
-		logger.info("Product=> " + product);
-
-		return product;
+		if (results.isEmpty()) {
+			throw new ItemNotFoundException("Product " + productId + " not found");
+		}
+		return results.get(0);
 	}
 
 	/**
-	 * Method to delete a tenant's product
+	 * Method to delete a tenant's product. When the product carries a version, it
+	 * is only deleted at that version.
 	 * 
 	 * @param product
+	 * @throws VersionConflictException if the product is no longer at the given
+	 *                                  version
 	 */
 	public void delete(Product product) {
+		DynamoDBMapperConfig config = product.getVersion() != null ? DynamoDBMapperConfig.DEFAULT
+				: DynamoDBMapperConfig.builder().withSaveBehavior(DynamoDBMapperConfig.SaveBehavior.CLOBBER).build();
+
 		try {
-			DynamoDBMapper mapper = dynamoDBMapper();
-			mapper.delete(product);
+			productTable.execute(() -> {
+				mapper.delete(product, config);
+				return product;
+			});
+		} catch (ServiceUnavailableException e) {
+			throw e;
+		} catch (ConditionalCheckFailedException e) {
+			throw new VersionConflictException("Product " + product.getProductId() + " is no longer at version "
+					+ product.getVersion());
 		} catch (Exception e) {
 			logger.error("TenantId: " + product.getTenantId() + "-Delete Product failed " + e.getMessage());
 		}
 	}
-	
-	public DynamoDBMapper dynamoDBMapper() {
-		DynamoDBMapperConfig dbMapperConfig = new DynamoDBMapperConfig.Builder().build();
-		AmazonDynamoDBClient dynamoClient = getAmazonDynamoDBLocalClient();
-		return new DynamoDBMapper(dynamoClient, dbMapperConfig);
+
+	/**
+	 * Writes the given attributes, removing those without a value, and moves the
+	 * item to the next version in the same UpdateItem. The expected version and,
+	 * for a patch, the item's existence are checked by the condition expression
+	 * instead of reading the item first.
+	 */
+	private Product updateItem(String tenantId, String productId, Map<String, AttributeValue> values,
+			Long expectedVersion, boolean mustExist) {
+		Map<String, String> names = new HashMap<String, String>();
+		Map<String, AttributeValue> expressionValues = new HashMap<String, AttributeValue>();
+		List<String> set = new ArrayList<String>();
+		List<String> remove = new ArrayList<String>();
+
+		values.forEach((attribute, value) -> {
+			names.put("#" + attribute, attribute);
+			if (value != null) {
+				expressionValues.put(":" + attribute, value);
+				set.add("#" + attribute + " = :" + attribute);
+			} else {
+				remove.add("#" + attribute);
+			}
+		});
+		names.put("#Version", "Version");
+		expressionValues.put(":One", new AttributeValue().withN("1"));
+		expressionValues.put(":Zero", new AttributeValue().withN("0"));
+		set.add("#Version = if_not_exists(#Version, :Zero) + :One");
+
+		String updateExpression = "SET " + String.join(", ", set);
+		if (!remove.isEmpty()) {
+			updateExpression += " REMOVE " + String.join(", ", remove);
+		}
+
+		List<String> conditions = new ArrayList<String>();
+		if (mustExist) {
+			names.put("#ProductId", "ProductId");
+			conditions.add("attribute_exists(#ProductId)");
+		}
+		if (expectedVersion != null) {
+			expressionValues.put(":Version", new AttributeValue().withN(expectedVersion.toString()));
+			conditions.add("#Version = :Version");
+		}
+
+		Map<String, AttributeValue> key = new HashMap<String, AttributeValue>();
+		key.put("TenantId", new AttributeValue().withS(tenantId));
+		key.put("ProductId", new AttributeValue().withS(productId));
+		UpdateItemRequest request = new UpdateItemRequest().withTableName("Product").withKey(key)
+				.withUpdateExpression(updateExpression)
+				.withConditionExpression(conditions.isEmpty() ? null : String.join(" AND ", conditions))
+				.withExpressionAttributeNames(names)
+				.withExpressionAttributeValues(expressionValues)
+				.withReturnValues(ReturnValue.ALL_NEW);
+
+		try {
+			return mapper.marshallIntoObject(Product.class,
+					productTable.execute(() -> amazonDynamoDB.updateItem(request)).getAttributes());
+		} catch (ConditionalCheckFailedException e) {
+			if (expectedVersion != null) {
+				throw new VersionConflictException("Product " + productId + " is no longer at version "
+						+ expectedVersion);
+			}
+			throw new ItemNotFoundException("Product " + productId + " not found");
+		}
+	}
+
+	/**
+	 * Every attribute of a product replaced by a full update, without a value
+	 * for those to remove
+	 */
+	private static Map<String, AttributeValue> attributes(Product product) {
+		Map<String, AttributeValue> values = new HashMap<String, AttributeValue>();
+		values.put("Name", stringValue(product.getName()));
+		values.put("Price", numberValue(product.getPrice()));
+		values.put("PictureUrl", stringValue(product.getPictureUrl()));
+		return values;
 	}
 
-	private AmazonDynamoDBClient getAmazonDynamoDBLocalClient() {
-		return (AmazonDynamoDBClient) AmazonDynamoDBClientBuilder.standard()
-				.withCredentials(new DefaultAWSCredentialsProviderChain()).build();
+	private static AttributeValue stringValue(String value) {
+		return value != null && !value.isEmpty() ? new AttributeValue().withS(value) : null;
 	}
 
-	
-	public static void main(String args[]) {
-		ProductRepository repo = new ProductRepository();
-		Product product = new Product();
-		product.setName("pen");
-		product.setTenantId("saas1301local");
-		//product.setProductId("asdfasdf");
-		product.setPrice(100.00);
-		repo.save(product );
-		
+	private static AttributeValue numberValue(Double value) {
+		return value != null ? new AttributeValue().withN(BigDecimal.valueOf(value).toPlainString()) : null;
+	}
+
+	private static Product productKey(String productId, String tenantId) {
+		Product key = new Product();
+		key.setTenantId(tenantId);
+		key.setProductId(productId);
+		return key;
+	}
+
+	private static String productId(WriteRequest writeRequest) {
+		Map<String, AttributeValue> key = writeRequest.getPutRequest() != null
+				? writeRequest.getPutRequest().getItem()
+				: writeRequest.getDeleteRequest().getKey();
+		return key.get("ProductId").getS();
+	}
+
+	private Projection projection(String fields) {
+		return Projection.of(fields, PRODUCT_FIELDS, "ProductId");
+	}
+
+	private DynamoDBQueryExpression<Product> tenantQuery(String tenantId, Projection projection) {
+		Map<String, String> expressionAttributeNames = new HashMap<String, String>();
+		expressionAttributeNames.put("#TenantId", "TenantId");
+		Map<String, AttributeValue> expressionAttributeValues = new HashMap<String, AttributeValue>();
+		expressionAttributeValues.put(":TenantId", new AttributeValue().withS(tenantId));
+
+		DynamoDBQueryExpression<Product> queryExpression = new DynamoDBQueryExpression<Product>()
+				.withKeyConditionExpression("#TenantId = :TenantId")
+				.withExpressionAttributeNames(expressionAttributeNames)
+				.withExpressionAttributeValues(expressionAttributeValues);
+
+		if (projection != null) {
+			expressionAttributeNames.putAll(projection.expressionAttributeNames());
+			queryExpression.setProjectionExpression(projection.expression());
+		}
+
+		queryExpression.setConsistentRead(false);
+
+		return queryExpression;
+	}
+
+	/**
+	 * Method to resolve the key to continue a product listing from. The tenant
+	 * part of the key always comes from the caller, never from the token.
+	 * 
+	 * @param tenantId
+	 * @param nextToken
+	 * @return Map<String, AttributeValue>
+	 */
+	private Map<String, AttributeValue> exclusiveStartKey(String tenantId, String nextToken) {
+		Map<String, String> key = PageToken.decode(tenantId, nextToken, "ProductId");
+		if (key == null) {
+			return null;
+		}
+
+		Map<String, AttributeValue> exclusiveStartKey = new HashMap<String, AttributeValue>();
+		exclusiveStartKey.put("TenantId", new AttributeValue().withS(tenantId));
+		exclusiveStartKey.put("ProductId", new AttributeValue().withS(key.get("ProductId")));
+		return exclusiveStartKey;
+	}
+
+	private String nextToken(String tenantId, Map<String, AttributeValue> lastEvaluatedKey) {
+		if (lastEvaluatedKey == null) {
+			return null;
+		}
+		return PageToken.encode(tenantId,
+				Collections.singletonMap("ProductId", lastEvaluatedKey.get("ProductId").getS()));
 	}
 
 }
\ No newline at end of file
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazonaws.saas.eks.service;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+
+import com.amazonaws.saas.eks.config.CacheProperties;
+
+/**
+ * Monotonically increasing catalog version per tenant, bumped after every
+ * product write made through this instance, from which product read ETags are
+ * derived.
+ * 
+ * The ETag also carries an epoch that is new on every start, so versions are
+ * never reused across restarts, and the current window of the product cache's
+ * time to live. Writes made through other replicas do not bump this instance's
+ * version, so the window ends any ETag after at most the time a cached product
+ * read may be served for.
+ */
+@Component
+public class CatalogVersions {
+	private final String epoch = UUID.randomUUID().toString().substring(0, 8);
+	private final ConcurrentMap<String, AtomicLong> versions = new ConcurrentHashMap<String, AtomicLong>();
+	private final long window;
+
+	public CatalogVersions(CacheProperties cacheProperties) {
+		this.window = cacheProperties.getTimeToLive();
+	}
+
+	/**
+	 * Method to record that a tenant's catalog has changed
+	 * 
+	 * @param tenantId
+	 */
+	public void bump(String tenantId) {
+		versions.computeIfAbsent(tenantId, k -> new AtomicLong()).incrementAndGet();
+	}
+
+	/**
+	 * Method to get the weak ETag of a tenant's current catalog
+	 * 
+	 * @param tenantId
+	 * @return String, or null when the product cache is disabled
+	 */
+	public String eTag(String tenantId) {
+		if (window <= 0) {
+			return null;
+		}
+		AtomicLong version = versions.get(tenantId);
+		return "W/\"" + epoch + "-" + (version != null ? version.get() : 0) + "-"
+				+ System.currentTimeMillis() / window + "\"";
+	}
+}
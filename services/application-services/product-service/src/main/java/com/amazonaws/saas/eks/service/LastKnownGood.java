@@ -0,0 +1,109 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazonaws.saas.eks.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+import com.amazonaws.saas.eks.config.CacheProperties;
+import com.amazonaws.saas.eks.exception.ItemNotFoundException;
+import com.amazonaws.saas.eks.exception.ServiceUnavailableException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Bounded store of the last successful result of each product read, served in
+ * place of a read that failed or was rejected by an open circuit. Such answers
+ * are marked through StaleReads. Hit and miss counts are published under the
+ * "cache.gets" metric with cache=productsLastKnownGood.
+ */
+@Component
+public class LastKnownGood {
+	private static final String CACHE_NAME = "productsLastKnownGood";
+
+	private final Cache<String, Object> snapshots;
+	private final boolean enabled;
+
+	public LastKnownGood(CacheProperties cacheProperties, MeterRegistry meterRegistry) {
+		this.enabled = cacheProperties.getStaleMaximumSize() > 0 && cacheProperties.getStaleTimeToLive() > 0;
+		this.snapshots = Caffeine.newBuilder()
+				.maximumSize(cacheProperties.getStaleMaximumSize())
+				.expireAfterWrite(cacheProperties.getStaleTimeToLive(), TimeUnit.MILLISECONDS)
+				.recordStats()
+				.build();
+		CaffeineCacheMetrics.monitor(meterRegistry, snapshots, CACHE_NAME);
+	}
+
+	/**
+	 * Method to run a read, keeping its result, or falling back to the last
+	 * result kept for the key when the read returns null for a failure or is
+	 * rejected by an open circuit
+	 * 
+	 * @param tenantId
+	 * @param key
+	 * @param read
+	 * @return T
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T read(String tenantId, String key, Supplier<T> read) {
+		if (!enabled) {
+			return read.get();
+		}
+
+		String snapshotKey = tenantId + "\u0000" + key;
+		T value;
+		try {
+			value = read.get();
+		} catch (ItemNotFoundException e) {
+			snapshots.invalidate(snapshotKey);
+			throw e;
+		} catch (ServiceUnavailableException e) {
+			T snapshot = (T) snapshots.getIfPresent(snapshotKey);
+			if (snapshot == null) {
+				throw e;
+			}
+			StaleReads.markStale();
+			return snapshot;
+		}
+
+		if (value != null) {
+			snapshots.put(snapshotKey, value);
+			return value;
+		}
+		T snapshot = (T) snapshots.getIfPresent(snapshotKey);
+		if (snapshot != null) {
+			StaleReads.markStale();
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Method to drop the kept results of a tenant whose keys start with a prefix
+	 * 
+	 * @param tenantId
+	 * @param keyPrefix
+	 */
+	public void invalidate(String tenantId, String keyPrefix) {
+		String prefix = tenantId + "\u0000" + keyPrefix;
+		snapshots.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+	}
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazonaws.saas.eks.service;
+
+import java.util.concurrent.CompletableFuture;
+
+import com.amazonaws.saas.eks.model.PagedResult;
+import com.amazonaws.saas.eks.model.Product;
+import com.amazonaws.saas.eks.model.ProductPatch;
+
+public interface ProductAsyncService {
+
+	CompletableFuture<Product> save(Product product);
+
+	CompletableFuture<Product> update(Product product);
+
+	CompletableFuture<Product> patch(String productId, String tenantId, ProductPatch patch);
+
+	CompletableFuture<Product> getProductById(String productId, String tenantId, String fields, boolean consistentRead);
+
+	CompletableFuture<PagedResult<Product>> getProducts(String tenantId, Integer limit, String nextToken,
+			String fields);
+
+	CompletableFuture<Void> delete(Product product);
+}
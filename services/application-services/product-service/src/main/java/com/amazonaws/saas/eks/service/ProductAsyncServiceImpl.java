@@ -0,0 +1,86 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazonaws.saas.eks.service;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import com.amazonaws.saas.eks.config.DynamodbProperties;
+import com.amazonaws.saas.eks.model.PagedResult;
+import com.amazonaws.saas.eks.model.Product;
+import com.amazonaws.saas.eks.model.ProductPatch;
+import com.amazonaws.saas.eks.repository.ProductAsyncRepository;
+
+/**
+ * Non-blocking counterpart of {@link ProductServiceImpl}. Reads go straight to
+ * DynamoDB, while every write drops what ProductServiceImpl keeps of the product
+ * and moves the tenant's catalog to a new version once it completes, whether it
+ * succeeded or not, as a write that timed out may still have been made.
+ */
+@Service
+@ConditionalOnProperty(prefix = "com.amazonaws.saas.eks.dynamodb", name = "async-enabled", havingValue = "true")
+public class ProductAsyncServiceImpl implements ProductAsyncService {
+
+	private ProductAsyncRepository productAsyncRepository;
+	private DynamodbProperties dynamodbProperties;
+	private ProductServiceImpl productService;
+
+	public ProductAsyncServiceImpl(ProductAsyncRepository productAsyncRepository,
+			DynamodbProperties dynamodbProperties, ProductServiceImpl productService) {
+		this.productAsyncRepository = productAsyncRepository;
+		this.dynamodbProperties = dynamodbProperties;
+		this.productService = productService;
+	}
+
+	@Override
+	public CompletableFuture<PagedResult<Product>> getProducts(String tenantId, Integer limit, String nextToken,
+			String fields) {
+		return productAsyncRepository.getProducts(tenantId, dynamodbProperties.pageSize(limit), nextToken, fields);
+	}
+
+	@Override
+	public CompletableFuture<Product> getProductById(String productId, String tenantId, String fields, boolean consistentRead) {
+		return productAsyncRepository.getProductById(productId, tenantId, fields, consistentRead);
+	}
+
+	@Override
+	public CompletableFuture<Product> save(Product product) {
+		return productAsyncRepository.save(product)
+				.whenComplete((saved, e) -> productService.written(product.getTenantId(), product.getProductId()));
+	}
+
+	@Override
+	public CompletableFuture<Product> update(Product product) {
+		return productAsyncRepository.update(product)
+				.whenComplete((updated, e) -> productService.written(product.getTenantId(), product.getProductId()));
+	}
+
+	@Override
+	public CompletableFuture<Product> patch(String productId, String tenantId, ProductPatch patch) {
+		return productAsyncRepository.patch(productId, tenantId, patch)
+				.whenComplete((patched, e) -> productService.written(tenantId, productId));
+	}
+
+	@Override
+	public CompletableFuture<Void> delete(Product product) {
+		return productAsyncRepository.delete(product)
+				.whenComplete((deleted, e) -> productService.written(product.getTenantId(), product.getProductId()));
+	}
+
+}
@@ -0,0 +1,286 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazonaws.saas.eks.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+
+import com.amazonaws.saas.eks.exception.InvalidBatchRequestException;
+import com.amazonaws.saas.eks.model.BulkWriteRow;
+import com.amazonaws.saas.eks.model.Product;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Reads a bulk product upload one row at a time, either as newline delimited
+ * JSON objects or as CSV with a header row, so the whole body is never held in
+ * memory. A quoted CSV value may span several lines, up to MAX_RECORD_LENGTH
+ * characters. Row numbers are the line numbers of the body on which a row
+ * starts.
+ */
+public class ProductBulkReader implements Iterator<BulkWriteRow> {
+	private static final ObjectMapper objectMapper = new ObjectMapper();
+
+	/**
+	 * Columns accepted in a row, by their lower case name
+	 */
+	private static final Map<String, String> COLUMNS = Map.of("op", "op", "productid", "productId", "name", "name",
+			"price", "price", "pictureurl", "pictureUrl");
+
+	/**
+	 * Most characters of a CSV row whose quoted values span several lines
+	 */
+	static final int MAX_RECORD_LENGTH = 64 * 1024;
+
+	private final BufferedReader reader;
+	private final List<String> header;
+	private long line;
+	private BulkWriteRow next;
+
+	private ProductBulkReader(InputStream inputStream, Charset charset, boolean csv) {
+		this.reader = new BufferedReader(new InputStreamReader(inputStream, charset));
+		this.header = csv ? readHeader() : null;
+	}
+
+	/**
+	 * Method to read an upload of newline delimited JSON objects
+	 * 
+	 * @param inputStream
+	 * @param charset
+	 * @return ProductBulkReader
+	 */
+	public static ProductBulkReader ndjson(InputStream inputStream, Charset charset) {
+		return new ProductBulkReader(inputStream, charset, false);
+	}
+
+	/**
+	 * Method to read a CSV upload whose first line names the columns
+	 * 
+	 * @param inputStream
+	 * @param charset
+	 * @return ProductBulkReader
+	 */
+	public static ProductBulkReader csv(InputStream inputStream, Charset charset) {
+		return new ProductBulkReader(inputStream, charset, true);
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (next == null) {
+			next = readRow();
+		}
+		return next != null;
+	}
+
+	@Override
+	public BulkWriteRow next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		BulkWriteRow row = next;
+		next = null;
+		return row;
+	}
+
+	private List<String> readHeader() {
+		String text = readLine();
+		if (text == null) {
+			throw new InvalidBatchRequestException("The CSV upload has no header row");
+		}
+		if (text.startsWith("\uFEFF")) {
+			text = text.substring(1);
+		}
+
+		List<String> cells = splitCsv(text);
+		if (cells == null) {
+			throw new InvalidBatchRequestException("The CSV header has an unterminated quoted value");
+		}
+
+		List<String> columns = new ArrayList<String>();
+		for (String column : cells) {
+			String name = COLUMNS.get(column.trim().toLowerCase(Locale.ROOT));
+			if (name == null) {
+				throw new InvalidBatchRequestException("Unknown CSV column: " + column);
+			}
+			columns.add(name);
+		}
+		return columns;
+	}
+
+	private BulkWriteRow readRow() {
+		String text = readLine();
+		if (text == null) {
+			return null;
+		}
+		return header != null ? csvRow(text) : jsonRow(text);
+	}
+
+	/**
+	 * Reads the next line that is not blank
+	 */
+	private String readLine() {
+		String text;
+		while ((text = readAnyLine()) != null) {
+			if (!text.isBlank()) {
+				return text;
+			}
+		}
+		return null;
+	}
+
+	private String readAnyLine() {
+		try {
+			String text = reader.readLine();
+			if (text != null) {
+				line++;
+			}
+			return text;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private BulkWriteRow jsonRow(String text) {
+		JsonNode node;
+		try {
+			node = objectMapper.readTree(text);
+		} catch (JsonProcessingException e) {
+			return BulkWriteRow.invalid(line, "Malformed JSON: " + e.getOriginalMessage());
+		}
+		if (!node.isObject()) {
+			return BulkWriteRow.invalid(line, "Each line must be a JSON object");
+		}
+
+		Map<String, String> values = new HashMap<String, String>();
+		node.fields().forEachRemaining(field -> {
+			if (field.getValue().isValueNode() && !field.getValue().isNull()) {
+				values.put(field.getKey(), field.getValue().asText());
+			}
+		});
+		return toRow(line, values);
+	}
+
+	/**
+	 * Reads a CSV row starting with the given line, adding the following lines
+	 * while a quoted value is still open
+	 */
+	private BulkWriteRow csvRow(String text) {
+		long row = line;
+		StringBuilder record = new StringBuilder(text);
+		List<String> cells;
+		while ((cells = splitCsv(record)) == null) {
+			String more = record.length() < MAX_RECORD_LENGTH ? readAnyLine() : null;
+			if (more == null) {
+				return BulkWriteRow.invalid(row, "Unterminated quoted value");
+			}
+			record.append('\n').append(more);
+		}
+		if (cells.size() > header.size()) {
+			return BulkWriteRow.invalid(row, "Row has more values than the header");
+		}
+
+		Map<String, String> values = new HashMap<String, String>();
+		for (int i = 0; i < cells.size(); i++) {
+			if (!cells.get(i).isEmpty()) {
+				values.put(header.get(i), cells.get(i));
+			}
+		}
+		return toRow(row, values);
+	}
+
+	private BulkWriteRow toRow(long row, Map<String, String> values) {
+		String op = values.getOrDefault("op", "upsert").trim().toUpperCase(Locale.ROOT);
+		String productId = values.get("productId");
+
+		Product product = new Product();
+		product.setProductId(productId);
+
+		if (BulkWriteRow.Operation.DELETE.name().equals(op)) {
+			if (productId == null || productId.isBlank()) {
+				return BulkWriteRow.invalid(row, "A delete needs a productId");
+			}
+			return BulkWriteRow.of(row, BulkWriteRow.Operation.DELETE, product);
+		}
+		if (!BulkWriteRow.Operation.UPSERT.name().equals(op)) {
+			return BulkWriteRow.invalid(row, "Unknown op: " + values.get("op"));
+		}
+
+		String name = values.get("name");
+		if (name == null || name.isBlank()) {
+			return BulkWriteRow.invalid(row, "An upsert needs a name");
+		}
+		try {
+			product.setPrice(Double.parseDouble(values.getOrDefault("price", "")));
+		} catch (NumberFormatException e) {
+			return BulkWriteRow.invalid(row, "An upsert needs a numeric price");
+		}
+		if (productId == null || productId.isBlank()) {
+			product.setProductId(UUID.randomUUID().toString());
+		}
+		product.setName(name);
+		product.setPictureUrl(values.get("pictureUrl"));
+
+		return BulkWriteRow.of(row, BulkWriteRow.Operation.UPSERT, product);
+	}
+
+	/**
+	 * Splits one CSV row, honouring double quoted values and doubled quotes and
+	 * line breaks inside them. Returns null when a quoted value is not closed.
+	 */
+	static List<String> splitCsv(CharSequence text) {
+		List<String> cells = new ArrayList<String>();
+		StringBuilder cell = new StringBuilder();
+		boolean quoted = false;
+
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (quoted) {
+				if (c != '"') {
+					cell.append(c);
+				} else if (i + 1 < text.length() && text.charAt(i + 1) == '"') {
+					cell.append('"');
+					i++;
+				} else {
+					quoted = false;
+				}
+			} else if (c == '"') {
+				quoted = true;
+			} else if (c == ',') {
+				cells.add(cell.toString());
+				cell.setLength(0);
+			} else {
+				cell.append(c);
+			}
+		}
+		cells.add(cell.toString());
+
+		return quoted ? null : cells;
+	}
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazonaws.saas.eks.service;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.springframework.stereotype.Component;
+
+import com.amazonaws.saas.eks.config.CacheProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Read-through cache of product reads, partitioned by tenant so that one
+ * tenant's catalog can neither read nor evict another's. Each partition holds
+ * at most maximumSize entries for timeToLive milliseconds and publishes its own
+ * "cache.*" metrics with cache=products and a tenant tag. Partitions of idle
+ * tenants are dropped together with their metrics.
+ * 
+ * Keys carry the generation of the tenant's partition, which every write moves
+ * on, so a read that was in flight during the write is stored under a key no
+ * later read asks for. Writes invalidate the tenant's entries on this instance
+ * only, so other replicas may serve a changed product for up to timeToLive.
+ * 
+ * Misses are loaded outside the cache's own map, as the loaders read DynamoDB
+ * and must not hold a lock of the map while they do. Concurrent misses for the
+ * same key of the same generation share a single load.
+ */
+@Component
+public class ProductCache {
+	private static final String CACHE_NAME = "products";
+	private static final String LIST_PREFIX = "list:";
+	private static final String PRODUCT_PREFIX = "product:";
+
+	private final Cache<String, Partition> partitions;
+	private final CacheProperties cacheProperties;
+	private final MeterRegistry meterRegistry;
+	private final boolean enabled;
+
+	public ProductCache(CacheProperties cacheProperties, MeterRegistry meterRegistry) {
+		this.cacheProperties = cacheProperties;
+		this.meterRegistry = meterRegistry;
+		this.enabled = cacheProperties.getMaximumSize() > 0 && cacheProperties.getTimeToLive() > 0;
+		this.partitions = Caffeine.newBuilder()
+				.maximumSize(cacheProperties.getMaximumTenants())
+				.expireAfterAccess(cacheProperties.getTimeToLive(), TimeUnit.MILLISECONDS)
+				.removalListener((String tenantId, Partition partition, RemovalCause cause) -> unbind(partition))
+				.build();
+	}
+
+	/**
+	 * Method to read a tenant's value through the cache. Null results are
+	 * returned without being cached.
+	 * 
+	 * @param tenantId
+	 * @param key
+	 * @param loader
+	 * @return T
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T get(String tenantId, String key, Supplier<T> loader) {
+		if (!enabled) {
+			return loader.get();
+		}
+		Partition partition = partitions.get(tenantId, this::newPartition);
+		long generation = partition.generation.get();
+		String cacheKey = generation + ":" + key;
+
+		Object value = partition.entries.getIfPresent(cacheKey);
+		if (value != null) {
+			return (T) value;
+		}
+		return (T) partition.loads.execute(cacheKey, () -> {
+			T loaded = loader.get();
+			if (loaded != null && partition.generation.get() == generation) {
+				partition.entries.put(cacheKey, loaded);
+			}
+			return loaded;
+		});
+	}
+
+	/**
+	 * Method to drop everything cached for a tenant, including the reads still in
+	 * flight
+	 * 
+	 * @param tenantId
+	 */
+	public void invalidateTenant(String tenantId) {
+		Partition partition = partitions.getIfPresent(tenantId);
+		if (partition != null) {
+			partition.generation.incrementAndGet();
+			partition.entries.invalidateAll();
+		}
+	}
+
+	public static String listKey(int limit, String nextToken, String fields) {
+		return LIST_PREFIX + limit + ":" + nextToken + ":" + fields;
+	}
+
+	public static String productKey(String productId, String fields) {
+		return PRODUCT_PREFIX + productId + "\u0000" + fields;
+	}
+
+	private Partition newPartition(String tenantId) {
+		Cache<String, Object> entries = Caffeine.newBuilder()
+				.maximumSize(cacheProperties.getMaximumSize())
+				.expireAfterWrite(cacheProperties.getTimeToLive(), TimeUnit.MILLISECONDS)
+				.recordStats()
+				.build();
+		// meters still tagged with the tenant belong to a dropped partition whose
+		// removal listener has not run yet, and would be reused instead of bound anew
+		tenantMeters(tenantId).forEach(meterRegistry::remove);
+		CaffeineCacheMetrics.monitor(meterRegistry, entries, CACHE_NAME, "tenant", tenantId);
+		return new Partition(entries, tenantMeters(tenantId));
+	}
+
+	private List<Meter> tenantMeters(String tenantId) {
+		return meterRegistry.getMeters().stream()
+				.filter(meter -> CACHE_NAME.equals(meter.getId().getTag("cache"))
+						&& tenantId.equals(meter.getId().getTag("tenant")))
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * Removes the meters bound for a dropped partition, leaving those a newer
+	 * partition of the same tenant has bound since
+	 */
+	private void unbind(Partition partition) {
+		meterRegistry.getMeters().stream()
+				.filter(meter -> partition.meters.stream().anyMatch(bound -> bound == meter))
+				.forEach(meterRegistry::remove);
+	}
+
+	private static final class Partition {
+		private final Cache<String, Object> entries;
+		private final List<Meter> meters;
+		private final AtomicLong generation = new AtomicLong();
+		private final SingleFlight<String, Object> loads = new SingleFlight<String, Object>();
+
+		private Partition(Cache<String, Object> entries, List<Meter> meters) {
+			this.entries = entries;
+			this.meters = meters;
+		}
+	}
+}
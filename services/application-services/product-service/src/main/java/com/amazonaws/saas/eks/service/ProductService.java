@@ -16,9 +16,15 @@
  */
 package com.amazonaws.saas.eks.service;
 
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
 
+import com.amazonaws.saas.eks.model.BulkWriteRow;
+import com.amazonaws.saas.eks.model.BulkWriteSummary;
+import com.amazonaws.saas.eks.model.PagedResult;
 import com.amazonaws.saas.eks.model.Product;
+import com.amazonaws.saas.eks.model.ProductPatch;
 
 public interface ProductService {
 
@@ -26,9 +32,19 @@ public interface ProductService {
 
 	Product update(Product product);
 
-	Product getProductById(String productId, String tenantId);
+	Product patch(String productId, String tenantId, ProductPatch patch);
 
-	List<Product> getProducts(String tenantId);
+	Product getProductById(String productId, String tenantId, String fields, boolean consistentRead);
+
+	List<Product> getProductsByIds(List<String> productIds, String tenantId);
+
+	PagedResult<Product> getProducts(String tenantId, Integer limit, String nextToken, String fields);
+
+	void exportProducts(String tenantId, Consumer<List<Product>> pageConsumer);
 
 	void delete(Product product);
+
+	BulkWriteSummary bulkWrite(String tenantId, Iterator<BulkWriteRow> rows);
+
+	String getCatalogETag(String tenantId);
 }
\ No newline at end of file
@@ -16,45 +16,236 @@
  */
 package com.amazonaws.saas.eks.service;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
 
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
+import com.amazonaws.saas.eks.config.DynamodbProperties;
+import com.amazonaws.saas.eks.exception.ItemNotFoundException;
+import com.amazonaws.saas.eks.model.BulkWriteRow;
+import com.amazonaws.saas.eks.model.BulkWriteSummary;
+import com.amazonaws.saas.eks.model.PagedResult;
 import com.amazonaws.saas.eks.model.Product;
+import com.amazonaws.saas.eks.model.ProductPatch;
 import com.amazonaws.saas.eks.repository.ProductRepository;
 
 @Service
 public class ProductServiceImpl implements ProductService {
 
+	/**
+	 * Most items a single BatchWriteItem request accepts, also used as the number
+	 * of rows written by one task
+	 */
+	private static final int BATCH_WRITE_SIZE = 25;
+
 	private ProductRepository productRepository;
+	private DynamodbProperties dynamodbProperties;
+	private ExecutorService fanOutExecutor;
+	private ProductCache productCache;
+	private CatalogVersions catalogVersions;
+	private NotFoundCache notFoundCache;
+	private LastKnownGood lastKnownGood;
+	private SingleFlight<String, Product> productReads = new SingleFlight<String, Product>();
 
-	public ProductServiceImpl(ProductRepository productRepository) {
+	public ProductServiceImpl(ProductRepository productRepository, DynamodbProperties dynamodbProperties,
+			@Qualifier("fanOutExecutor") ExecutorService fanOutExecutor, ProductCache productCache,
+			CatalogVersions catalogVersions, NotFoundCache notFoundCache, LastKnownGood lastKnownGood) {
 		this.productRepository = productRepository;
+		this.dynamodbProperties = dynamodbProperties;
+		this.fanOutExecutor = fanOutExecutor;
+		this.productCache = productCache;
+		this.catalogVersions = catalogVersions;
+		this.notFoundCache = notFoundCache;
+		this.lastKnownGood = lastKnownGood;
+	}
+
+	@Override
+	public PagedResult<Product> getProducts(String tenantId, Integer limit, String nextToken, String fields) {
+		int pageSize = dynamodbProperties.pageSize(limit);
+		String key = ProductCache.listKey(pageSize, nextToken, fields);
+		return lastKnownGood.read(tenantId, key, () -> productCache.get(tenantId, key,
+				() -> productRepository.getProducts(tenantId, pageSize, nextToken, fields)));
 	}
 
 	@Override
-	public List<Product> getProducts(String tenantId) {
-		return productRepository.getProducts(tenantId);
+	public void exportProducts(String tenantId, Consumer<List<Product>> pageConsumer) {
+		productRepository.exportProducts(tenantId, pageConsumer);
+	}
+
+	/**
+	 * Reads through the product cache. Concurrent reads of the same product share
+	 * one DynamoDB call, ids found missing are answered from the not found cache
+	 * until it expires, and the last product read is served when DynamoDB fails.
+	 * A consistent read skips the caches and is never shared, as they may hold
+	 * what was read before a write through another replica.
+	 */
+	@Override
+	public Product getProductById(String productId, String tenantId, String fields, boolean consistentRead) {
+		String key = ProductCache.productKey(productId, fields);
+		if (consistentRead) {
+			return lastKnownGood.read(tenantId, key,
+					() -> productRepository.getProductById(productId, tenantId, fields, true));
+		}
+
+		if (notFoundCache.isMissing(tenantId, productId)) {
+			throw new ItemNotFoundException("Product " + productId + " not found");
+		}
+
+		try {
+			return lastKnownGood.read(tenantId, key,
+					() -> productCache.get(tenantId, key, () -> productReads.execute(tenantId + "\u0000" + key,
+							() -> productRepository.getProductById(productId, tenantId, fields, false))));
+		} catch (ItemNotFoundException e) {
+			notFoundCache.putMissing(tenantId, productId);
+			throw e;
+		}
 	}
 
 	@Override
-	public Product getProductById(String productId, String tenantId) {
-		return productRepository.getProductById(productId, tenantId);
+	public List<Product> getProductsByIds(List<String> productIds, String tenantId) {
+		return productRepository.getProductsByIds(productIds, tenantId);
 	}
 
 	@Override
 	public Product save(Product product) {
-		return productRepository.save(product);
+		Product savedProduct = productRepository.save(product);
+		written(product.getTenantId(), product.getProductId());
+		return savedProduct;
 	}
 
 	@Override
 	public Product update(Product product) {
-		return productRepository.update(product);
+		Product updatedProduct = productRepository.update(product);
+		written(product.getTenantId(), product.getProductId());
+		return updatedProduct;
+	}
+
+	@Override
+	public Product patch(String productId, String tenantId, ProductPatch patch) {
+		Product patchedProduct = productRepository.patch(productId, tenantId, patch);
+		written(tenantId, productId);
+		return patchedProduct;
 	}
 
 	@Override
 	public void delete(Product product) {
 		productRepository.delete(product);
+		written(product.getTenantId(), product.getProductId());
+	}
+
+	@Override
+	public String getCatalogETag(String tenantId) {
+		return catalogVersions.eTag(tenantId);
+	}
+
+	/**
+	 * Groups the rows into batches of up to 25 items and writes them on the fan
+	 * out executor, with at most bulkWriteConcurrency batches in flight. A
+	 * productId is never repeated within one batch, since DynamoDB rejects such a
+	 * BatchWriteItem request. Once the upload ends, every read the replica keeps
+	 * of the tenant is dropped.
+	 */
+	@Override
+	public BulkWriteSummary bulkWrite(String tenantId, Iterator<BulkWriteRow> rows) {
+		BulkWriteSummary summary = new BulkWriteSummary(dynamodbProperties.getBulkWriteMaxReportedErrors());
+		int concurrency = dynamodbProperties.getBulkWriteConcurrency();
+		Semaphore permits = new Semaphore(concurrency);
+
+		List<BulkWriteRow> batch = new ArrayList<BulkWriteRow>(BATCH_WRITE_SIZE);
+		Set<String> batchKeys = new HashSet<String>();
+
+		try {
+			while (rows.hasNext()) {
+				BulkWriteRow row = rows.next();
+				summary.received();
+
+				if (row.getError() != null) {
+					summary.failed(row, row.getError());
+					continue;
+				}
+				row.getProduct().setTenantId(tenantId);
+
+				if (batch.size() == BATCH_WRITE_SIZE || batchKeys.contains(row.getProduct().getProductId())) {
+					submit(tenantId, batch, permits, summary);
+					batch = new ArrayList<BulkWriteRow>(BATCH_WRITE_SIZE);
+					batchKeys.clear();
+				}
+				batch.add(row);
+				batchKeys.add(row.getProduct().getProductId());
+			}
+
+			if (!batch.isEmpty()) {
+				submit(tenantId, batch, permits, summary);
+			}
+		} finally {
+			permits.acquireUninterruptibly(concurrency);
+			productCache.invalidateTenant(tenantId);
+			notFoundCache.invalidateTenant(tenantId);
+			lastKnownGood.invalidate(tenantId, "");
+			productReads.forget(key -> key.startsWith(tenantId + "\u0000"));
+			catalogVersions.bump(tenantId);
+		}
+
+		return summary;
+	}
+
+	/**
+	 * Drops the tenant's cached reads and everything else read of the product
+	 * before it was written, and moves the tenant's catalog to a new version.
+	 * Also called by {@link ProductAsyncServiceImpl} for its writes.
+	 */
+	void written(String tenantId, String productId) {
+		productCache.invalidateTenant(tenantId);
+		notFoundCache.invalidate(tenantId, productId);
+		lastKnownGood.invalidate(tenantId, ProductCache.productKey(productId, ""));
+		String productReadPrefix = tenantId + "\u0000" + ProductCache.productKey(productId, "");
+		productReads.forget(key -> key.startsWith(productReadPrefix));
+		catalogVersions.bump(tenantId);
+	}
+
+	private void submit(String tenantId, List<BulkWriteRow> batch, Semaphore permits, BulkWriteSummary summary) {
+		permits.acquireUninterruptibly();
+		try {
+			fanOutExecutor.execute(() -> {
+				try {
+					writeBatch(tenantId, batch, summary);
+				} finally {
+					permits.release();
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			permits.release();
+			throw e;
+		}
+	}
+
+	private void writeBatch(String tenantId, List<BulkWriteRow> batch, BulkWriteSummary summary) {
+		List<Product> upserts = new ArrayList<Product>();
+		List<Product> deletes = new ArrayList<Product>();
+		for (BulkWriteRow row : batch) {
+			(row.getOperation() == BulkWriteRow.Operation.DELETE ? deletes : upserts).add(row.getProduct());
+		}
+
+		Map<String, String> failures = productRepository.batchWrite(upserts, deletes, tenantId);
+
+		for (BulkWriteRow row : batch) {
+			String error = failures.get(row.getProduct().getProductId());
+			if (error == null) {
+				summary.succeeded(row);
+			} else {
+				summary.failed(row, error);
+			}
+		}
 	}
 
 }
\ No newline at end of file
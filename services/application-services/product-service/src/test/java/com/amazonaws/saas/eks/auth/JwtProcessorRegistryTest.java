@@ -0,0 +1,122 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazonaws.saas.eks.auth;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jose.util.Resource;
+import com.nimbusds.jose.util.ResourceRetriever;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.nimbusds.jwt.proc.BadJWTException;
+
+class JwtProcessorRegistryTest {
+	private static final String ISSUER = "https://cognito-idp.us-east-1.amazonaws.com/us-east-1_Trusted";
+	private static final String OTHER_ISSUER = "https://cognito-idp.us-east-1.amazonaws.com/us-east-1_Other";
+
+	private static RSAKey rsaKey;
+	private static ResourceRetriever jwksStandIn;
+
+	private final JwtConfig jwtConfig = new JwtConfig();
+
+	@BeforeAll
+	static void createKey() throws Exception {
+		rsaKey = new RSAKeyGenerator(2048).keyID("test-key").generate();
+		String jwkSetJson = new JWKSet(rsaKey.toPublicJWK()).toString();
+		jwksStandIn = url -> new Resource(jwkSetJson, "application/json");
+	}
+
+	@BeforeEach
+	void setUp() {
+		jwtConfig.setTrustedIssuers(Arrays.asList(ISSUER));
+	}
+
+	@Test
+	void verifiesTokensOfATrustedIssuer() throws Exception {
+		JwtProcessorRegistry registry = new JwtProcessorRegistry(jwtConfig, jwksStandIn);
+
+		JWTClaimsSet claimsSet = registry.getProcessor(ISSUER).process(token(ISSUER), null);
+
+		assertThat(claimsSet.getIssuer()).isEqualTo(ISSUER);
+		assertThat(claimsSet.getSubject()).isEqualTo("user");
+	}
+
+	@Test
+	void addsTheIssuerOfTheConfiguredUserPool() throws Exception {
+		jwtConfig.setRegion("us-east-1");
+		jwtConfig.setUserPoolId("us-east-1_Other");
+		JwtProcessorRegistry registry = new JwtProcessorRegistry(jwtConfig, jwksStandIn);
+
+		assertThat(registry.getProcessor(OTHER_ISSUER).process(token(OTHER_ISSUER), null).getIssuer())
+				.isEqualTo(OTHER_ISSUER);
+		assertThat(registry.getProcessor(ISSUER)).isNotNull();
+	}
+
+	@Test
+	void rejectsIssuersOutsideTheAllowlist() {
+		JwtProcessorRegistry registry = new JwtProcessorRegistry(jwtConfig, jwksStandIn);
+
+		assertThatThrownBy(() -> registry.getProcessor(OTHER_ISSUER)).isInstanceOf(BadJWTException.class);
+		assertThatThrownBy(() -> registry.getProcessor("https://issuer.example.com"))
+				.isInstanceOf(BadJWTException.class);
+		assertThatThrownBy(() -> registry.getProcessor(null)).isInstanceOf(BadJWTException.class);
+	}
+
+	@Test
+	void rejectsATokenWhoseIssuerDoesNotMatchTheProcessor() throws Exception {
+		JwtProcessorRegistry registry = new JwtProcessorRegistry(jwtConfig, jwksStandIn);
+		SignedJWT token = token(OTHER_ISSUER);
+
+		assertThatThrownBy(() -> registry.getProcessor(ISSUER).process(token, null))
+				.isInstanceOf(BadJWTException.class);
+	}
+
+	@Test
+	void refusesToStartWithoutATrustedIssuer() {
+		jwtConfig.setTrustedIssuers(Collections.emptyList());
+
+		assertThatThrownBy(() -> new JwtProcessorRegistry(jwtConfig, jwksStandIn))
+				.isInstanceOf(IllegalStateException.class);
+	}
+
+	private static SignedJWT token(String issuer) throws Exception {
+		JWTClaimsSet claimsSet = new JWTClaimsSet.Builder()
+				.issuer(issuer)
+				.subject("user")
+				.expirationTime(new Date(System.currentTimeMillis() + 60000))
+				.build();
+		SignedJWT signedJWT = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(rsaKey.getKeyID()).build(),
+				claimsSet);
+		signedJWT.sign(new RSASSASigner(rsaKey));
+		return signedJWT;
+	}
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazonaws.saas.eks.auth;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Collections;
+import java.util.Date;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.core.Authentication;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jose.util.Resource;
+import com.nimbusds.jose.util.ResourceRetriever;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.nimbusds.jwt.proc.BadJWTException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class TokenProcessorTest {
+	private static final String ISSUER = "https://cognito-idp.us-east-1.amazonaws.com/us-east-1_Trusted";
+
+	private static RSAKey rsaKey;
+	private static ResourceRetriever jwksStandIn;
+
+	private TokenProcessor tokenProcessor;
+
+	@BeforeAll
+	static void createKey() throws Exception {
+		rsaKey = new RSAKeyGenerator(2048).keyID("test-key").generate();
+		String jwkSetJson = new JWKSet(rsaKey.toPublicJWK()).toString();
+		jwksStandIn = url -> new Resource(jwkSetJson, "application/json");
+	}
+
+	@BeforeEach
+	void setUp() {
+		JwtConfig jwtConfig = new JwtConfig();
+		jwtConfig.setTrustedIssuers(Collections.singletonList(ISSUER));
+		tokenProcessor = new TokenProcessor(jwtConfig, new JwtProcessorRegistry(jwtConfig, jwksStandIn),
+				new VerifiedTokenCache(jwtConfig, new SimpleMeterRegistry()));
+	}
+
+	@Test
+	void authenticatesAValidToken() throws Exception {
+		String token = token(ISSUER);
+
+		Authentication authentication = tokenProcessor.authenticate(request("Bearer " + token));
+
+		assertThat(authentication).isInstanceOf(JwtAuth.class);
+		assertThat(((JwtAuth) authentication).getTenantContext().getTenantId()).isEqualTo("tenant-1");
+		assertThat(tokenProcessor.authenticate(request(token))).isSameAs(authentication);
+	}
+
+	@Test
+	void leavesAMalformedTokenUnauthenticated() throws Exception {
+		assertThat(tokenProcessor.authenticate(request("Bearer not-a-token"))).isNull();
+		assertThat(tokenProcessor.authenticate(request("Bearer a.b.c"))).isNull();
+	}
+
+	@Test
+	void leavesARequestWithoutATokenUnauthenticated() throws Exception {
+		assertThat(tokenProcessor.authenticate(new MockHttpServletRequest())).isNull();
+	}
+
+	@Test
+	void rejectsATokenOfAnUntrustedIssuer() throws Exception {
+		String token = token("https://cognito-idp.us-east-1.amazonaws.com/us-east-1_Other");
+
+		assertThatThrownBy(() -> tokenProcessor.authenticate(request("Bearer " + token)))
+				.isInstanceOf(BadJWTException.class);
+	}
+
+	private static MockHttpServletRequest request(String authorization) {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("Authorization", authorization);
+		return request;
+	}
+
+	private static String token(String issuer) throws Exception {
+		JWTClaimsSet claimsSet = new JWTClaimsSet.Builder()
+				.issuer(issuer)
+				.claim("cognito:username", "user")
+				.claim("custom:tenant-id", "tenant-1")
+				.expirationTime(new Date(System.currentTimeMillis() + 60000))
+				.build();
+		SignedJWT signedJWT = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(rsaKey.getKeyID()).build(),
+				claimsSet);
+		signedJWT.sign(new RSASSASigner(rsaKey));
+		return signedJWT.serialize();
+	}
+}
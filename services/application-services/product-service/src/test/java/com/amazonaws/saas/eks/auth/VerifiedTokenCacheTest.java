@@ -0,0 +1,82 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazonaws.saas.eks.auth;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collections;
+import java.util.Date;
+
+import org.junit.jupiter.api.Test;
+
+import com.nimbusds.jwt.JWTClaimsSet;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class VerifiedTokenCacheTest {
+	private final JwtConfig jwtConfig = new JwtConfig();
+
+	@Test
+	void returnsAVerifiedTokenUntilItExpires() throws Exception {
+		VerifiedTokenCache cache = new VerifiedTokenCache(jwtConfig, new SimpleMeterRegistry());
+		JwtAuth authentication = authentication(new Date(System.currentTimeMillis() + 500));
+
+		cache.put("token", authentication);
+
+		assertThat(cache.get("token")).isSameAs(authentication);
+		Thread.sleep(600);
+		assertThat(cache.get("token")).isNull();
+	}
+
+	@Test
+	void keysEntriesByTheWholeToken() {
+		VerifiedTokenCache cache = new VerifiedTokenCache(jwtConfig, new SimpleMeterRegistry());
+		JwtAuth authentication = authentication(new Date(System.currentTimeMillis() + 60000));
+
+		cache.put("header.payload.signature", authentication);
+
+		assertThat(cache.get("header.payload.signature")).isSameAs(authentication);
+		assertThat(cache.get("header.payload.signaturf")).isNull();
+		assertThat(cache.get("header.payload")).isNull();
+	}
+
+	@Test
+	void skipsTokensThatExpiredOrNeverExpire() {
+		VerifiedTokenCache cache = new VerifiedTokenCache(jwtConfig, new SimpleMeterRegistry());
+
+		cache.put("expired", authentication(new Date(System.currentTimeMillis() - 1000)));
+		cache.put("without exp", authentication(null));
+
+		assertThat(cache.get("expired")).isNull();
+		assertThat(cache.get("without exp")).isNull();
+	}
+
+	@Test
+	void cachesNothingWhenDisabled() {
+		jwtConfig.setTokenCacheMaximumSize(0);
+		VerifiedTokenCache cache = new VerifiedTokenCache(jwtConfig, new SimpleMeterRegistry());
+
+		cache.put("token", authentication(new Date(System.currentTimeMillis() + 60000)));
+
+		assertThat(cache.get("token")).isNull();
+	}
+
+	private static JwtAuth authentication(Date expirationTime) {
+		JWTClaimsSet claimsSet = new JWTClaimsSet.Builder().subject("user").expirationTime(expirationTime).build();
+		return new JwtAuth("user", claimsSet, new TenantContext("tenant", "basic", "user"), Collections.emptyList());
+	}
+}
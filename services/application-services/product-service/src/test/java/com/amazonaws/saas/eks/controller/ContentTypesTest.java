@@ -0,0 +1,61 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazonaws.saas.eks.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+class ContentTypesTest {
+
+	@Test
+	void defaultsToJson() {
+		assertThat(ContentTypes.negotiate(null)).isEqualTo(MediaType.APPLICATION_JSON);
+		assertThat(ContentTypes.negotiate("")).isEqualTo(MediaType.APPLICATION_JSON);
+		assertThat(ContentTypes.negotiate("*/*")).isEqualTo(MediaType.APPLICATION_JSON);
+		assertThat(ContentTypes.negotiate("text/html")).isEqualTo(MediaType.APPLICATION_JSON);
+		assertThat(ContentTypes.negotiate("not a media type")).isEqualTo(MediaType.APPLICATION_JSON);
+	}
+
+	@Test
+	void picksTheAcceptedBinaryFormat() {
+		assertThat(ContentTypes.negotiate("application/cbor")).isEqualTo(MediaType.APPLICATION_CBOR);
+		assertThat(ContentTypes.negotiate("application/x-jackson-smile, */*;q=0.1"))
+				.isEqualTo(ContentTypes.APPLICATION_SMILE);
+	}
+
+	@Test
+	void prefersTheHighestQuality() {
+		assertThat(ContentTypes.negotiate("application/json;q=0.5, application/cbor"))
+				.isEqualTo(MediaType.APPLICATION_CBOR);
+		assertThat(ContentTypes.negotiate("application/cbor;q=0.5, application/json"))
+				.isEqualTo(MediaType.APPLICATION_JSON);
+		assertThat(ContentTypes.negotiate("application/cbor;q=0, application/*"))
+				.isEqualTo(MediaType.APPLICATION_JSON);
+	}
+
+	@Test
+	void acceptsGzipUnlessItIsRefused() {
+		assertThat(ContentTypes.acceptsGzip("gzip")).isTrue();
+		assertThat(ContentTypes.acceptsGzip("deflate, GZIP;q=0.5")).isTrue();
+		assertThat(ContentTypes.acceptsGzip(null)).isFalse();
+		assertThat(ContentTypes.acceptsGzip("deflate, br")).isFalse();
+		assertThat(ContentTypes.acceptsGzip("gzip;q=0")).isFalse();
+		assertThat(ContentTypes.acceptsGzip("gzip;q=0.000, deflate")).isFalse();
+	}
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazonaws.saas.eks.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.amazonaws.saas.eks.config.CacheProperties;
+import com.amazonaws.saas.eks.controller.ProductListingCache.EncodedListing;
+import com.amazonaws.saas.eks.model.PagedResult;
+import com.amazonaws.saas.eks.model.Product;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ProductListingCacheTest {
+	private static final TypeReference<List<Product>> LISTING = new TypeReference<List<Product>>() {
+	};
+
+	private final CacheProperties cacheProperties = new CacheProperties();
+	private final MappingJackson2CborHttpMessageConverter cborConverter = new MappingJackson2CborHttpMessageConverter();
+	private final MappingJackson2SmileHttpMessageConverter smileConverter = new MappingJackson2SmileHttpMessageConverter();
+	private ProductListingCache cache;
+
+	@BeforeEach
+	void setUp() {
+		cacheProperties.setResponseMaximumSize(1024 * 1024);
+		cacheProperties.setTimeToLive(60000);
+		cache = new ProductListingCache(cacheProperties, new SimpleMeterRegistry(), new ObjectMapper(), cborConverter,
+				smileConverter);
+	}
+
+	@Test
+	void encodesTheListingInTheNegotiatedFormat() throws IOException {
+		List<Product> products = List.of(product("p-1"), product("p-2"));
+
+		EncodedListing json = cache.encode(MediaType.APPLICATION_JSON, products, "next");
+		EncodedListing cbor = cache.encode(MediaType.APPLICATION_CBOR, products, null);
+		EncodedListing smile = cache.encode(ContentTypes.APPLICATION_SMILE, products, null);
+
+		assertThat(json.getMediaType()).isEqualTo(MediaType.APPLICATION_JSON);
+		assertThat(json.getNextToken()).isEqualTo("next");
+		assertThat(new ObjectMapper().readValue(json.getBody(), LISTING)).extracting(Product::getProductId)
+				.containsExactly("p-1", "p-2");
+		assertThat(cborConverter.getObjectMapper().readValue(cbor.getBody(), LISTING))
+				.extracting(Product::getProductId).containsExactly("p-1", "p-2");
+		assertThat(smileConverter.getObjectMapper().readValue(smile.getBody(), LISTING))
+				.extracting(Product::getProductId).containsExactly("p-1", "p-2");
+	}
+
+	@Test
+	void compressesOnlyOnceWhenGzipIsFirstAskedFor() throws IOException {
+		EncodedListing listing = cache.encode(MediaType.APPLICATION_JSON, List.of(product("p-1")), null);
+
+		byte[] gzipBody = listing.getGzipBody();
+
+		assertThat(listing.getGzipBody()).isSameAs(gzipBody);
+		try (GZIPInputStream gunzip = new GZIPInputStream(new ByteArrayInputStream(gzipBody))) {
+			assertThat(gunzip.readAllBytes()).isEqualTo(listing.getBody());
+		}
+	}
+
+	@Test
+	void keysListingsByCatalogETagAndFormat() throws IOException {
+		EncodedListing listing = cache.encode(MediaType.APPLICATION_JSON, List.of(product("p-1")), null);
+		cache.put(ProductListingCache.key("tenant", "\"1\"", MediaType.APPLICATION_JSON, 10, null, null), listing);
+
+		assertThat(cache.get(ProductListingCache.key("tenant", "\"1\"", MediaType.APPLICATION_JSON, 10, null, null)))
+				.isSameAs(listing);
+		assertThat(cache.get(ProductListingCache.key("tenant", "\"2\"", MediaType.APPLICATION_JSON, 10, null, null)))
+				.isNull();
+		assertThat(cache.get(ProductListingCache.key("tenant", "\"1\"", MediaType.APPLICATION_CBOR, 10, null, null)))
+				.isNull();
+		assertThat(cache.get(ProductListingCache.key("other", "\"1\"", MediaType.APPLICATION_JSON, 10, null, null)))
+				.isNull();
+	}
+
+	@Test
+	void keepsNothingWhenDisabled() throws IOException {
+		cacheProperties.setResponseMaximumSize(0);
+		ProductListingCache disabled = new ProductListingCache(cacheProperties, new SimpleMeterRegistry(),
+				new ObjectMapper(), cborConverter, smileConverter);
+		String key = ProductListingCache.key("tenant", "\"1\"", MediaType.APPLICATION_JSON, 10, null, null);
+
+		disabled.put(key, disabled.encode(MediaType.APPLICATION_JSON, List.of(product("p-1")), null));
+
+		assertThat(disabled.get(key)).isNull();
+	}
+
+	@Test
+	void answersNotModifiedForTheCurrentCatalogETag() {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/tenant/products");
+		request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"1\"");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		assertThat(ProductController.notModified("\"1\"", request, response)).isTrue();
+		assertThat(response.getStatus()).isEqualTo(304);
+		assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo("\"1\"");
+
+		MockHttpServletResponse changed = new MockHttpServletResponse();
+		assertThat(ProductController.notModified("\"2\"", request, changed)).isFalse();
+		assertThat(changed.getHeader(HttpHeaders.ETAG)).isEqualTo("\"2\"");
+		assertThat(ProductController.notModified(null, request, new MockHttpServletResponse())).isFalse();
+	}
+
+	@Test
+	void sendsTheGzipBodyOnlyToClientsThatAcceptIt() throws IOException {
+		EncodedListing listing = cache.encode(MediaType.APPLICATION_CBOR, List.of(product("p-1")), "next");
+		MockHttpServletRequest plain = new MockHttpServletRequest("GET", "/tenant/products");
+		MockHttpServletRequest gzip = new MockHttpServletRequest("GET", "/tenant/products");
+		gzip.addHeader(HttpHeaders.ACCEPT_ENCODING, "deflate, gzip");
+
+		ResponseEntity<byte[]> plainResponse = ProductController.toResponse(listing, plain);
+		ResponseEntity<byte[]> gzipResponse = ProductController.toResponse(listing, gzip);
+
+		assertThat(plainResponse.getBody()).isSameAs(listing.getBody());
+		assertThat(plainResponse.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_CBOR);
+		assertThat(plainResponse.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isNull();
+		assertThat(plainResponse.getHeaders().getFirst(PagedResult.NEXT_TOKEN_HEADER)).isEqualTo("next");
+		assertThat(gzipResponse.getBody()).isSameAs(listing.getGzipBody());
+		assertThat(gzipResponse.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+		assertThat(gzipResponse.getHeaders().getVary()).contains(HttpHeaders.ACCEPT_ENCODING);
+	}
+
+	private static Product product(String productId) {
+		Product product = new Product();
+		product.setProductId(productId);
+		product.setName("Chair");
+		product.setPrice(12.5);
+		return product;
+	}
+}
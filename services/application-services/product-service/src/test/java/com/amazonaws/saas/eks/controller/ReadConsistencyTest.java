@@ -0,0 +1,161 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazonaws.saas.eks.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collections;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.amazonaws.saas.eks.auth.TenantContext;
+import com.amazonaws.saas.eks.config.ConsistencyProperties;
+
+class ReadConsistencyTest {
+	private final ConsistencyProperties properties = new ConsistencyProperties();
+	private ReadConsistency readConsistency;
+
+	@BeforeEach
+	void setUp() {
+		properties.setSessionSecret("test-secret");
+		readConsistency = new ReadConsistency(properties);
+	}
+
+	@Test
+	void readsEventuallyConsistentByDefault() {
+		assertThat(readConsistency.isConsistent(new MockHttpServletRequest(), "tenant1", "id-1")).isFalse();
+	}
+
+	@Test
+	void followsTheRequestedMode() {
+		assertThat(readConsistency.isConsistent(request(ReadConsistency.HEADER, "strong"), "tenant1", "id-1"))
+				.isTrue();
+
+		properties.setDefaultMode("strong");
+		assertThat(readConsistency.isConsistent(request(ReadConsistency.HEADER, "eventual"), "tenant1", "id-1"))
+				.isFalse();
+	}
+
+	@Test
+	void readsStrongTiersConsistently() {
+		properties.setStrongTiers(Collections.singletonList("Platinum"));
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setAttribute(TenantContext.REQUEST_ATTRIBUTE, new TenantContext("tenant1", "platinum", "user"));
+
+		assertThat(readConsistency.isConsistent(request, "tenant1", "id-1")).isTrue();
+	}
+
+	@Test
+	void readsTheWrittenKeysConsistently() {
+		String token = write(null, "tenant1", "id-1");
+
+		assertThat(readConsistency.isConsistent(request(ReadConsistency.TOKEN_HEADER, token), "tenant1", "id-1"))
+				.isTrue();
+		assertThat(readConsistency.isConsistent(request(ReadConsistency.TOKEN_HEADER, token), "tenant1", "id-2"))
+				.isFalse();
+	}
+
+	@Test
+	void carriesTheKeysOfThePreviousToken() {
+		String token = write(write(null, "tenant1", "id-1"), "tenant1", "id-2");
+
+		assertThat(readConsistency.isConsistent(request(ReadConsistency.TOKEN_HEADER, token), "tenant1", "id-1"))
+				.isTrue();
+		assertThat(readConsistency.isConsistent(request(ReadConsistency.TOKEN_HEADER, token), "tenant1", "id-2"))
+				.isTrue();
+	}
+
+	@Test
+	void dropsTheOldestKeysOfAFullToken() {
+		properties.setSessionMaxKeys(2);
+		String token = write(write(write(null, "tenant1", "id-1"), "tenant1", "id-2"), "tenant1", "id-3");
+
+		assertThat(readConsistency.isConsistent(request(ReadConsistency.TOKEN_HEADER, token), "tenant1", "id-1"))
+				.isFalse();
+		assertThat(readConsistency.isConsistent(request(ReadConsistency.TOKEN_HEADER, token), "tenant1", "id-3"))
+				.isTrue();
+	}
+
+	@Test
+	void ignoresExpiredKeys() throws Exception {
+		properties.setSessionWindow(20);
+		String token = write(null, "tenant1", "id-1");
+		Thread.sleep(40);
+
+		assertThat(readConsistency.isConsistent(request(ReadConsistency.TOKEN_HEADER, token), "tenant1", "id-1"))
+				.isFalse();
+	}
+
+	@Test
+	void ignoresATokenOfAnotherTenant() {
+		String token = write(null, "tenant1", "id-1");
+
+		assertThat(readConsistency.isConsistent(request(ReadConsistency.TOKEN_HEADER, token), "tenant2", "id-1"))
+				.isFalse();
+	}
+
+	@Test
+	void ignoresATokenSignedWithAnotherSecret() {
+		ConsistencyProperties otherProperties = new ConsistencyProperties();
+		otherProperties.setSessionSecret("other-secret");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		new ReadConsistency(otherProperties).written(new MockHttpServletRequest(), response, "tenant1", "id-1");
+		String token = response.getHeader(ReadConsistency.TOKEN_HEADER);
+
+		assertThat(readConsistency.isConsistent(request(ReadConsistency.TOKEN_HEADER, token), "tenant1", "id-1"))
+				.isFalse();
+	}
+
+	@Test
+	void ignoresATamperedToken() {
+		String token = write(null, "tenant1", "id-1");
+		String signature = token.substring(token.indexOf('.'));
+		String payload = "{\"t\":\"tenant1\",\"k\":{\"id-2\":" + Long.MAX_VALUE + "}}";
+		String tampered = Base64.getUrlEncoder().withoutPadding()
+				.encodeToString(payload.getBytes(StandardCharsets.UTF_8)) + signature;
+
+		assertThat(readConsistency.isConsistent(request(ReadConsistency.TOKEN_HEADER, tampered), "tenant1", "id-2"))
+				.isFalse();
+		assertThat(readConsistency.isConsistent(request(ReadConsistency.TOKEN_HEADER, "not a token"), "tenant1",
+				"id-1")).isFalse();
+	}
+
+	@Test
+	void issuesNoTokenWithoutASessionWindow() {
+		properties.setSessionWindow(0);
+
+		assertThat(write(null, "tenant1", "id-1")).isNull();
+	}
+
+	private String write(String token, String tenantId, String key) {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		readConsistency.written(token != null ? request(ReadConsistency.TOKEN_HEADER, token)
+				: new MockHttpServletRequest(), response, tenantId, key);
+		return response.getHeader(ReadConsistency.TOKEN_HEADER);
+	}
+
+	private static MockHttpServletRequest request(String header, String value) {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader(header, value);
+		return request;
+	}
+}
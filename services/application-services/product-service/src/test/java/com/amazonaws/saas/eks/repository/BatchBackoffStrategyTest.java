@@ -0,0 +1,80 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazonaws.saas.eks.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.BatchLoadContext;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemResult;
+import com.amazonaws.services.dynamodbv2.model.KeysAndAttributes;
+
+class BatchBackoffStrategyTest {
+	private final BatchBackoffStrategy strategy = new BatchBackoffStrategy(3);
+
+	@Test
+	void retriesUnprocessedKeysUpToTheLimit() {
+		BatchGetItemResult unprocessed = new BatchGetItemResult()
+				.withUnprocessedKeys(Collections.singletonMap("Product", new KeysAndAttributes()));
+
+		assertThat(strategy.shouldRetry(context(unprocessed, 0))).isTrue();
+		assertThat(strategy.shouldRetry(context(unprocessed, 2))).isTrue();
+		assertThat(strategy.shouldRetry(context(unprocessed, 3))).isFalse();
+	}
+
+	@Test
+	void doesNotRetryWhenEveryKeyWasProcessed() {
+		assertThat(strategy.shouldRetry(context(new BatchGetItemResult(), 0))).isFalse();
+		assertThat(strategy.shouldRetry(
+				context(new BatchGetItemResult().withUnprocessedKeys(Collections.emptyMap()), 0))).isFalse();
+	}
+
+	@Test
+	void retriesUnprocessedItemsUpToTheLimit() {
+		assertThat(strategy.getMaxRetryOnUnprocessedItems(Collections.emptyMap())).isEqualTo(3);
+	}
+
+	@Test
+	void jittersDelaysBelowAnExponentialCeiling() {
+		for (int i = 0; i < 1000; i++) {
+			assertThat(strategy.getDelayBeforeRetryUnprocessedItems(Collections.emptyMap(), 0)).isBetween(0L, 50L);
+			assertThat(strategy.getDelayBeforeRetryUnprocessedItems(Collections.emptyMap(), 3)).isBetween(0L, 400L);
+			assertThat(strategy.getDelayBeforeNextRetry(context(new BatchGetItemResult(), 30))).isBetween(0L, 2000L);
+		}
+	}
+
+	@Test
+	void spreadsDelaysOverTheWholeRange() {
+		long max = 0;
+		for (int i = 0; i < 1000; i++) {
+			max = Math.max(max, strategy.getDelayBeforeRetryUnprocessedItems(Collections.emptyMap(), 10));
+		}
+
+		assertThat(max).isGreaterThan(1000L);
+	}
+
+	private static BatchLoadContext context(BatchGetItemResult result, int retriesAttempted) {
+		BatchLoadContext context = new BatchLoadContext(new BatchGetItemRequest());
+		context.setBatchGetItemResult(result);
+		context.setRetriesAttempted(retriesAttempted);
+		return context;
+	}
+}
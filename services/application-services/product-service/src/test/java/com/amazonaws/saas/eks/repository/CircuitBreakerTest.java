@@ -0,0 +1,253 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazonaws.saas.eks.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.saas.eks.config.DynamodbProperties;
+import com.amazonaws.saas.eks.exception.ServiceUnavailableException;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
+
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+
+class CircuitBreakerTest {
+	private static final long OPEN_DURATION = 100;
+
+	private final DynamodbProperties properties = new DynamodbProperties();
+	private final AtomicInteger calls = new AtomicInteger();
+
+	@BeforeEach
+	void setUp() {
+		properties.setCircuitBreakerEnabled(true);
+		properties.setCircuitWindowSize(10);
+		properties.setCircuitMinimumCalls(4);
+		properties.setCircuitFailureRateThreshold(50);
+		properties.setCircuitThrottleThreshold(3);
+		properties.setCircuitOpenDuration(OPEN_DURATION);
+	}
+
+	@Test
+	void opensWhenTooManyCallsFail() {
+		CircuitBreaker circuit = new CircuitBreaker("Product", properties);
+		succeed(circuit);
+		succeed(circuit);
+		fail(circuit);
+		assertThat(succeed(circuit)).isEqualTo("ok");
+		fail(circuit);
+		fail(circuit);
+
+		assertThatThrownBy(() -> succeed(circuit)).isInstanceOf(ServiceUnavailableException.class);
+		assertThat(calls).hasValue(6);
+	}
+
+	@Test
+	void staysClosedBelowTheMinimumCalls() {
+		CircuitBreaker circuit = new CircuitBreaker("Product", properties);
+		fail(circuit);
+		fail(circuit);
+		fail(circuit);
+
+		assertThat(succeed(circuit)).isEqualTo("ok");
+	}
+
+	@Test
+	void opensWhenTooManyCallsAreThrottled() {
+		properties.setCircuitMinimumCalls(100);
+		CircuitBreaker circuit = new CircuitBreaker("Product", properties);
+		for (int i = 0; i < 3; i++) {
+			assertThatThrownBy(() -> circuit.execute(() -> {
+				throw serviceException("ProvisionedThroughputExceededException", AmazonServiceException.ErrorType.Client);
+			})).isInstanceOf(AmazonServiceException.class);
+		}
+
+		assertThatThrownBy(() -> succeed(circuit)).isInstanceOf(ServiceUnavailableException.class);
+	}
+
+	@Test
+	void doesNotCountTheCallersErrors() {
+		CircuitBreaker circuit = new CircuitBreaker("Product", properties);
+		for (int i = 0; i < 10; i++) {
+			assertThatThrownBy(() -> circuit.execute(() -> {
+				ConditionalCheckFailedException e = new ConditionalCheckFailedException("version changed");
+				e.setErrorType(AmazonServiceException.ErrorType.Client);
+				throw e;
+			})).isInstanceOf(ConditionalCheckFailedException.class);
+		}
+
+		assertThat(succeed(circuit)).isEqualTo("ok");
+	}
+
+	@Test
+	void closesWhenTheProbeSucceeds() throws Exception {
+		CircuitBreaker circuit = open(new CircuitBreaker("Product", properties));
+		Thread.sleep(OPEN_DURATION + 20);
+
+		assertThat(succeed(circuit)).isEqualTo("ok");
+		assertThat(succeed(circuit)).isEqualTo("ok");
+	}
+
+	@Test
+	void reopensWhenTheProbeFails() throws Exception {
+		CircuitBreaker circuit = open(new CircuitBreaker("Product", properties));
+		Thread.sleep(OPEN_DURATION + 20);
+
+		fail(circuit);
+
+		assertThatThrownBy(() -> succeed(circuit)).isInstanceOf(ServiceUnavailableException.class);
+	}
+
+	@Test
+	void letsASingleProbeThrough() throws Exception {
+		CircuitBreaker circuit = open(new CircuitBreaker("Product", properties));
+		Thread.sleep(OPEN_DURATION + 20);
+		CountDownLatch release = new CountDownLatch(1);
+		CompletableFuture<String> probe = CompletableFuture.supplyAsync(() -> circuit.execute(() -> {
+			await(release);
+			return "probe";
+		}));
+		Thread.sleep(50);
+
+		assertThatThrownBy(() -> succeed(circuit)).isInstanceOf(ServiceUnavailableException.class);
+		release.countDown();
+		assertThat(probe.get(5, TimeUnit.SECONDS)).isEqualTo("probe");
+		assertThat(succeed(circuit)).isEqualTo("ok");
+	}
+
+	@Test
+	void ignoresCallsThatStartedBeforeTheCircuitOpened() throws Exception {
+		CircuitBreaker circuit = new CircuitBreaker("Product", properties);
+		CountDownLatch releaseLate = new CountDownLatch(1);
+		CompletableFuture<String> late = CompletableFuture.supplyAsync(() -> circuit.execute(() -> {
+			await(releaseLate);
+			throw new IllegalStateException("late failure");
+		}));
+		Thread.sleep(50);
+		open(circuit);
+		Thread.sleep(OPEN_DURATION + 20);
+
+		CountDownLatch releaseProbe = new CountDownLatch(1);
+		CompletableFuture<String> probe = CompletableFuture.supplyAsync(() -> circuit.execute(() -> {
+			await(releaseProbe);
+			return "probe";
+		}));
+		Thread.sleep(50);
+		releaseLate.countDown();
+		assertThatThrownBy(() -> late.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+
+		assertThatThrownBy(() -> succeed(circuit)).isInstanceOf(ServiceUnavailableException.class);
+		releaseProbe.countDown();
+		assertThat(probe.get(5, TimeUnit.SECONDS)).isEqualTo("probe");
+		assertThat(succeed(circuit)).isEqualTo("ok");
+	}
+
+	@Test
+	void recordsNonBlockingCallsWhenTheyComplete() {
+		CircuitBreaker circuit = new CircuitBreaker("Product", properties);
+		for (int i = 0; i < 10; i++) {
+			CompletableFuture<String> conflict = circuit.executeAsync(() -> CompletableFuture
+					.failedFuture(DynamoDbException.builder().message("version changed").statusCode(400).build()));
+			assertThat(conflict).isCompletedExceptionally();
+		}
+		assertThat(circuit.executeAsync(() -> CompletableFuture.completedFuture("ok"))).isCompletedWithValue("ok");
+
+		for (int i = 0; i < 5; i++) {
+			circuit.executeAsync(() -> CompletableFuture
+					.failedFuture(DynamoDbException.builder().message("internal").statusCode(500).build()));
+		}
+
+		CompletableFuture<String> rejected = circuit.executeAsync(() -> {
+			calls.incrementAndGet();
+			return CompletableFuture.completedFuture("ok");
+		});
+		assertThatThrownBy(rejected::join).hasCauseInstanceOf(ServiceUnavailableException.class);
+		assertThat(calls).hasValue(0);
+	}
+
+	@Test
+	void opensWhenTooManyNonBlockingCallsAreThrottled() {
+		properties.setCircuitMinimumCalls(100);
+		CircuitBreaker circuit = new CircuitBreaker("Product", properties);
+		for (int i = 0; i < 3; i++) {
+			circuit.executeAsync(() -> CompletableFuture.failedFuture(DynamoDbException.builder()
+					.message("throttled").statusCode(400)
+					.awsErrorDetails(AwsErrorDetails.builder()
+							.errorCode("ProvisionedThroughputExceededException").build())
+					.build()));
+		}
+
+		assertThatThrownBy(() -> succeed(circuit)).isInstanceOf(ServiceUnavailableException.class);
+	}
+
+	@Test
+	void passesEveryCallThroughWhenDisabled() {
+		properties.setCircuitBreakerEnabled(false);
+		CircuitBreaker circuit = new CircuitBreaker("Product", properties);
+		for (int i = 0; i < 10; i++) {
+			fail(circuit);
+		}
+
+		assertThat(succeed(circuit)).isEqualTo("ok");
+	}
+
+	private CircuitBreaker open(CircuitBreaker circuit) {
+		for (int i = 0; i < 4; i++) {
+			fail(circuit);
+		}
+		assertThatThrownBy(() -> succeed(circuit)).isInstanceOf(ServiceUnavailableException.class);
+		return circuit;
+	}
+
+	private String succeed(CircuitBreaker circuit) {
+		return circuit.execute(() -> {
+			calls.incrementAndGet();
+			return "ok";
+		});
+	}
+
+	private void fail(CircuitBreaker circuit) {
+		assertThatThrownBy(() -> circuit.execute(() -> {
+			calls.incrementAndGet();
+			throw serviceException("InternalServerError", AmazonServiceException.ErrorType.Service);
+		})).isInstanceOf(AmazonServiceException.class);
+	}
+
+	private static AmazonServiceException serviceException(String errorCode, AmazonServiceException.ErrorType type) {
+		AmazonServiceException e = new AmazonServiceException(errorCode);
+		e.setErrorCode(errorCode);
+		e.setErrorType(type);
+		return e;
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazonaws.saas.eks.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.amazonaws.saas.eks.config.DynamodbProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class HedgingPolicyTest {
+	private static final int WARM_UP_READS = 100;
+
+	private final DynamodbProperties properties = new DynamodbProperties();
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private ThreadPoolExecutor executor;
+
+	@BeforeEach
+	void setUp() {
+		properties.setHedgingEnabled(true);
+		properties.setHedgingPercentile(95);
+		properties.setHedgingBudget(5);
+		properties.setHedgingMinDelay(20);
+		executor = new ThreadPoolExecutor(0, 4, 60, TimeUnit.SECONDS, new SynchronousQueue<Runnable>());
+	}
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void readsOnTheCallerUntilEnoughLatenciesAreKnown() {
+		HedgingPolicy policy = new HedgingPolicy("test", properties, executor, meterRegistry);
+		Thread caller = Thread.currentThread();
+
+		for (int i = 0; i < WARM_UP_READS - 1; i++) {
+			assertThat(policy.execute(() -> Thread.currentThread())).isSameAs(caller);
+		}
+
+		assertThat(executor.getTaskCount()).isZero();
+	}
+
+	@Test
+	void hedgesAReadSlowerThanTheThreshold() {
+		HedgingPolicy policy = warmedUp();
+		AtomicInteger reads = new AtomicInteger();
+
+		long start = System.nanoTime();
+		String value = policy.execute(() -> reads.incrementAndGet() == 1 ? sleep(2000, "primary") : "hedge");
+
+		assertThat(value).isEqualTo("hedge");
+		assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(1000);
+		assertThat(hedged()).isEqualTo(1);
+		// the winning read counts itself right after handing its value to the caller
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (hedgeWins() == 0 && System.nanoTime() < deadline) {
+			Thread.onSpinWait();
+		}
+		assertThat(hedgeWins()).isEqualTo(1);
+	}
+
+	@Test
+	void doesNotHedgeAReadFasterThanTheMinimumDelay() {
+		properties.setHedgingMinDelay(500);
+		HedgingPolicy policy = warmedUp();
+		AtomicInteger reads = new AtomicInteger();
+
+		assertThat(policy.execute(() -> sleep(5, "read" + reads.incrementAndGet()))).isEqualTo("read1");
+		assertThat(reads).hasValue(1);
+		assertThat(hedged()).isZero();
+	}
+
+	@Test
+	void stopsHedgingOnceTheBudgetIsSpent() {
+		properties.setHedgingBudget(1);
+		HedgingPolicy policy = warmedUp();
+
+		for (int i = 0; i < 3; i++) {
+			AtomicInteger reads = new AtomicInteger();
+			policy.execute(() -> reads.incrementAndGet() == 1 ? sleep(100, "primary") : "hedge");
+		}
+
+		assertThat(hedged()).isEqualTo(1);
+	}
+
+	@Test
+	void neverHedgesWithoutABudget() {
+		properties.setHedgingBudget(0);
+		HedgingPolicy policy = warmedUp();
+		Thread caller = Thread.currentThread();
+
+		assertThat(policy.execute(() -> sleep(100, Thread.currentThread()))).isSameAs(caller);
+		assertThat(hedged()).isZero();
+	}
+
+	@Test
+	void readsOnTheCallerWhenTheExecutorRejects() throws Exception {
+		HedgingPolicy policy = warmedUp();
+		CountDownLatch release = new CountDownLatch(1);
+		for (int i = 0; i < executor.getMaximumPoolSize(); i++) {
+			executor.execute(() -> await(release));
+		}
+		Thread caller = Thread.currentThread();
+
+		try {
+			assertThat(policy.execute(() -> sleep(100, Thread.currentThread()))).isSameAs(caller);
+		} finally {
+			release.countDown();
+		}
+		assertThat(hedged()).isZero();
+	}
+
+	@Test
+	void keepsTheFirstReadWhenTheHedgeIsRejected() throws Exception {
+		HedgingPolicy policy = warmedUp();
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch primaryStarted = new CountDownLatch(1);
+		for (int i = 0; i < executor.getMaximumPoolSize() - 1; i++) {
+			executor.execute(() -> await(release));
+		}
+
+		try {
+			String value = policy.execute(() -> {
+				primaryStarted.countDown();
+				return sleep(100, "primary");
+			});
+			assertThat(value).isEqualTo("primary");
+		} finally {
+			release.countDown();
+		}
+		assertThat(primaryStarted.getCount()).isZero();
+		assertThat(hedged()).isZero();
+	}
+
+	@Test
+	void passesReadsThroughWhenDisabled() {
+		properties.setHedgingEnabled(false);
+		HedgingPolicy policy = new HedgingPolicy("test", properties, executor, meterRegistry);
+
+		for (int i = 0; i < 2 * WARM_UP_READS; i++) {
+			policy.execute(() -> "read");
+		}
+
+		assertThat(executor.getTaskCount()).isZero();
+	}
+
+	/**
+	 * Records enough fast reads on the calling thread for a threshold to be
+	 * computed, which then stays below the minimum delay
+	 */
+	private HedgingPolicy warmedUp() {
+		HedgingPolicy policy = new HedgingPolicy("test", properties, executor, meterRegistry);
+		for (int i = 0; i < WARM_UP_READS; i++) {
+			policy.execute(() -> "read");
+		}
+		assertThat(executor.getTaskCount()).isZero();
+		return policy;
+	}
+
+	private double hedgeWins() {
+		return meterRegistry.counter("dynamodb.reads.hedge.wins", "operation", "test").count();
+	}
+
+	private double hedged() {
+		return meterRegistry.counter("dynamodb.reads.hedged", "operation", "test").count();
+	}
+
+	private static <T> T sleep(long millis, T value) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return value;
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazonaws.saas.eks.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.amazonaws.saas.eks.exception.InvalidPageTokenException;
+
+class PageTokenTest {
+
+	@Test
+	void decodesTheKeyItEncoded() {
+		Map<String, String> key = new HashMap<>();
+		key.put("TenantId", "tenant1");
+		key.put("ProductId", "p-42");
+
+		String token = PageToken.encode("tenant1", key);
+
+		assertThat(PageToken.decode("tenant1", token, "TenantId", "ProductId")).isEqualTo(key);
+	}
+
+	@Test
+	void hasNoTokenAfterTheLastPage() {
+		assertThat(PageToken.encode("tenant1", null)).isNull();
+		assertThat(PageToken.encode("tenant1", Collections.emptyMap())).isNull();
+		assertThat(PageToken.decode("tenant1", null, "OrderId")).isNull();
+		assertThat(PageToken.decode("tenant1", "", "OrderId")).isNull();
+	}
+
+	@Test
+	void rejectsATokenOfAnotherTenant() {
+		String token = PageToken.encode("tenant1", Collections.singletonMap("OrderId", "o-1"));
+
+		assertThatThrownBy(() -> PageToken.decode("tenant2", token, "OrderId"))
+				.isInstanceOf(InvalidPageTokenException.class);
+	}
+
+	@Test
+	void rejectsATokenOfAnotherListing() {
+		String token = PageToken.encode("tenant1", Collections.singletonMap("OrderId", "o-1"));
+
+		assertThatThrownBy(() -> PageToken.decode("tenant1", token, "ProductId"))
+				.isInstanceOf(InvalidPageTokenException.class);
+		assertThatThrownBy(() -> PageToken.decode("tenant1", token, "OrderId", "CreatedDate"))
+				.isInstanceOf(InvalidPageTokenException.class);
+	}
+
+	@Test
+	void rejectsMalformedTokens() {
+		String notJson = Base64.getUrlEncoder().encodeToString("not json".getBytes(StandardCharsets.UTF_8));
+		String numericKey = Base64.getUrlEncoder()
+				.encodeToString("{\"t\":\"tenant1\",\"k\":{\"OrderId\":1}}".getBytes(StandardCharsets.UTF_8));
+
+		assertThatThrownBy(() -> PageToken.decode("tenant1", "%%%", "OrderId"))
+				.isInstanceOf(InvalidPageTokenException.class);
+		assertThatThrownBy(() -> PageToken.decode("tenant1", notJson, "OrderId"))
+				.isInstanceOf(InvalidPageTokenException.class);
+		assertThatThrownBy(() -> PageToken.decode("tenant1", numericKey, "OrderId"))
+				.isInstanceOf(InvalidPageTokenException.class);
+	}
+}
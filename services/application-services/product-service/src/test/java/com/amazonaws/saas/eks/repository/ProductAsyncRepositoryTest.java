@@ -0,0 +1,131 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazonaws.saas.eks.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.amazonaws.saas.eks.config.DynamodbProperties;
+import com.amazonaws.saas.eks.exception.ServiceUnavailableException;
+import com.amazonaws.saas.eks.exception.VersionConflictException;
+import com.amazonaws.saas.eks.model.Product;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedAsyncClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
+
+class ProductAsyncRepositoryTest {
+	private final DynamodbProperties properties = new DynamodbProperties();
+	private final List<PutItemRequest> puts = new ArrayList<PutItemRequest>();
+	private Supplier<CompletableFuture<PutItemResponse>> putResponse;
+	private ProductAsyncRepository repository;
+
+	@BeforeEach
+	void setUp() {
+		properties.setCircuitBreakerEnabled(true);
+		properties.setCircuitWindowSize(10);
+		properties.setCircuitMinimumCalls(4);
+		properties.setCircuitFailureRateThreshold(50);
+		properties.setCircuitOpenDuration(60000);
+
+		DynamoDbAsyncClient client = new DynamoDbAsyncClient() {
+			@Override
+			public CompletableFuture<PutItemResponse> putItem(PutItemRequest request) {
+				puts.add(request);
+				return putResponse.get();
+			}
+
+			@Override
+			public String serviceName() {
+				return "dynamodb";
+			}
+
+			@Override
+			public void close() {
+			}
+		};
+		ProductRepository productRepository = new ProductRepository(null, null, properties, ForkJoinPool.commonPool(),
+				ForkJoinPool.commonPool(), new SimpleMeterRegistry());
+		repository = new ProductAsyncRepository(client,
+				DynamoDbEnhancedAsyncClient.builder().dynamoDbClient(client).build(), productRepository);
+	}
+
+	@Test
+	void savesOnlyAProductThatDoesNotExistYet() {
+		putResponse = () -> CompletableFuture.completedFuture(PutItemResponse.builder().build());
+
+		Product saved = repository.save(product()).join();
+
+		assertThat(saved.getProductId()).isNotBlank();
+		assertThat(saved.getVersion()).isEqualTo(1L);
+		assertThat(puts).singleElement().satisfies(put -> {
+			assertThat(put.conditionExpression()).isEqualTo("attribute_not_exists(#ProductId)");
+			assertThat(put.expressionAttributeNames()).containsEntry("#ProductId", "ProductId");
+		});
+	}
+
+	@Test
+	void reportsAProductThatAlreadyExistsAsAConflict() {
+		putResponse = () -> CompletableFuture.failedFuture(
+				ConditionalCheckFailedException.builder().message("exists").statusCode(400).build());
+
+		assertThatThrownBy(() -> repository.save(product()).join())
+				.hasCauseInstanceOf(VersionConflictException.class);
+	}
+
+	@Test
+	void failsASaveThatDynamoDbFailed() {
+		putResponse = () -> CompletableFuture.failedFuture(
+				DynamoDbException.builder().message("internal").statusCode(500).build());
+
+		assertThatThrownBy(() -> repository.save(product()).join()).hasCauseInstanceOf(DynamoDbException.class);
+	}
+
+	@Test
+	void rejectsSavesWhileTheCircuitIsOpen() {
+		putResponse = () -> CompletableFuture.failedFuture(
+				DynamoDbException.builder().message("internal").statusCode(500).build());
+		for (int i = 0; i < 4; i++) {
+			assertThatThrownBy(() -> repository.save(product()).join()).hasCauseInstanceOf(DynamoDbException.class);
+		}
+
+		assertThatThrownBy(() -> repository.save(product()).join())
+				.hasCauseInstanceOf(ServiceUnavailableException.class);
+		assertThat(puts).hasSize(4);
+	}
+
+	private static Product product() {
+		Product product = new Product();
+		product.setTenantId("tenant");
+		product.setName("Chair");
+		product.setPrice(12.5);
+		return product;
+	}
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazonaws.saas.eks.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.amazonaws.saas.eks.exception.InvalidBatchRequestException;
+import com.amazonaws.saas.eks.model.BulkWriteRow;
+
+class ProductBulkReaderTest {
+
+	@Test
+	void splitsPlainAndQuotedValues() {
+		assertThat(ProductBulkReader.splitCsv("a,b,,c")).containsExactly("a", "b", "", "c");
+		assertThat(ProductBulkReader.splitCsv("\"a, b\",c")).containsExactly("a, b", "c");
+		assertThat(ProductBulkReader.splitCsv("\"say \"\"hi\"\"\",\"\"")).containsExactly("say \"hi\"", "");
+		assertThat(ProductBulkReader.splitCsv("a,")).containsExactly("a", "");
+		assertThat(ProductBulkReader.splitCsv("\"line 1\nline 2\",b")).containsExactly("line 1\nline 2", "b");
+		assertThat(ProductBulkReader.splitCsv("\"\"\"a,\"\"\",\"\n\"")).containsExactly("\"a,\"", "\n");
+	}
+
+	@Test
+	void reportsAnUnterminatedQuotedValue() {
+		assertThat(ProductBulkReader.splitCsv("\"a,b")).isNull();
+		assertThat(ProductBulkReader.splitCsv("a,\"b\"\"")).isNull();
+	}
+
+	@Test
+	void readsCsvRowsByTheirHeader() {
+		List<BulkWriteRow> rows = csv("\uFEFFOp,ProductId,Name,Price,PictureUrl\n"
+				+ "upsert,p-1,\"Chair, oak\",12.5,\n"
+				+ "\n"
+				+ "delete,p-2\n");
+
+		assertThat(rows).hasSize(2);
+		assertThat(rows.get(0).getRow()).isEqualTo(2);
+		assertThat(rows.get(0).getOperation()).isEqualTo(BulkWriteRow.Operation.UPSERT);
+		assertThat(rows.get(0).getProduct().getProductId()).isEqualTo("p-1");
+		assertThat(rows.get(0).getProduct().getName()).isEqualTo("Chair, oak");
+		assertThat(rows.get(0).getProduct().getPrice()).isEqualTo(12.5);
+		assertThat(rows.get(0).getProduct().getPictureUrl()).isNull();
+		assertThat(rows.get(1).getRow()).isEqualTo(4);
+		assertThat(rows.get(1).getOperation()).isEqualTo(BulkWriteRow.Operation.DELETE);
+		assertThat(rows.get(1).getProduct().getProductId()).isEqualTo("p-2");
+	}
+
+	@Test
+	void marksInvalidCsvRowsWithoutStopping() {
+		List<BulkWriteRow> rows = csv("op,productId,name,price\n"
+				+ "upsert,p-1,Chair,cheap\n"
+				+ "delete,,Chair,1\n"
+				+ "upsert,p-3,Chair,1,extra\n"
+				+ "move,p-5\n"
+				+ "upsert,,Table,3\n"
+				+ "upsert,p-4,\"Chair,1\n"
+				+ "upsert,p-6,Lamp,2\n");
+
+		assertThat(rows).extracting(BulkWriteRow::getError).containsExactly("An upsert needs a numeric price",
+				"A delete needs a productId", "Row has more values than the header", "Unknown op: move", null,
+				"Unterminated quoted value");
+		assertThat(rows).extracting(BulkWriteRow::getRow).containsExactly(2L, 3L, 4L, 5L, 6L, 7L);
+		assertThat(rows.get(4).getProduct().getProductId()).isNotBlank();
+	}
+
+	@Test
+	void readsQuotedCsvValuesOverSeveralLines() {
+		List<BulkWriteRow> rows = csv("productId,name,price\n"
+				+ "p-1,\"Chair,\n\n\"\"oak\"\"\",12.5\r\n"
+				+ "p-2,Table,3\n");
+
+		assertThat(rows).extracting(BulkWriteRow::getError).containsOnlyNulls();
+		assertThat(rows).extracting(BulkWriteRow::getRow).containsExactly(2L, 5L);
+		assertThat(rows.get(0).getProduct().getName()).isEqualTo("Chair,\n\n\"oak\"");
+		assertThat(rows.get(0).getProduct().getPrice()).isEqualTo(12.5);
+		assertThat(rows.get(1).getProduct().getName()).isEqualTo("Table");
+	}
+
+	@Test
+	void stopsAQuotedValueAtTheMaximumRowLength() {
+		String longLine = "x".repeat(ProductBulkReader.MAX_RECORD_LENGTH);
+		List<BulkWriteRow> rows = csv("productId,name,price\n"
+				+ "p-1,\"Chair\n"
+				+ longLine + "\n"
+				+ "p-2,Table,3\n");
+
+		assertThat(rows).extracting(BulkWriteRow::getError).containsExactly("Unterminated quoted value", null);
+		assertThat(rows.get(1).getRow()).isEqualTo(4);
+	}
+
+	@Test
+	void rejectsAnUnknownCsvColumn() {
+		assertThatThrownBy(() -> csv("productId,colour\n")).isInstanceOf(InvalidBatchRequestException.class);
+		assertThatThrownBy(() -> csv("")).isInstanceOf(InvalidBatchRequestException.class);
+	}
+
+	@Test
+	void readsNdjsonRows() {
+		List<BulkWriteRow> rows = ndjson("{\"productId\":\"p-1\",\"name\":\"Chair\",\"price\":12.5}\n"
+				+ "{\"op\":\"delete\",\"productId\":\"p-2\"}\n"
+				+ "{\"name\":\"Table\"\n"
+				+ "[1,2]\n"
+				+ "{\"name\":\"Lamp\",\"price\":3,\"pictureUrl\":null}\n");
+
+		assertThat(rows).extracting(BulkWriteRow::getOperation).containsExactly(BulkWriteRow.Operation.UPSERT,
+				BulkWriteRow.Operation.DELETE, null, null, BulkWriteRow.Operation.UPSERT);
+		assertThat(rows.get(2).getError()).startsWith("Malformed JSON");
+		assertThat(rows.get(3).getError()).isEqualTo("Each line must be a JSON object");
+		assertThat(rows.get(4).getProduct().getPrice()).isEqualTo(3.0);
+		assertThat(rows.get(4).getProduct().getPictureUrl()).isNull();
+	}
+
+	private static List<BulkWriteRow> csv(String body) {
+		return read(ProductBulkReader.csv(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)),
+				StandardCharsets.UTF_8));
+	}
+
+	private static List<BulkWriteRow> ndjson(String body) {
+		return read(ProductBulkReader.ndjson(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)),
+				StandardCharsets.UTF_8));
+	}
+
+	private static List<BulkWriteRow> read(ProductBulkReader reader) {
+		List<BulkWriteRow> rows = new ArrayList<BulkWriteRow>();
+		reader.forEachRemaining(rows::add);
+		return rows;
+	}
+}
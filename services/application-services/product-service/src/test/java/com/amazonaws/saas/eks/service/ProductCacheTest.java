@@ -0,0 +1,176 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazonaws.saas.eks.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.amazonaws.saas.eks.config.CacheProperties;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ProductCacheTest {
+	private final CacheProperties cacheProperties = new CacheProperties();
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@BeforeEach
+	void setUp() {
+		cacheProperties.setMaximumSize(100);
+		cacheProperties.setTimeToLive(60000);
+		cacheProperties.setMaximumTenants(10);
+	}
+
+	@Test
+	void servesRepeatedReadsFromTheCache() {
+		ProductCache cache = new ProductCache(cacheProperties, meterRegistry);
+		AtomicInteger loads = new AtomicInteger();
+
+		cache.get("tenant-1", "key", () -> "value" + loads.incrementAndGet());
+
+		assertThat(cache.<String>get("tenant-1", "key", () -> "value" + loads.incrementAndGet())).isEqualTo("value1");
+		assertThat(cache.<String>get("tenant-2", "key", () -> "value" + loads.incrementAndGet())).isEqualTo("value2");
+		assertThat(cache.<String>get("tenant-1", "key", () -> null)).isEqualTo("value1");
+	}
+
+	@Test
+	void doesNotCacheNull() {
+		ProductCache cache = new ProductCache(cacheProperties, meterRegistry);
+
+		cache.get("tenant-1", "key", () -> null);
+
+		assertThat(cache.<String>get("tenant-1", "key", () -> "value")).isEqualTo("value");
+	}
+
+	@Test
+	void dropsATenantsEntriesOnInvalidation() {
+		ProductCache cache = new ProductCache(cacheProperties, meterRegistry);
+		cache.get("tenant-1", "key", () -> "before write");
+		cache.get("tenant-2", "key", () -> "other tenant");
+
+		cache.invalidateTenant("tenant-1");
+
+		assertThat(cache.<String>get("tenant-1", "key", () -> "after write")).isEqualTo("after write");
+		assertThat(cache.<String>get("tenant-2", "key", () -> "after write")).isEqualTo("other tenant");
+	}
+
+	@Test
+	void neverServesALoadThatWasInFlightDuringInvalidation() throws Exception {
+		ProductCache cache = new ProductCache(cacheProperties, meterRegistry);
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		CompletableFuture<String> before = CompletableFuture.supplyAsync(() -> cache.get("tenant-1", "key", () -> {
+			loading.countDown();
+			await(release);
+			return "before write";
+		}));
+		assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+
+		cache.invalidateTenant("tenant-1");
+
+		assertThat(cache.<String>get("tenant-1", "key", () -> "after write")).isEqualTo("after write");
+		release.countDown();
+		assertThat(before.get(5, TimeUnit.SECONDS)).isEqualTo("before write");
+		assertThat(cache.<String>get("tenant-1", "key", () -> "reloaded")).isEqualTo("after write");
+	}
+
+	@Test
+	void sharesOneLoadBetweenConcurrentMisses() throws Exception {
+		ProductCache cache = new ProductCache(cacheProperties, meterRegistry);
+		AtomicInteger loads = new AtomicInteger();
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+
+		List<CompletableFuture<String>> reads = new ArrayList<CompletableFuture<String>>();
+		reads.add(CompletableFuture.supplyAsync(() -> cache.get("tenant-1", "key", () -> {
+			loads.incrementAndGet();
+			loading.countDown();
+			await(release);
+			return "value";
+		})));
+		assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+		for (int i = 0; i < 4; i++) {
+			reads.add(CompletableFuture.supplyAsync(() -> cache.get("tenant-1", "key", () -> {
+				loads.incrementAndGet();
+				return "own read";
+			})));
+		}
+		Thread.sleep(50);
+		release.countDown();
+
+		for (CompletableFuture<String> read : reads) {
+			assertThat(read.get(5, TimeUnit.SECONDS)).isEqualTo("value");
+		}
+		assertThat(loads).hasValue(1);
+	}
+
+	@Test
+	void loadsOutsideTheCachesMap() {
+		ProductCache cache = new ProductCache(cacheProperties, meterRegistry);
+
+		String value = cache.get("tenant-1", "outer", () -> "outer:" + cache.get("tenant-1", "inner", () -> "inner"));
+
+		assertThat(value).isEqualTo("outer:inner");
+	}
+
+	@Test
+	void keepsTheMetricsOfAPartitionThatReplacedAnExpiredOne() throws Exception {
+		cacheProperties.setTimeToLive(100);
+		ProductCache cache = new ProductCache(cacheProperties, meterRegistry);
+		cache.get("tenant-1", "key", () -> "value");
+		Thread.sleep(150);
+
+		cache.get("tenant-1", "key", () -> "value");
+		cache.get("tenant-1", "key", () -> "value");
+		Thread.sleep(50);
+
+		FunctionCounter hits = meterRegistry.find("cache.gets")
+				.tags("cache", "products", "tenant", "tenant-1", "result", "hit")
+				.functionCounter();
+		assertThat(hits).isNotNull();
+		assertThat(hits.count()).isEqualTo(1);
+	}
+
+	@Test
+	void passesReadsThroughWhenDisabled() {
+		cacheProperties.setMaximumSize(0);
+		ProductCache cache = new ProductCache(cacheProperties, meterRegistry);
+		AtomicInteger loads = new AtomicInteger();
+
+		cache.get("tenant-1", "key", () -> loads.incrementAndGet());
+		cache.get("tenant-1", "key", () -> loads.incrementAndGet());
+
+		assertThat(loads).hasValue(2);
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
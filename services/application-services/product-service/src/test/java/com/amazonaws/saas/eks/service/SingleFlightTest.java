@@ -0,0 +1,135 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify,
+ * merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.amazonaws.saas.eks.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class SingleFlightTest {
+	private final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+
+	@Test
+	void sharesTheResultOfAnInFlightCall() throws Exception {
+		AtomicInteger loads = new AtomicInteger();
+		CountDownLatch release = new CountDownLatch(1);
+		CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> singleFlight.execute("key", () -> {
+			loads.incrementAndGet();
+			await(release);
+			return "value";
+		}));
+		waitUntilLoading(loads);
+
+		CompletableFuture<String> follower = CompletableFuture
+				.supplyAsync(() -> singleFlight.execute("key", () -> "own read"));
+		Thread.sleep(50);
+		release.countDown();
+
+		assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("value");
+		assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo("value");
+		assertThat(loads).hasValue(1);
+	}
+
+	@Test
+	void sharesTheExceptionOfAnInFlightCall() throws Exception {
+		AtomicInteger loads = new AtomicInteger();
+		CountDownLatch release = new CountDownLatch(1);
+		CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> singleFlight.execute("key", () -> {
+			loads.incrementAndGet();
+			await(release);
+			throw new IllegalStateException("read failed");
+		}));
+		waitUntilLoading(loads);
+
+		CompletableFuture<String> follower = CompletableFuture
+				.supplyAsync(() -> singleFlight.execute("key", () -> "own read"));
+		Thread.sleep(50);
+		release.countDown();
+
+		assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+		assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+	}
+
+	@Test
+	void releasesFollowersWhenTheCallThrowsAnError() throws Exception {
+		AtomicInteger loads = new AtomicInteger();
+		CountDownLatch release = new CountDownLatch(1);
+		CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> singleFlight.execute("key", () -> {
+			loads.incrementAndGet();
+			await(release);
+			throw new AssertionError("loader error");
+		}));
+		waitUntilLoading(loads);
+
+		CompletableFuture<String> follower = CompletableFuture
+				.supplyAsync(() -> singleFlight.execute("key", () -> "own read"));
+		Thread.sleep(50);
+		release.countDown();
+
+		assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(AssertionError.class);
+		assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(AssertionError.class);
+		assertThat(singleFlight.execute("key", () -> "next")).isEqualTo("next");
+	}
+
+	@Test
+	void loadsAgainOnceTheCallCompleted() {
+		AtomicInteger loads = new AtomicInteger();
+
+		singleFlight.execute("key", () -> "first" + loads.incrementAndGet());
+
+		assertThat(singleFlight.execute("key", () -> "second" + loads.incrementAndGet())).isEqualTo("second2");
+	}
+
+	@Test
+	void doesNotShareForgottenCalls() throws Exception {
+		AtomicInteger loads = new AtomicInteger();
+		CountDownLatch release = new CountDownLatch(1);
+		CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> singleFlight.execute("key", () -> {
+			loads.incrementAndGet();
+			await(release);
+			return "before write";
+		}));
+		waitUntilLoading(loads);
+
+		singleFlight.forget(key -> key.equals("key"));
+
+		assertThat(singleFlight.execute("key", () -> "after write")).isEqualTo("after write");
+		release.countDown();
+		assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("before write");
+	}
+
+	private static void waitUntilLoading(AtomicInteger loads) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (loads.get() == 0 && System.nanoTime() < deadline) {
+			Thread.sleep(1);
+		}
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
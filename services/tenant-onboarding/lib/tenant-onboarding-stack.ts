@@ -126,6 +126,11 @@ export class TenantOnboardingStack extends Stack {
       value: cognito.appClientId,
     });
 
+    new CfnOutput(this, 'userPoolId', {
+      key: 'UserPoolId',
+      value: cognito.userPoolId,
+    });
+
     new CfnOutput(this, 'authServer', {
       key: 'AuthServer',
       value: cognito.authServerUrl,
@@ -199,6 +204,21 @@ export class TenantOnboardingStack extends Stack {
       writeCapacity: 5,
       removalPolicy: RemovalPolicy.DESTROY,
     });
+    // orders by creation time, partitioned by the day they were created on
+    orderTable.addGlobalSecondaryIndex({
+      indexName: 'CreatedAtIndex',
+      partitionKey: {
+        name: 'CreatedDate',
+        type: dynamodb.AttributeType.STRING,
+      },
+      sortKey: {
+        name: 'CreatedAt',
+        type: dynamodb.AttributeType.STRING,
+      },
+      readCapacity: 5,
+      writeCapacity: 5,
+      projectionType: dynamodb.ProjectionType.ALL,
+    });
 
     //Create Tenant namespace
     const ns = cluster.addManifest('tenant-namespace', {
@@ -231,8 +251,11 @@ export class TenantOnboardingStack extends Stack {
           'dynamodb:DeleteItem',
           'dynamodb:BatchWriteItem',
           'dynamodb:Scan',
+          'dynamodb:DescribeTable',
+          'dynamodb:ListTagsOfResource',
+          'dynamodb:TagResource',
         ],
-        resources: [orderTable.tableArn],
+        resources: [orderTable.tableArn, `${orderTable.tableArn}/index/*`],
         effect: iam.Effect.ALLOW,
       })
     );